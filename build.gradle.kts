@@ -1,36 +1,14 @@
-plugins {
-    id("application")
-    id("java")
-}
+// Shared settings for the core and ui modules
+subprojects {
+    apply(plugin = "java")
 
-java {
-    toolchain {
-        languageVersion.set(JavaLanguageVersion.of(21))
+    repositories {
+        mavenCentral()
     }
-}
-
-repositories {
-    mavenCentral()
-}
-
-dependencies {
-    implementation("com.google.code.gson:gson:2.8.9")
-    implementation("org.json:json:20231013")
-}
-
-application {
-    mainClass.set("Main")
-}
 
-tasks.jar {
-    manifest {
-        attributes["Main-Class"] = "Main"
+    extensions.configure<JavaPluginExtension> {
+        toolchain {
+            languageVersion.set(JavaLanguageVersion.of(21))
+        }
     }
-
-    // Include all dependencies inside the JAR (Fat JAR)
-    from ({
-        configurations.runtimeClasspath.get().map { if (it.isDirectory) it else zipTree(it) }
-    })
-
-    duplicatesStrategy = DuplicatesStrategy.EXCLUDE
 }
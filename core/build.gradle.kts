@@ -0,0 +1,15 @@
+// Model, indexes, persistence and scheduling. No AWT/Swing, so headless tools can load it cheaply.
+plugins {
+    id("java-library")
+}
+
+dependencies {
+    api(libs.json)
+
+    testImplementation(libs.junit)
+}
+
+// Only these JDK modules are visible to core's sources, so an AWT or Swing import fails the build
+tasks.withType<JavaCompile>().configureEach {
+    options.compilerArgs.addAll(listOf("--limit-modules", "java.base,java.management,java.net.http,jdk.httpserver"))
+}
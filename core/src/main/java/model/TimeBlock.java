@@ -0,0 +1,62 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+public class TimeBlock {
+    // Order the schedule manager lists blocks in, with or without a search
+    public static final Comparator<TimeBlock> BY_TIME = Comparator.comparing((TimeBlock block) -> block.start)
+            .thenComparing(block -> block.end)
+            .thenComparing(block -> block.label);
+
+    // Stable identity across saves and devices, so concurrent edits to the same block can be merged
+    public final String id;
+    public LocalTime start;
+    public LocalTime end;
+    public String label;
+    // Sub-blocks inside this block's time range, e.g. pomodoro intervals, in start order
+    public final List<TimeBlock> children = new ArrayList<>();
+
+    public TimeBlock(LocalTime start, LocalTime end, String label) {
+        this(UUID.randomUUID().toString(), start, end, label);
+    }
+
+    public TimeBlock(String id, LocalTime start, LocalTime end, String label) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.label = label;
+    }
+
+    // Deep copy with fresh ids, children included
+    public TimeBlock copy() {
+        TimeBlock copy = new TimeBlock(start, end, label);
+        for (TimeBlock child : children) {
+            copy.children.add(child.copy());
+        }
+        return copy;
+    }
+
+    // Deep copy that keeps every id, e.g. for a cached copy of a schedule that must stay the same blocks
+    public TimeBlock snapshot() {
+        TimeBlock copy = new TimeBlock(id, start, end, label);
+        for (TimeBlock child : children) {
+            copy.children.add(child.snapshot());
+        }
+        return copy;
+    }
+
+    // Id for blocks saved before ids existed. Derived from the contents, so every device assigns the same one.
+    public static String legacyId(LocalTime start, LocalTime end, String label) {
+        return UUID.nameUUIDFromBytes((start + "|" + end + "|" + label).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    @Override
+    public String toString() {
+        return start + " - " + end + " (" + label + ")";
+    }
+}
@@ -0,0 +1,125 @@
+package utils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+// Simulates many overlays uploading session batches to a TeamAggregator, and reports the throughput.
+// Each client is a virtual thread that retries with a short backoff when the aggregator pushes back.
+//
+// Usage: loadgen [url] [clients] [batches per client] [events per batch]
+public class AggregatorLoadGenerator {
+    private static final String[] LABELS = {"Leetcode & DSA", "Real-World Project", "Classwork & Study", "Family & Workout",
+            "Portfolio & Open Source", "Networking & Job Apps", "Wind Down & Sleep"};
+
+    public static void main(String[] args) throws Exception {
+        String url = (args.length > 0) ? args[0] : "http://localhost:" + TeamAggregator.DEFAULT_PORT;
+        int clients = (args.length > 1) ? Integer.parseInt(args[1]) : 50;
+        int batches = (args.length > 2) ? Integer.parseInt(args[2]) : 200;
+        int eventsPerBatch = (args.length > 3) ? Integer.parseInt(args[3]) : 100;
+
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI sessions = URI.create(url + "/sessions");
+        LongAdder sent = new LongAdder();
+        LongAdder retries = new LongAdder();
+        LongAdder failures = new LongAdder();
+
+        long start = System.nanoTime();
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                String user = "user-" + c;
+                clientThreads.execute(() -> {
+                    // Bodies are built up front, so the measurement is dominated by the aggregator
+                    List<String> bodies = new ArrayList<>(batches);
+                    long timestamp = System.currentTimeMillis();
+                    for (int b = 0; b < batches; b++) {
+                        bodies.add(sessionBatch(user, timestamp, eventsPerBatch));
+                        timestamp += eventsPerBatch * 60_000L;
+                    }
+                    for (String body : bodies) {
+                        if (post(http, sessions, body, retries)) {
+                            sent.increment();
+                        } else {
+                            failures.increment();
+                        }
+                    }
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long events = sent.sum() * eventsPerBatch;
+        System.out.printf("%d clients sent %d batches (%d events) in %.2f s: %.0f batches/s, %.0f events/s, %d retries, %d failed%n",
+                clients, sent.sum(), events, seconds, sent.sum() / seconds, events / seconds, retries.sum(), failures.sum());
+
+        HttpResponse<String> stats = http.send(HttpRequest.newBuilder(URI.create(url + "/stats")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        JSONObject totals = new JSONObject(stats.body());
+        System.out.println("Aggregator totals: " + totals.getLong("events") + " events, "
+                + totals.getLong("batches") + " batches, " + totals.getLong("rejected") + " pushed back");
+    }
+
+    private static String sessionBatch(String user, long firstTimestamp, int count) {
+        JSONArray events = new JSONArray();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String label = LABELS[random.nextInt(LABELS.length)];
+        for (int i = 0; i < count; i++) {
+            JSONObject event = new JSONObject();
+            event.put("t", firstTimestamp + i * 60_000L);
+            if (random.nextInt(60) == 0) {
+                label = LABELS[random.nextInt(LABELS.length)];
+                event.put("type", SessionLog.START);
+            } else {
+                event.put("type", SessionLog.TICK);
+            }
+            event.put("label", label);
+            events.put(event);
+        }
+        JSONObject batch = new JSONObject();
+        batch.put("user", user);
+        batch.put("events", events);
+        return batch.toString();
+    }
+
+    // Sends one batch, backing off while the aggregator answers 503. False if it was refused outright.
+    static boolean post(HttpClient http, URI uri, String body, LongAdder retries) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        long backoffMillis = 5;
+        for (int attempt = 0; attempt < 20; attempt++) {
+            try {
+                int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status != 503) {
+                    return status / 100 == 2;
+                }
+            } catch (IOException e) {
+                // Connection refused or reset under load, treat like a 503
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            retries.increment();
+            try {
+                Thread.sleep(backoffMillis + ThreadLocalRandom.current().nextLong(backoffMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            backoffMillis = Math.min(backoffMillis * 2, 1000);
+        }
+        return false;
+    }
+}
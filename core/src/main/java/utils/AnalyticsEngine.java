@@ -0,0 +1,218 @@
+package utils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import model.TimeBlock;
+
+// Aggregates recorded history over a date range. Actual minutes come from the rollups when available;
+// otherwise archived months and live segments are scanned in parallel as fork-join tasks and the
+// partial results merged per label.
+public class AnalyticsEngine {
+    private static final Metrics.Histogram REPORT_TIME = Metrics.histogram("analytics.report");
+
+    private final SessionLog log;
+    private final RecurrenceEngine recurrence;
+    private final RollupStore rollups;
+
+    public AnalyticsEngine(SessionLog log, RecurrenceEngine recurrence, RollupStore rollups) {
+        this.log = log;
+        this.recurrence = recurrence;
+        this.rollups = rollups;
+    }
+
+    // Totals for one label over the report range
+    public static final class LabelStats {
+        public final String label;
+        public long actualMinutes;
+        public long plannedMinutes;
+        public int longestStreak;
+        public int currentStreak;
+        private final BitSet activeDays = new BitSet();
+
+        LabelStats(String label) {
+            this.label = label;
+        }
+
+        // Share of the planned minutes that were actually tracked, capped at 1
+        public double adherence() {
+            return (plannedMinutes == 0) ? 0 : Math.min(1.0, actualMinutes / (double) plannedMinutes);
+        }
+    }
+
+    public static final class Report {
+        public final LocalDate from;
+        public final LocalDate to;
+        public final Map<String, LabelStats> byLabel;
+        public final long totalActualMinutes;
+        public final long totalPlannedMinutes;
+
+        Report(LocalDate from, LocalDate to, Map<String, LabelStats> byLabel) {
+            this.from = from;
+            this.to = to;
+            this.byLabel = byLabel;
+            long actual = 0;
+            long planned = 0;
+            for (LabelStats stats : byLabel.values()) {
+                actual += stats.actualMinutes;
+                planned += stats.plannedMinutes;
+            }
+            this.totalActualMinutes = actual;
+            this.totalPlannedMinutes = planned;
+        }
+
+        // Planned minutes that were actually tracked, across all labels
+        public double adherence() {
+            if (totalPlannedMinutes == 0) {
+                return 0;
+            }
+            long met = 0;
+            for (LabelStats stats : byLabel.values()) {
+                met += Math.min(stats.actualMinutes, stats.plannedMinutes);
+            }
+            return met / (double) totalPlannedMinutes;
+        }
+    }
+
+    // Builds a report for the inclusive date range [from, to]
+    public Report report(LocalDate from, LocalDate to) {
+        if (rollups == null) {
+            return reportFromRaw(from, to);
+        }
+
+        long reportStart = System.nanoTime();
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        Map<String, LabelStats> byLabel = new HashMap<>();
+        rollups.actualByDay(from, to).forEach((label, minutesByDay) -> {
+            LabelStats stats = byLabel.computeIfAbsent(label, LabelStats::new);
+            for (int day = 0; day < minutesByDay.length; day++) {
+                if (minutesByDay[day] > 0) {
+                    stats.actualMinutes += minutesByDay[day];
+                    stats.activeDays.set(day);
+                }
+            }
+        });
+        addPlannedMinutes(byLabel, from, days);
+        computeStreaks(byLabel, days);
+
+        REPORT_TIME.recordSince(reportStart);
+        return new Report(from, to, byLabel);
+    }
+
+    // Same report computed by scanning the raw session log
+    public Report reportFromRaw(LocalDate from, LocalDate to) {
+        long reportStart = System.nanoTime();
+        ZoneId zone = ZoneId.systemDefault();
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+
+        // Start of every day in the range plus the end of the last one, for timestamp -> day lookups
+        long[] dayStarts = new long[days + 1];
+        for (int i = 0; i <= days; i++) {
+            dayStarts[i] = from.plusDays(i).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+
+        // Archived months and live segments alike; each one becomes a leaf task
+        List<SessionLog.Source> sources = new ArrayList<>();
+        for (SessionLog.Source source : log.sources()) {
+            if (source.overlaps(dayStarts[0], dayStarts[days] - 1)) {
+                sources.add(source);
+            }
+        }
+
+        Map<String, LabelStats> byLabel = ForkJoinPool.commonPool().invoke(new ScanTask(sources, dayStarts));
+        addPlannedMinutes(byLabel, from, days);
+        computeStreaks(byLabel, days);
+
+        REPORT_TIME.recordSince(reportStart);
+        return new Report(from, to, byLabel);
+    }
+
+    private void addPlannedMinutes(Map<String, LabelStats> byLabel, LocalDate from, int days) {
+        if (recurrence == null) {
+            return;
+        }
+        for (int i = 0; i < days; i++) {
+            for (TimeBlock block : recurrence.planSnapshot(from.plusDays(i))) {
+                byLabel.computeIfAbsent(block.label, LabelStats::new).plannedMinutes += plannedMinutes(block);
+            }
+        }
+    }
+
+    static long plannedMinutes(TimeBlock block) {
+        long minutes = ChronoUnit.MINUTES.between(block.start, block.end);
+        if (minutes < 0) {
+            minutes += ChronoUnit.MINUTES.between(LocalTime.MIN, LocalTime.MAX) + 1; // Spans midnight
+        }
+        return minutes;
+    }
+
+    private static void computeStreaks(Map<String, LabelStats> byLabel, int days) {
+        for (LabelStats stats : byLabel.values()) {
+            int run = 0;
+            for (int day = 0; day < days; day++) {
+                run = stats.activeDays.get(day) ? run + 1 : 0;
+                stats.longestStreak = Math.max(stats.longestStreak, run);
+            }
+            stats.currentStreak = run;
+        }
+    }
+
+    // Splits the source list in halves until one source is left, then scans it
+    private static final class ScanTask extends RecursiveTask<Map<String, LabelStats>> {
+        private final List<SessionLog.Source> sources;
+        private final long[] dayStarts;
+
+        ScanTask(List<SessionLog.Source> sources, long[] dayStarts) {
+            this.sources = sources;
+            this.dayStarts = dayStarts;
+        }
+
+        @Override
+        protected Map<String, LabelStats> compute() {
+            if (sources.size() <= 1) {
+                return sources.isEmpty() ? new HashMap<>() : scan(sources.get(0));
+            }
+
+            int middle = sources.size() / 2;
+            ScanTask left = new ScanTask(sources.subList(0, middle), dayStarts);
+            ScanTask right = new ScanTask(sources.subList(middle, sources.size()), dayStarts);
+            left.fork();
+            Map<String, LabelStats> merged = right.compute();
+            for (LabelStats stats : left.join().values()) {
+                LabelStats into = merged.computeIfAbsent(stats.label, LabelStats::new);
+                into.actualMinutes += stats.actualMinutes;
+                into.activeDays.or(stats.activeDays);
+            }
+            return merged;
+        }
+
+        private Map<String, LabelStats> scan(SessionLog.Source source) {
+            Map<String, LabelStats> partial = new HashMap<>();
+            RecentTicks recentTicks = new RecentTicks();
+            int lastDay = dayStarts.length - 1;
+            source.scan(dayStarts[0], dayStarts[lastDay] - 1, (timestamp, type, label) -> {
+                if (type == SessionLog.IDLE_START) {
+                    recentTicks.takeBackSince(timestamp, (tickTimestamp, tickLabel) -> partial.get(tickLabel).actualMinutes--);
+                    return;
+                }
+                if (type != SessionLog.TICK || label.isEmpty()) {
+                    return;
+                }
+                recentTicks.add(timestamp, label);
+                int day = Arrays.binarySearch(dayStarts, timestamp);
+                if (day < 0) {
+                    day = -day - 2; // Index of the day that started before this timestamp
+                }
+                LabelStats stats = partial.computeIfAbsent(label, LabelStats::new);
+                stats.actualMinutes++;
+                stats.activeDays.set(day);
+            });
+            return partial;
+        }
+    }
+}
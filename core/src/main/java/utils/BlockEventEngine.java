@@ -0,0 +1,184 @@
+package utils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.TimeBlock;
+
+// Fires block start/end events at the exact instant they happen, instead of on the next minute tick
+public class BlockEventEngine {
+
+    public enum TransitionType { START, END }
+
+    public static final class TransitionEvent {
+        public final TimeBlock block;
+        public final TransitionType type;
+        public final LocalDateTime at;
+
+        TransitionEvent(TimeBlock block, TransitionType type, LocalDateTime at) {
+            this.block = block;
+            this.type = type;
+            this.at = at;
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + block.label + " at " + at;
+        }
+    }
+
+    public interface TransitionListener {
+        void onTransition(TransitionEvent event);
+    }
+
+    // One queued start or end. Entries are never removed from the queue on edit; instead the block's
+    // generation is bumped and stale entries are dropped when they come due.
+    private static final class Transition implements Delayed {
+        final TimeBlock block;
+        final TransitionType type;
+        final LocalTime time;
+        final long generation;
+        final long dueMillis;
+
+        Transition(TimeBlock block, TransitionType type, LocalTime time, long generation, long dueMillis) {
+            this.block = block;
+            this.type = type;
+            this.time = time;
+            this.generation = generation;
+            this.dueMillis = dueMillis;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueMillis, ((Transition) other).dueMillis);
+        }
+    }
+
+    private static final Metrics.Histogram FIRE_LATENESS = Metrics.histogram("blockEvents.lateness");
+
+    private final DelayQueue<Transition> queue = new DelayQueue<>();
+    private final Map<TimeBlock, Long> generations = new ConcurrentHashMap<>();
+    private final AtomicLong nextGeneration = new AtomicLong();
+    private final List<TransitionListener> listeners = new CopyOnWriteArrayList<>();
+    private Thread schedulerThread;
+
+    public BlockEventEngine(List<TimeBlock> schedule) {
+        reset(schedule);
+    }
+
+    public void addListener(TransitionListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TransitionListener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized void start() {
+        if (schedulerThread != null) {
+            return;
+        }
+        schedulerThread = new Thread(this::runLoop, "block-events");
+        schedulerThread.setDaemon(true);
+        schedulerThread.start();
+    }
+
+    public synchronized void stop() {
+        if (schedulerThread != null) {
+            schedulerThread.interrupt();
+            schedulerThread = null;
+        }
+    }
+
+    // Replaces everything, only used when the whole schedule is swapped (e.g. reloaded from disk)
+    public void reset(List<TimeBlock> schedule) {
+        generations.clear();
+        queue.clear();
+        for (TimeBlock block : schedule) {
+            blockAdded(block);
+        }
+    }
+
+    public void blockAdded(TimeBlock block) {
+        long generation = nextGeneration.incrementAndGet();
+        generations.put(block, generation);
+        enqueue(block, TransitionType.START, block.start, generation);
+        enqueue(block, TransitionType.END, block.end, generation);
+    }
+
+    // Called after a block's start, end or label was edited in place
+    public void blockChanged(TimeBlock block) {
+        blockAdded(block);
+    }
+
+    public void blockRemoved(TimeBlock block) {
+        generations.remove(block);
+    }
+
+    private void enqueue(TimeBlock block, TransitionType type, LocalTime time, long generation) {
+        enqueue(block, type, time, generation, System.currentTimeMillis());
+    }
+
+    private void enqueue(TimeBlock block, TransitionType type, LocalTime time, long generation, long afterMillis) {
+        queue.put(new Transition(block, type, time, generation, nextOccurrence(time, afterMillis)));
+    }
+
+    // First wall-clock instant strictly after afterMillis at which the given time of day occurs
+    private static long nextOccurrence(LocalTime time, long afterMillis) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDateTime after = LocalDateTime.ofInstant(Instant.ofEpochMilli(afterMillis), zone);
+        LocalDateTime next = after.toLocalDate().atTime(time.truncatedTo(ChronoUnit.MILLIS));
+        if (!next.isAfter(after)) {
+            next = next.plusDays(1);
+        }
+        return next.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private void runLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Transition due;
+            try {
+                due = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            Long current = generations.get(due.block);
+            if (current == null || current != due.generation) {
+                continue; // Block was edited or deleted after this entry was queued
+            }
+
+            FIRE_LATENESS.record(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - due.dueMillis));
+
+            // Blocks repeat every day, so queue tomorrow's occurrence right away
+            enqueue(due.block, due.type, due.time, due.generation, due.dueMillis);
+
+            LocalDateTime at = LocalDateTime.ofInstant(Instant.ofEpochMilli(due.dueMillis), ZoneId.systemDefault());
+            TransitionEvent event = new TransitionEvent(due.block, due.type, at);
+            for (TransitionListener listener : listeners) {
+                try {
+                    listener.onTransition(event);
+                } catch (RuntimeException e) {
+                    // One broken listener shouldn't stop the others from hearing about transitions
+                    Log.warn("Transition listener failed on " + event, e);
+                }
+            }
+        }
+    }
+}
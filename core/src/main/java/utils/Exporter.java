@@ -0,0 +1,208 @@
+package utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+
+import model.TimeBlock;
+
+// Exports the schedule and the recorded history to CSV or iCalendar. Everything is streamed
+// through a buffered writer row by row, so memory use doesn't grow with the size of the history.
+public class Exporter {
+    private static final DateTimeFormatter ICS_LOCAL = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter ICS_UTC = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    // Minute ticks further apart than this start a new session in the history export
+    private static final long SESSION_GAP_MILLIS = 2 * 60_000;
+
+    public enum Format { CSV, ICS }
+
+    // Called as work completes. Returning false cancels the export.
+    public interface ProgressListener {
+        boolean progress(long done, long total);
+    }
+
+    public static Format formatFor(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".ics") ? Format.ICS : Format.CSV;
+    }
+
+    public static void exportSchedule(List<TimeBlock> schedule, Path file, ProgressListener listener) throws IOException {
+        Format format = formatFor(file);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (format == Format.CSV) {
+                out.write("start,end,label\r\n");
+            } else {
+                beginCalendar(out);
+            }
+
+            LocalDate today = LocalDate.now();
+            String stamp = ICS_UTC.format(Instant.now());
+            for (int i = 0; i < schedule.size(); i++) {
+                TimeBlock block = schedule.get(i);
+                if (format == Format.CSV) {
+                    writeCsvRow(out, block.start.toString(), block.end.toString(), block.label);
+                } else {
+                    LocalDateTime start = today.atTime(block.start);
+                    LocalDateTime end = today.atTime(block.end);
+                    if (end.isBefore(start)) {
+                        end = end.plusDays(1);
+                    }
+                    out.write("BEGIN:VEVENT\r\n");
+                    writeIcsLine(out, "UID:" + UUID.randomUUID() + "@time-tracker");
+                    writeIcsLine(out, "DTSTAMP:" + stamp);
+                    writeIcsLine(out, "DTSTART:" + ICS_LOCAL.format(start));
+                    writeIcsLine(out, "DTEND:" + ICS_LOCAL.format(end));
+                    writeIcsLine(out, "RRULE:FREQ=DAILY");
+                    writeIcsLine(out, "SUMMARY:" + escapeIcs(block.label));
+                    out.write("END:VEVENT\r\n");
+                }
+                checkProgress(listener, i + 1, schedule.size());
+            }
+
+            if (format == Format.ICS) {
+                out.write("END:VCALENDAR\r\n");
+            }
+        }
+    }
+
+    // Exports recorded sessions: runs of consecutive minute ticks with the same label
+    public static void exportHistory(SessionLog log, Path file, ProgressListener listener) throws IOException {
+        Format format = formatFor(file);
+        List<SessionLog.Source> sources = log.sources();
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (format == Format.CSV) {
+                out.write("date,start,end,label,minutes\r\n");
+            } else {
+                beginCalendar(out);
+            }
+
+            SessionWriter sessions = new SessionWriter(out, format);
+            // Minutes before a backdated idle marker weren't spent on the block, as in reports
+            RecentTicks.Trimmer trimmer = new RecentTicks.Trimmer(0, Long.MAX_VALUE, sessions);
+            for (int i = 0; i < sources.size(); i++) {
+                sources.get(i).scan(0, Long.MAX_VALUE, trimmer);
+                checkProgress(listener, i + 1, sources.size());
+            }
+            trimmer.finish();
+            sessions.flushSession();
+
+            if (format == Format.ICS) {
+                out.write("END:VCALENDAR\r\n");
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Turns the tick stream into sessions, holding only the session currently being extended
+    private static final class SessionWriter implements SessionLog.RecordVisitor {
+        private final Writer out;
+        private final Format format;
+        private final ZoneId zone = ZoneId.systemDefault();
+        private final String stamp = ICS_UTC.format(Instant.now());
+        private String label;
+        private long start;
+        private long lastTick;
+        private long minutes;
+
+        SessionWriter(Writer out, Format format) {
+            this.out = out;
+            this.format = format;
+        }
+
+        @Override
+        public void visit(long timestamp, byte type, String tickLabel) {
+            if (type != SessionLog.TICK || tickLabel.isEmpty()) {
+                return;
+            }
+            if (label != null && label.equals(tickLabel) && timestamp - lastTick <= SESSION_GAP_MILLIS) {
+                lastTick = timestamp;
+                minutes++;
+                return;
+            }
+            flushSession();
+            label = tickLabel;
+            start = timestamp - 60_000; // A tick closes the minute before it
+            lastTick = timestamp;
+            minutes = 1;
+        }
+
+        void flushSession() {
+            if (label == null) {
+                return;
+            }
+            try {
+                if (format == Format.CSV) {
+                    LocalDateTime from = LocalDateTime.ofInstant(Instant.ofEpochMilli(start), zone);
+                    LocalDateTime to = LocalDateTime.ofInstant(Instant.ofEpochMilli(lastTick), zone);
+                    writeCsvRow(out, from.toLocalDate().toString(), from.toLocalTime().withNano(0).toString(),
+                            to.toLocalTime().withNano(0).toString(), label, String.valueOf(minutes));
+                } else {
+                    out.write("BEGIN:VEVENT\r\n");
+                    writeIcsLine(out, "UID:" + start + "-" + Integer.toHexString(label.hashCode()) + "@time-tracker");
+                    writeIcsLine(out, "DTSTAMP:" + stamp);
+                    writeIcsLine(out, "DTSTART:" + ICS_UTC.format(Instant.ofEpochMilli(start)));
+                    writeIcsLine(out, "DTEND:" + ICS_UTC.format(Instant.ofEpochMilli(lastTick)));
+                    writeIcsLine(out, "SUMMARY:" + escapeIcs(label));
+                    out.write("END:VEVENT\r\n");
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            label = null;
+        }
+    }
+
+    private static void checkProgress(ProgressListener listener, long done, long total) {
+        if (listener != null && !listener.progress(done, total)) {
+            throw new CancellationException("Export cancelled");
+        }
+    }
+
+    private static void beginCalendar(Writer out) throws IOException {
+        out.write("BEGIN:VCALENDAR\r\n");
+        out.write("VERSION:2.0\r\n");
+        out.write("PRODID:-//time-tracker-app//Export//EN\r\n");
+    }
+
+    private static void writeCsvRow(Writer out, String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            String field = fields[i];
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(field.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(field);
+            }
+        }
+        out.write("\r\n");
+    }
+
+    // Folds lines longer than 75 characters, as RFC 5545 requires
+    private static void writeIcsLine(Writer out, String line) throws IOException {
+        int position = 0;
+        while (line.length() - position > 75) {
+            out.write(line, position, 75);
+            out.write("\r\n ");
+            position += 75;
+        }
+        out.write(line, position, line.length() - position);
+        out.write("\r\n");
+    }
+
+    private static String escapeIcs(String text) {
+        return text.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,472 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import model.TimeBlock;
+
+// Streams an .ics file and turns the events of one date into time blocks. Only events that touch
+// the chosen date are kept in memory; overlaps are then resolved with a sweep line in O(n log n).
+public class IcsImporter {
+    private static final DateTimeFormatter LOCAL_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final int MINUTES_PER_DAY = 1440;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    public enum OverlapPolicy {
+        // Cut overlaps into pieces, each labelled with every event active during it
+        SPLIT,
+        // The highest-priority event wins wherever events overlap
+        PRIORITY,
+        // Overlapping events are joined into one block
+        MERGE
+    }
+
+    // An event clipped to the chosen date, in minutes since midnight. Occurrences of a recurring event carry the
+    // keys a RECURRENCE-ID override would replace them by.
+    private record Interval(int start, int end, String label, int priority, int order, List<String> instanceKeys) {
+    }
+
+    public static List<TimeBlock> importDay(Path file, LocalDate date, OverlapPolicy policy) throws IOException {
+        List<Interval> intervals = new ArrayList<>();
+        // UID and original start of every instance moved or cancelled by an override
+        Set<String> overridden = new HashSet<>();
+        ZoneId zone = ZoneId.systemDefault();
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+            Map<String, String> event = null;
+            String line;
+            StringBuilder logical = new StringBuilder();
+            while ((line = in.readLine()) != null || !logical.isEmpty()) {
+                // Unfold continuation lines (RFC 5545 3.1) before looking at the property
+                if (line != null && !line.isEmpty() && (line.charAt(0) == ' ' || line.charAt(0) == '\t')) {
+                    logical.append(line, 1, line.length());
+                    continue;
+                }
+                String property = logical.toString();
+                logical.setLength(0);
+                if (line != null) {
+                    logical.append(line);
+                }
+                if (property.isEmpty()) {
+                    continue;
+                }
+
+                if (property.equals("BEGIN:VEVENT")) {
+                    event = new HashMap<>();
+                } else if (property.equals("END:VEVENT")) {
+                    if (event != null) {
+                        addOccurrences(event, date, zone, intervals, overridden);
+                    }
+                    event = null;
+                } else if (event != null) {
+                    int colon = property.indexOf(':');
+                    if (colon > 0) {
+                        String name = property.substring(0, colon);
+                        int semicolon = name.indexOf(';');
+                        String key = (semicolon >= 0) ? name.substring(0, semicolon) : name;
+                        // Keep parameters like TZID with the value, they're needed to read times
+                        String value = (semicolon >= 0 ? name.substring(semicolon + 1) + ":" : ":") + property.substring(colon + 1);
+                        // EXDATE may be repeated, the others are kept once
+                        event.merge(key, value, (kept, added) -> key.equals("EXDATE") ? kept + "\n" + added : added);
+                    }
+                }
+            }
+        }
+
+        // Overrides can come before or after the event they change, so moved instances are only dropped now
+        intervals.removeIf(interval -> interval.instanceKeys().stream().anyMatch(overridden::contains));
+        return resolveOverlaps(intervals, policy);
+    }
+
+    // Adds the event's occurrences that touch the chosen date
+    private static void addOccurrences(Map<String, String> event, LocalDate date, ZoneId zone, List<Interval> intervals,
+                                       Set<String> overridden) {
+        String uid = event.containsKey("UID") ? valueOf(event.get("UID")) : null;
+        if (uid != null && event.containsKey("RECURRENCE-ID")) {
+            // This event replaces one instance of a recurring event, which must not show up as well
+            overridden.addAll(instanceKeys(uid, event.get("RECURRENCE-ID"), zone));
+        }
+        if (event.containsKey("STATUS") && valueOf(event.get("STATUS")).equals("CANCELLED")) {
+            return;
+        }
+
+        String startValue = event.get("DTSTART");
+        if (startValue == null || startValue.contains("VALUE=DATE:")) {
+            return; // All-day events don't map onto time blocks
+        }
+        ZonedDateTime start = parseDateTime(startValue, zone);
+        ZonedDateTime end;
+        if (event.containsKey("DTEND")) {
+            end = parseDateTime(event.get("DTEND"), zone);
+        } else if (event.containsKey("DURATION")) {
+            end = start.plus(Duration.parse(valueOf(event.get("DURATION"))));
+        } else {
+            return;
+        }
+        if (start == null || end == null || !end.isAfter(start)) {
+            return;
+        }
+        Duration length = Duration.between(start, end);
+
+        boolean recurring = event.containsKey("RRULE") && !event.containsKey("RECURRENCE-ID");
+        List<ZonedDateTime> occurrences = recurring
+                ? occurrencesOn(valueOf(event.get("RRULE")), start, length, date, zone)
+                : List.of(start);
+        if (occurrences.isEmpty()) {
+            return;
+        }
+        Set<String> excluded = new HashSet<>();
+        if (event.containsKey("EXDATE")) {
+            for (String exdate : event.get("EXDATE").split("\n")) {
+                excluded.addAll(instanceKeys("", exdate, zone));
+            }
+        }
+
+        String summary = event.containsKey("SUMMARY") ? unescape(valueOf(event.get("SUMMARY"))) : "Untitled";
+        int priority = 9;
+        if (event.containsKey("PRIORITY")) {
+            try {
+                int parsed = Integer.parseInt(valueOf(event.get("PRIORITY")).trim());
+                priority = (parsed == 0) ? 9 : parsed; // 0 means undefined, 1 is the highest
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        // Clip to the chosen day in the local time zone
+        ZonedDateTime dayStart = date.atStartOfDay(zone);
+        ZonedDateTime dayEnd = date.plusDays(1).atStartOfDay(zone);
+        for (ZonedDateTime occurrence : occurrences) {
+            ZonedDateTime occurrenceEnd = occurrence.plus(length);
+            if (!occurrence.isBefore(dayEnd) || !occurrenceEnd.isAfter(dayStart)) {
+                continue;
+            }
+            if (excluded.contains(instantKey("", occurrence)) || excluded.contains(dateKey("", occurrence))) {
+                continue;
+            }
+            int from = (int) Math.max(0, ChronoUnit.MINUTES.between(dayStart, occurrence));
+            int to = (int) Math.min(MINUTES_PER_DAY, ChronoUnit.MINUTES.between(dayStart, occurrenceEnd));
+            if (to <= from) {
+                continue;
+            }
+            List<String> keys = (uid != null && recurring)
+                    ? List.of(instantKey(uid, occurrence), dateKey(uid, occurrence))
+                    : List.of();
+            intervals.add(new Interval(from, to, summary, priority, intervals.size(), keys));
+        }
+    }
+
+    // Keys for the instances named by an EXDATE or RECURRENCE-ID value, which may list several times or dates
+    private static List<String> instanceKeys(String uid, String stored, ZoneId zone) {
+        int colon = stored.lastIndexOf(':');
+        String parameters = stored.substring(0, colon + 1);
+        List<String> keys = new ArrayList<>();
+        for (String value : stored.substring(colon + 1).split(",")) {
+            value = value.trim();
+            if (value.length() == 8) {
+                try {
+                    keys.add(uid + "@" + LocalDate.parse(value, DATE));
+                } catch (DateTimeException ignored) {
+                }
+                continue;
+            }
+            ZonedDateTime instance = parseDateTime(parameters + value, zone);
+            if (instance != null) {
+                keys.add(instantKey(uid, instance));
+            }
+        }
+        return keys;
+    }
+
+    private static String instantKey(String uid, ZonedDateTime instance) {
+        return uid + "@" + instance.toInstant();
+    }
+
+    private static String dateKey(String uid, ZonedDateTime instance) {
+        return uid + "@" + instance.toLocalDate();
+    }
+
+    // Every occurrence starting on the chosen date or early enough before it to still run into it. Supports
+    // FREQ=DAILY/WEEKLY with INTERVAL, BYDAY, UNTIL and COUNT, and plain MONTHLY/YEARLY repeating on the first
+    // date. Other rules only keep DTSTART, so the event still shows up on its own date.
+    private static List<ZonedDateTime> occurrencesOn(String rule, ZonedDateTime first, Duration length, LocalDate date, ZoneId zone) {
+        Map<String, String> parts = new HashMap<>();
+        for (String part : rule.split(";")) {
+            int equals = part.indexOf('=');
+            if (equals > 0) {
+                parts.put(part.substring(0, equals), part.substring(equals + 1));
+            }
+        }
+        String frequency = parts.getOrDefault("FREQ", "");
+        int interval = Integer.parseInt(parts.getOrDefault("INTERVAL", "1"));
+        boolean byOther = parts.keySet().stream().anyMatch(part -> part.startsWith("BY") && !part.equals("BYDAY"));
+        boolean supported = switch (frequency) {
+            case "DAILY" -> !byOther && (!parts.containsKey("BYDAY") || interval == 1);
+            case "WEEKLY" -> !byOther;
+            case "MONTHLY", "YEARLY" -> !byOther && !parts.containsKey("BYDAY");
+            default -> false;
+        };
+        if (!supported) {
+            return List.of(first);
+        }
+        boolean weekdays = parts.containsKey("BYDAY");
+
+        LocalDate firstDate = first.withZoneSameInstant(zone).toLocalDate();
+        // Occurrences that started this many days earlier can still reach into the date
+        long reachDays = length.toDays() + 1;
+        if (date.isBefore(firstDate.minusDays(reachDays))) {
+            return List.of();
+        }
+        // UNTIL is the last allowed start, inclusive; a bare date allows the whole day
+        ZonedDateTime untilExclusive = null;
+        if (parts.containsKey("UNTIL")) {
+            String until = parts.get("UNTIL");
+            untilExclusive = (until.length() == 8)
+                    ? LocalDate.parse(until, DATE).plusDays(1).atStartOfDay(zone)
+                    : parseDateTime(":" + until, zone);
+            if (untilExclusive == null) {
+                return List.of(first);
+            }
+            if (until.length() != 8) {
+                untilExclusive = untilExclusive.plusSeconds(1);
+            }
+        }
+        long count = Long.parseLong(parts.getOrDefault("COUNT", String.valueOf(Long.MAX_VALUE)));
+        Set<DayOfWeek> byDay = EnumSet.noneOf(DayOfWeek.class);
+        if (parts.containsKey("BYDAY")) {
+            for (String day : parts.get("BYDAY").split(",")) {
+                for (DayOfWeek candidate : DayOfWeek.values()) {
+                    if (day.endsWith(candidate.name().substring(0, 2))) {
+                        byDay.add(candidate);
+                    }
+                }
+            }
+        }
+        if (byDay.isEmpty()) {
+            byDay.add(firstDate.getDayOfWeek());
+        }
+
+        List<ZonedDateTime> occurrences = new ArrayList<>();
+        LocalTime time = first.withZoneSameInstant(zone).toLocalTime();
+        for (LocalDate candidate = date.minusDays(reachDays); !candidate.isAfter(date); candidate = candidate.plusDays(1)) {
+            if (candidate.isBefore(firstDate)) {
+                continue;
+            }
+            long days = ChronoUnit.DAYS.between(firstDate, candidate);
+            // Zero-based number of the occurrence on the candidate day, or -1 if there is none
+            long index = switch (frequency) {
+                // Every day on the listed weekdays is the same as weekly on them
+                case "DAILY" -> weekdays ? weeklyIndex(firstDate, candidate, 1, byDay)
+                        : (days % interval == 0) ? days / interval : -1;
+                case "WEEKLY" -> weeklyIndex(firstDate, candidate, interval, byDay);
+                case "MONTHLY" -> monthlyIndex(firstDate, candidate, interval);
+                default -> monthlyIndex(firstDate, candidate, 12 * interval);
+            };
+            if (index < 0 || index >= count) {
+                continue;
+            }
+            ZonedDateTime occurrence = candidate.atTime(time).atZone(zone);
+            if (!occurrence.plus(length).isAfter(date.atStartOfDay(zone))) {
+                continue;
+            }
+            if (untilExclusive != null && !occurrence.isBefore(untilExclusive)) {
+                continue;
+            }
+            occurrences.add(occurrence);
+        }
+        return occurrences;
+    }
+
+    // Repeats on the first date's day of the month every step months. Months without that day are skipped and,
+    // as RFC 5545 says, not counted.
+    private static long monthlyIndex(LocalDate firstDate, LocalDate candidate, int stepMonths) {
+        int dayOfMonth = firstDate.getDayOfMonth();
+        if (candidate.getDayOfMonth() != dayOfMonth) {
+            return -1;
+        }
+        LocalDate firstMonth = firstDate.withDayOfMonth(1);
+        long months = ChronoUnit.MONTHS.between(firstMonth, candidate.withDayOfMonth(1));
+        if (months % stepMonths != 0) {
+            return -1;
+        }
+        if (dayOfMonth <= 28) {
+            return months / stepMonths;
+        }
+        long index = 0;
+        for (long month = 0; month < months; month += stepMonths) {
+            if (firstMonth.plusMonths(month).lengthOfMonth() >= dayOfMonth) {
+                index++;
+            }
+        }
+        return index;
+    }
+
+    // Counts the matching weekdays from the first date up to the candidate, without walking the weeks in between
+    private static long weeklyIndex(LocalDate firstDate, LocalDate candidate, int interval, Set<DayOfWeek> byDay) {
+        long weeks = ChronoUnit.WEEKS.between(firstDate.with(DayOfWeek.MONDAY), candidate.with(DayOfWeek.MONDAY));
+        if (weeks % interval != 0 || !byDay.contains(candidate.getDayOfWeek())) {
+            return -1;
+        }
+        int firstDay = firstDate.getDayOfWeek().getValue();
+        int candidateDay = candidate.getDayOfWeek().getValue();
+        if (weeks == 0) {
+            return daysBetween(byDay, firstDay, candidateDay) - 1;
+        }
+        return daysBetween(byDay, firstDay, 7) + (weeks / interval - 1) * byDay.size()
+                + daysBetween(byDay, 1, candidateDay) - 1;
+    }
+
+    // Days of the set in [from, to], as ISO day numbers
+    private static int daysBetween(Set<DayOfWeek> days, int from, int to) {
+        int matching = 0;
+        for (DayOfWeek day : days) {
+            if (day.getValue() >= from && day.getValue() <= to) {
+                matching++;
+            }
+        }
+        return matching;
+    }
+
+    // Parses values like ":20260101T090000Z" or "TZID=Europe/Berlin:20260101T090000"
+    private static ZonedDateTime parseDateTime(String raw, ZoneId localZone) {
+        try {
+            int colon = raw.lastIndexOf(':');
+            String value = raw.substring(colon + 1).trim();
+            ZoneId zone = localZone;
+            int tzid = raw.indexOf("TZID=");
+            if (tzid >= 0 && tzid < colon) {
+                int tzEnd = raw.indexOf(';', tzid);
+                String zoneId = raw.substring(tzid + 5, (tzEnd > 0 && tzEnd < colon) ? tzEnd : colon).replace("\"", "");
+                try {
+                    zone = ZoneId.of(zoneId);
+                } catch (DateTimeException ignored) {
+                    // Windows-style or custom zone names fall back to local time
+                }
+            }
+            if (value.endsWith("Z")) {
+                return LocalDateTime.parse(value.substring(0, value.length() - 1), LOCAL_DATE_TIME)
+                        .atZone(ZoneOffset.UTC).withZoneSameInstant(localZone);
+            }
+            return LocalDateTime.parse(value, LOCAL_DATE_TIME).atZone(zone).withZoneSameInstant(localZone);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String valueOf(String stored) {
+        return stored.substring(stored.lastIndexOf(':') + 1);
+    }
+
+    private static String unescape(String text) {
+        return text.replace("\\n", " ").replace("\\N", " ").replace("\\,", ",").replace("\\;", ";").replace("\\\\", "\\");
+    }
+
+    // Sweeps the sorted start/end points once, keeping the currently active events ordered by the policy
+    static List<TimeBlock> resolveOverlaps(List<Interval> intervals, OverlapPolicy policy) {
+        List<TimeBlock> blocks = new ArrayList<>();
+        if (intervals.isEmpty()) {
+            return blocks;
+        }
+        if (policy == OverlapPolicy.MERGE) {
+            return mergeOverlaps(intervals);
+        }
+
+        // Endpoints: start encoded as (minute, +1), end as (minute, -1); ends sort first at the same minute
+        int[][] points = new int[intervals.size() * 2][];
+        for (int i = 0; i < intervals.size(); i++) {
+            points[2 * i] = new int[]{intervals.get(i).start(), 1, i};
+            points[2 * i + 1] = new int[]{intervals.get(i).end(), -1, i};
+        }
+        Arrays.sort(points, (a, b) -> (a[0] != b[0]) ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]));
+
+        Comparator<Interval> order = (policy == OverlapPolicy.PRIORITY)
+                ? Comparator.comparingInt(Interval::priority).thenComparingInt(Interval::start).thenComparingInt(Interval::order)
+                : Comparator.comparingInt(Interval::start).thenComparingInt(Interval::order);
+        TreeSet<Interval> active = new TreeSet<>(order);
+
+        int segmentStart = -1;
+        String segmentLabel = null;
+        // Label of the active set, built once per boundary and carried over as the next boundary's "before"
+        String label = null;
+        for (int p = 0; p < points.length; ) {
+            int minute = points[p][0];
+            String labelBefore = label;
+
+            // Apply every endpoint at this minute before deciding the next segment's label
+            while (p < points.length && points[p][0] == minute) {
+                Interval interval = intervals.get(points[p][2]);
+                if (points[p][1] > 0) {
+                    active.add(interval);
+                } else {
+                    active.remove(interval);
+                }
+                p++;
+            }
+
+            label = labelOf(active, policy);
+            if (!Objects.equals(labelBefore, label)) {
+                if (segmentLabel != null && minute > segmentStart) {
+                    blocks.add(toBlock(segmentStart, minute, segmentLabel));
+                }
+                segmentStart = minute;
+                segmentLabel = label;
+            }
+        }
+        return blocks;
+    }
+
+    private static String labelOf(TreeSet<Interval> active, OverlapPolicy policy) {
+        if (active.isEmpty()) {
+            return null;
+        }
+        if (policy == OverlapPolicy.PRIORITY || active.size() == 1) {
+            return active.first().label();
+        }
+        StringJoiner joined = new StringJoiner(" / ");
+        for (Interval interval : active) {
+            joined.add(interval.label());
+        }
+        return joined.toString();
+    }
+
+    private static List<TimeBlock> mergeOverlaps(List<Interval> intervals) {
+        List<Interval> sorted = new ArrayList<>(intervals);
+        sorted.sort(Comparator.comparingInt(Interval::start));
+
+        List<TimeBlock> blocks = new ArrayList<>();
+        int start = sorted.get(0).start();
+        int end = sorted.get(0).end();
+        Set<String> labels = new LinkedHashSet<>();
+        labels.add(sorted.get(0).label());
+        for (int i = 1; i < sorted.size(); i++) {
+            Interval next = sorted.get(i);
+            if (next.start() < end) {
+                end = Math.max(end, next.end());
+                labels.add(next.label());
+            } else {
+                blocks.add(toBlock(start, end, String.join(" + ", labels)));
+                start = next.start();
+                end = next.end();
+                labels.clear();
+                labels.add(next.label());
+            }
+        }
+        blocks.add(toBlock(start, end, String.join(" + ", labels)));
+        return blocks;
+    }
+
+    private static TimeBlock toBlock(int startMinute, int endMinute, String label) {
+        LocalTime start = LocalTime.of(startMinute / 60, startMinute % 60);
+        // The schedule has no 24:00, so a block running to midnight ends at 23:59 like the defaults do
+        LocalTime end = (endMinute >= MINUTES_PER_DAY) ? LocalTime.of(23, 59) : LocalTime.of(endMinute / 60, endMinute % 60);
+        return new TimeBlock(start, end, label);
+    }
+}
@@ -0,0 +1,39 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Properties;
+
+import model.TimeBlock;
+
+// Events from a local .ics file, e.g. one a calendar app exports or syncs to disk.
+//   ics.file=calendar.ics
+//   ics.overlap=SPLIT (or PRIORITY, MERGE)
+public class IcsScheduleSource implements ScheduleSource {
+    private Path file;
+    private IcsImporter.OverlapPolicy policy;
+
+    @Override
+    public String name() {
+        return "ics";
+    }
+
+    @Override
+    public boolean configure(Properties settings) {
+        String configured = settings.getProperty("ics.file");
+        if (configured == null || configured.isBlank()) {
+            return false;
+        }
+        file = Paths.get(configured.trim());
+        policy = IcsImporter.OverlapPolicy.valueOf(settings.getProperty("ics.overlap", "SPLIT").trim().toUpperCase());
+        return true;
+    }
+
+    @Override
+    public List<TimeBlock> load(LocalDate date) throws IOException {
+        return IcsImporter.importDay(file, date, policy);
+    }
+}
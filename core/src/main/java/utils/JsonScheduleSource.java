@@ -0,0 +1,37 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Properties;
+
+import model.TimeBlock;
+
+// Blocks from a file in the timeblocks.json format, e.g. a schedule shared by a team. Same blocks every day.
+//   json.file=shared/timeblocks.json
+public class JsonScheduleSource implements ScheduleSource {
+    private Path file;
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public boolean configure(Properties settings) {
+        String configured = settings.getProperty("json.file");
+        if (configured == null || configured.isBlank()) {
+            return false;
+        }
+        file = Paths.get(configured.trim());
+        return true;
+    }
+
+    @Override
+    public List<TimeBlock> load(LocalDate date) throws IOException {
+        return TimeUtils.parseSchedule(Files.readString(file));
+    }
+}
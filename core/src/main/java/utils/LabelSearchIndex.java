@@ -0,0 +1,109 @@
+package utils;
+
+import java.util.*;
+
+import model.TimeBlock;
+
+// Trigram index over block labels, so substring search doesn't have to scan every block
+public class LabelSearchIndex {
+    private static final int GRAM = 3;
+
+    private final Map<String, Set<TimeBlock>> postings = new HashMap<>();
+    // The label each block was indexed under, needed to unindex it after an in-place edit
+    private final Map<TimeBlock, String> indexedLabels = new IdentityHashMap<>();
+
+    public LabelSearchIndex(Collection<TimeBlock> blocks) {
+        for (TimeBlock block : blocks) {
+            add(block);
+        }
+    }
+
+    public void add(TimeBlock block) {
+        String label = normalize(block.label);
+        indexedLabels.put(block, label);
+        for (String gram : grams(label)) {
+            postings.computeIfAbsent(gram, key -> Collections.newSetFromMap(new IdentityHashMap<>())).add(block);
+        }
+    }
+
+    public void remove(TimeBlock block) {
+        String label = indexedLabels.remove(block);
+        if (label == null) {
+            return;
+        }
+        for (String gram : grams(label)) {
+            Set<TimeBlock> blocks = postings.get(gram);
+            if (blocks != null) {
+                blocks.remove(block);
+                if (blocks.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    // Re-indexes a block whose label was edited in place
+    public void update(TimeBlock block) {
+        remove(block);
+        add(block);
+    }
+
+    public int size() {
+        return indexedLabels.size();
+    }
+
+    // All blocks whose label contains the query, ignoring case
+    public List<TimeBlock> search(String query) {
+        String needle = normalize(query);
+        if (needle.isEmpty()) {
+            return new ArrayList<>(indexedLabels.keySet());
+        }
+        if (needle.length() < GRAM) {
+            // Too short to use the index, scan the already lower-cased labels instead
+            List<TimeBlock> matches = new ArrayList<>();
+            indexedLabels.forEach((block, label) -> {
+                if (label.contains(needle)) {
+                    matches.add(block);
+                }
+            });
+            return matches;
+        }
+
+        // Start from the rarest trigram of the query, then verify the full substring on those candidates
+        Set<TimeBlock> smallest = null;
+        for (int i = 0; i + GRAM <= needle.length(); i++) {
+            Set<TimeBlock> blocks = postings.get(needle.substring(i, i + GRAM));
+            if (blocks == null) {
+                return new ArrayList<>();
+            }
+            if (smallest == null || blocks.size() < smallest.size()) {
+                smallest = blocks;
+            }
+        }
+
+        List<TimeBlock> matches = new ArrayList<>();
+        for (TimeBlock block : smallest) {
+            if (indexedLabels.get(block).contains(needle)) {
+                matches.add(block);
+            }
+        }
+        return matches;
+    }
+
+    public static boolean matches(TimeBlock block, String query) {
+        return normalize(block.label).contains(normalize(query));
+    }
+
+    private static String normalize(String text) {
+        return (text == null) ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Every distinct substring of length GRAM
+    private static Set<String> grams(String label) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= label.length(); i++) {
+            grams.add(label.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
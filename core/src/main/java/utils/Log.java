@@ -0,0 +1,294 @@
+package utils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Application log that never makes the caller wait on I/O, e.g. when an error is reported on the EDT.
+//
+// Events go into a preallocated ring of slots. A caller claims a slot with one compare-and-set, fills it in and
+// publishes it; when the ring is full the event is dropped and counted rather than blocking. A daemon thread
+// drains the ring, echoes to the console and appends to logs/timetracker.log, rotated by size. The last
+// RECENT_EVENTS lines stay in memory and are written to a crash file when a thread dies from an uncaught
+// exception, since under autostart there is no console to read them from.
+//
+// Set -Dtimetracker.log.level=DEBUG for more detail.
+public class Log {
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final int CAPACITY = 4096; // Power of two
+    private static final int RECENT_EVENTS = 256;
+    private static final String DIRECTORY = "logs";
+    private static final String FILE_NAME = "timetracker.log";
+    private static final long MAX_FILE_BYTES = 1024 * 1024;
+    private static final int MAX_OLD_FILES = 3;
+    private static final long IDLE_PARK_NANOS = 200_000_000L;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final DateTimeFormatter CRASH_FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final class Slot {
+        // Sequence number of the event in the slot, written last so the drainer sees a complete event
+        volatile long published = -1;
+        long timestamp;
+        Level level;
+        String thread;
+        String message;
+        Throwable error;
+        boolean crash;
+    }
+
+    private static final Slot[] ring = new Slot[CAPACITY];
+    private static final AtomicLong claimed = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    // Only advanced by the thread holding the drain lock
+    private static volatile long consumed;
+    private static final Level threshold = parseLevel(System.getProperty("timetracker.log.level"));
+
+    // Drain thread state, guarded by the class lock
+    private static final String[] recent = new String[RECENT_EVENTS];
+    private static long recentCount;
+    private static Writer file;
+    private static long fileBytes;
+    private static boolean fileFailed;
+    private static long reportedDropped;
+
+    private static final Thread drainer;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            ring[i] = new Slot();
+        }
+        drainer = new Thread(Log::drainLoop, "log-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+        // Whatever is still queued at exit gets written, e.g. a usage message right before returning from main
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::drain, "log-flush"));
+    }
+
+    private Log() {
+    }
+
+    public static void debug(String message) {
+        log(Level.DEBUG, message, null, false);
+    }
+
+    public static void info(String message) {
+        log(Level.INFO, message, null, false);
+    }
+
+    public static void warn(String message) {
+        log(Level.WARN, message, null, false);
+    }
+
+    public static void warn(String message, Throwable error) {
+        log(Level.WARN, message, error, false);
+    }
+
+    public static void error(String message, Throwable error) {
+        log(Level.ERROR, message, error, false);
+    }
+
+    // Logs threads dying from uncaught exceptions and leaves a crash file with the events before it
+    public static void installCrashHandler() {
+        Thread.setDefaultUncaughtExceptionHandler((thread, error) ->
+                log(Level.ERROR, "Uncaught exception in " + thread.getName(), error, true));
+    }
+
+    // Events lost so far because the ring was full
+    public static long droppedEvents() {
+        return dropped.get();
+    }
+
+    // The last logged lines, oldest first
+    public static synchronized List<String> recent() {
+        List<String> lines = new ArrayList<>();
+        for (long i = Math.max(0, recentCount - RECENT_EVENTS); i < recentCount; i++) {
+            lines.add(recent[(int) (i % RECENT_EVENTS)]);
+        }
+        return lines;
+    }
+
+    private static void log(Level level, String message, Throwable error, boolean crash) {
+        if (level.ordinal() < threshold.ordinal()) {
+            return;
+        }
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= CAPACITY) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = ring[(int) (sequence & (CAPACITY - 1))];
+        slot.timestamp = System.currentTimeMillis();
+        slot.level = level;
+        slot.thread = Thread.currentThread().getName();
+        slot.message = (message != null) ? message : "null";
+        slot.error = error;
+        slot.crash = crash;
+        slot.published = sequence;
+
+        // Errors are written right away, and a filling ring doesn't wait for the drainer's next pass
+        if (level == Level.ERROR || sequence - consumed == CAPACITY / 2) {
+            LockSupport.unpark(drainer);
+        }
+    }
+
+    private static void drainLoop() {
+        while (true) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    // Writes out every published event, in order. Returns how many there were.
+    private static synchronized int drain() {
+        int count = 0;
+        while (true) {
+            long sequence = consumed;
+            Slot slot = ring[(int) (sequence & (CAPACITY - 1))];
+            if (slot.published != sequence) {
+                break;
+            }
+            long timestamp = slot.timestamp;
+            Level level = slot.level;
+            String thread = slot.thread;
+            String message = slot.message;
+            Throwable error = slot.error;
+            boolean crash = slot.crash;
+            slot.message = null;
+            slot.error = null;
+            consumed = sequence + 1; // Frees the slot for producers
+
+            write(format(timestamp, level, thread, message, error));
+            if (crash) {
+                writeCrashFile(timestamp);
+            }
+            count++;
+        }
+
+        long lost = dropped.get() - reportedDropped;
+        if (lost > 0) {
+            reportedDropped += lost;
+            write(format(System.currentTimeMillis(), Level.WARN, "log-drainer", "Dropped " + lost + " log event(s), the log was full.", null));
+        }
+        if (count > 0 && file != null) {
+            try {
+                file.flush();
+            } catch (IOException e) {
+                closeFile();
+            }
+        }
+        return count;
+    }
+
+    private static String format(long timestamp, Level level, String thread, String message, Throwable error) {
+        StringBuilder line = new StringBuilder(64 + message.length());
+        line.append(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()).format(TIMESTAMP))
+                .append(' ').append(level).append(" ".repeat(5 - level.name().length()))
+                .append(" [").append(thread).append("] ").append(message);
+        if (error != null) {
+            StringWriter trace = new StringWriter();
+            error.printStackTrace(new PrintWriter(trace));
+            line.append(System.lineSeparator()).append(trace.toString().stripTrailing());
+        }
+        return line.toString();
+    }
+
+    private static void write(String line) {
+        recent[(int) (recentCount++ % RECENT_EVENTS)] = line;
+        // The console is the one place this class may write to directly; this runs off the caller's thread
+        System.out.println(line);
+
+        if (file == null && !openFile()) {
+            return;
+        }
+        try {
+            file.write(line);
+            file.write(System.lineSeparator());
+            fileBytes += line.length() + System.lineSeparator().length();
+            if (fileBytes > MAX_FILE_BYTES) {
+                closeFile();
+                rotate();
+            }
+        } catch (IOException e) {
+            closeFile();
+        }
+    }
+
+    private static boolean openFile() {
+        if (fileFailed) {
+            return false;
+        }
+        File target = new File(DIRECTORY, FILE_NAME);
+        target.getParentFile().mkdirs();
+        try {
+            file = new BufferedWriter(new FileWriter(target, true));
+            fileBytes = target.length();
+            return true;
+        } catch (IOException e) {
+            // Keep going on the console only, instead of retrying on every event
+            fileFailed = true;
+            System.out.println("Could not open " + target + ", logging to the console only.");
+            return false;
+        }
+    }
+
+    private static void closeFile() {
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // Nothing left to report it to
+            }
+            file = null;
+        }
+    }
+
+    // timetracker.log becomes timetracker.log.1, .1 becomes .2 and so on, the oldest is deleted
+    private static void rotate() {
+        File oldest = new File(DIRECTORY, FILE_NAME + "." + MAX_OLD_FILES);
+        oldest.delete();
+        for (int i = MAX_OLD_FILES - 1; i >= 1; i--) {
+            new File(DIRECTORY, FILE_NAME + "." + i).renameTo(new File(DIRECTORY, FILE_NAME + "." + (i + 1)));
+        }
+        new File(DIRECTORY, FILE_NAME).renameTo(new File(DIRECTORY, FILE_NAME + ".1"));
+    }
+
+    private static void writeCrashFile(long timestamp) {
+        String name = "crash-" + LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault())
+                .format(CRASH_FILE_TIMESTAMP) + ".log";
+        File target = new File(DIRECTORY, name);
+        target.getParentFile().mkdirs();
+        try (PrintWriter out = new PrintWriter(new FileWriter(target, true))) {
+            for (String line : recent()) {
+                out.println(line);
+            }
+        } catch (IOException e) {
+            System.out.println("Could not write " + target);
+        }
+    }
+
+    private static Level parseLevel(String name) {
+        try {
+            return (name == null) ? Level.INFO : Level.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+}
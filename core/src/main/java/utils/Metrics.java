@@ -0,0 +1,172 @@
+package utils;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+
+// Process-wide metrics registry. Recording is lock-free so it can stay enabled all the time.
+public class Metrics {
+    private static final String OBJECT_NAME = "timetracker:type=Metrics";
+    private static final String DUMP_FILE_PROPERTY = "timetracker.metrics.file";
+
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> gauges = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private static boolean registered;
+
+    // Duration histogram with power-of-two nanosecond buckets
+    public static final class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        public void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(nanos | 1));
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        // Records the time elapsed since a System.nanoTime() taken earlier
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        // Upper bound of the bucket holding the given percentile, in nanoseconds
+        public long percentile(double p) {
+            long total = count();
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(total * p);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= target) {
+                    long upperBound = (i >= 62) ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+                    return Math.min(upperBound, maxNanos.get());
+                }
+            }
+            return maxNanos.get();
+        }
+
+        void reset() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+        }
+
+        @Override
+        public String toString() {
+            long total = count();
+            long mean = (total == 0) ? 0 : totalNanos.sum() / total;
+            return String.format("count=%d mean=%dus p50<=%dus p99<=%dus max=%dus",
+                    total, mean / 1000, percentile(0.50) / 1000, percentile(0.99) / 1000, maxNanos.get() / 1000);
+        }
+    }
+
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    public static AtomicLong gauge(String name) {
+        return gauges.computeIfAbsent(name, key -> new AtomicLong());
+    }
+
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    public static Map<String, Long> counterValues() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, adder) -> values.put(name, adder.sum()));
+        gauges.forEach((name, gauge) -> values.put(name, gauge.get()));
+        return values;
+    }
+
+    public static Map<String, String> histogramValues() {
+        Map<String, String> values = new TreeMap<>();
+        histograms.forEach((name, histogram) -> values.put(name, histogram.toString()));
+        return values;
+    }
+
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        counterValues().forEach((name, value) -> out.append(name).append(" = ").append(value).append('\n'));
+        histogramValues().forEach((name, value) -> out.append(name).append(": ").append(value).append('\n'));
+        return out.toString();
+    }
+
+    public static void reset() {
+        counters.values().forEach(LongAdder::reset);
+        histograms.values().forEach(Histogram::reset);
+    }
+
+    // Exposes the registry over JMX, and dumps it to a file on exit if -Dtimetracker.metrics.file is set
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        registered = true;
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(), new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            Log.warn("Could not register metrics MBean.", e);
+        }
+
+        String dumpFile = System.getProperty(DUMP_FILE_PROPERTY);
+        if (dumpFile != null && !dumpFile.isBlank()) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try (FileWriter writer = new FileWriter(dumpFile, false)) {
+                    writer.write(dump());
+                } catch (IOException e) {
+                    Log.warn("Could not write metrics to " + dumpFile, e);
+                }
+            }, "metrics-dump"));
+        }
+    }
+
+    private static final class MetricsBean implements MetricsMXBean {
+        @Override
+        public Map<String, Long> getCounters() {
+            return counterValues();
+        }
+
+        @Override
+        public Map<String, String> getHistograms() {
+            return histogramValues();
+        }
+
+        @Override
+        public String dump() {
+            return Metrics.dump();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
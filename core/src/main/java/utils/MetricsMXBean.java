@@ -0,0 +1,14 @@
+package utils;
+
+import java.util.Map;
+
+// JMX view of Metrics, visible in JConsole/VisualVM under timetracker:type=Metrics
+public interface MetricsMXBean {
+    Map<String, Long> getCounters();
+
+    Map<String, String> getHistograms();
+
+    String dump();
+
+    void reset();
+}
@@ -0,0 +1,127 @@
+package utils;
+
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import model.TimeBlock;
+
+// Interval index over a block and its nested sub-blocks, with times as minutes after the start of the day.
+//
+// Every level keeps its nodes sorted by start, plus a running maximum of their ends, so the nodes covering a
+// minute are found by binary search instead of a scan. Each node also counts its descendants, so a painter that
+// draws a too-narrow sub-block as part of an aggregate can say how many blocks it stands for without walking them.
+public class NestedBlockIndex {
+    private static final int TOTAL_MINUTES = 1440;
+
+    public static final class Node {
+        public final TimeBlock block;
+        // Minutes after the start of the day; end is exclusive and may pass midnight of the bar, up to 2 days
+        public final int start;
+        public final int end;
+        // Direct children in start order, clipped to this node's range
+        public final List<Node> children;
+        public final int descendants;
+        // Running maximum of children's ends, for the stabbing query
+        private final int[] maxEndUpTo;
+
+        // What the node was built from, to notice in-place edits
+        private final LocalTime builtStart;
+        private final LocalTime builtEnd;
+        private final int builtChildren;
+
+        private Node(TimeBlock block, int start, int end, List<Node> children) {
+            this.block = block;
+            this.start = start;
+            this.end = end;
+            this.children = children;
+            this.builtStart = block.start;
+            this.builtEnd = block.end;
+            this.builtChildren = block.children.size();
+
+            int count = 0;
+            maxEndUpTo = new int[children.size()];
+            for (int i = 0; i < children.size(); i++) {
+                Node child = children.get(i);
+                count += 1 + child.descendants;
+                maxEndUpTo[i] = Math.max(child.end, (i > 0) ? maxEndUpTo[i - 1] : Integer.MIN_VALUE);
+            }
+            this.descendants = count;
+        }
+
+        // False once the block's times or direct children changed since this node was built
+        public boolean matches(TimeBlock block) {
+            return block == this.block && block.start.equals(builtStart) && block.end.equals(builtEnd)
+                    && block.children.size() == builtChildren;
+        }
+
+        // The deepest node covering the minute, only descending into children at least minChildMinutes long, since
+        // shorter ones are drawn as part of an aggregate. This node if no such child covers the minute.
+        public Node deepestAt(int minute, int minChildMinutes) {
+            if (children.isEmpty()) {
+                return this;
+            }
+            // Last child starting at or before the minute, then back while earlier children can still reach it
+            int low = 0;
+            int high = children.size() - 1;
+            int last = -1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (children.get(middle).start <= minute) {
+                    last = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            for (int i = last; i >= 0 && maxEndUpTo[i] > minute; i--) {
+                Node child = children.get(i);
+                if (child.start <= minute && minute < child.end && child.end - child.start >= minChildMinutes) {
+                    return child.deepestAt(minute, minChildMinutes);
+                }
+            }
+            return this;
+        }
+    }
+
+    private NestedBlockIndex() {
+    }
+
+    // Index for one top-level block and everything nested in it
+    public static Node build(TimeBlock root, LocalTime startOfDay) {
+        int start = minutesAfter(startOfDay, root.start);
+        int end = minutesAfter(startOfDay, root.end);
+        if (end <= start) {
+            end += TOTAL_MINUTES; // Spans the end of the bar
+        }
+        return build(root, start, end, startOfDay);
+    }
+
+    private static Node build(TimeBlock block, int start, int end, LocalTime startOfDay) {
+        List<Node> children = new ArrayList<>(block.children.size());
+        for (TimeBlock child : block.children) {
+            int childStart = minutesAfter(startOfDay, child.start);
+            if (childStart < start) {
+                childStart += TOTAL_MINUTES; // After midnight inside a parent that spans it
+            }
+            int childEnd = minutesAfter(startOfDay, child.end);
+            while (childEnd <= childStart) {
+                childEnd += TOTAL_MINUTES;
+            }
+            childStart = Math.max(childStart, start);
+            childEnd = Math.min(childEnd, end);
+            if (childEnd > childStart) {
+                children.add(build(child, childStart, childEnd, startOfDay));
+            }
+        }
+        children.sort(Comparator.comparingInt(node -> node.start));
+        return new Node(block, start, end, children);
+    }
+
+    private static int minutesAfter(LocalTime startOfDay, LocalTime time) {
+        long minutes = ChronoUnit.MINUTES.between(startOfDay, time);
+        return (int) ((minutes < 0) ? minutes + TOTAL_MINUTES : minutes);
+    }
+}
@@ -0,0 +1,98 @@
+package utils;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+// The last few TICK records seen by a reader of the session log.
+//
+// An idle stretch is only noticed a few minutes in, and its IDLE_START is backdated to the last input, so the
+// ticks written in between are already in the log. Readers keep the recent ones here and take back those at or
+// after the idle start once the marker arrives.
+final class RecentTicks {
+    // Well past the longest idle threshold the settings offer
+    private static final int CAPACITY = 256;
+    // How far back an IDLE_START can reach, with one tick per minute
+    static final long REACH_MILLIS = CAPACITY * 60_000L;
+
+    interface TickVisitor {
+        void visit(long timestamp, String label);
+    }
+
+    private final long[] timestamps = new long[CAPACITY];
+    private final String[] labels = new String[CAPACITY];
+    private int next;
+    private int size;
+
+    void add(long timestamp, String label) {
+        timestamps[next] = timestamp;
+        labels[next] = label;
+        next = (next + 1) % CAPACITY;
+        size = Math.min(size + 1, CAPACITY);
+    }
+
+    // Forgets and visits, newest first, every remembered tick at or after the timestamp
+    void takeBackSince(long timestamp, TickVisitor visitor) {
+        while (size > 0) {
+            int newest = (next + CAPACITY - 1) % CAPACITY;
+            if (timestamps[newest] < timestamp) {
+                return;
+            }
+            visitor.visit(timestamps[newest], labels[newest]);
+            labels[newest] = null;
+            next = newest;
+            size--;
+        }
+    }
+
+    // Passes records on in log order, minus the ticks a later IDLE_START takes back, for readers that stream
+    // instead of keeping totals. Records are held until no marker can reach them any more, so finish() passes on
+    // the rest after the scan. Only records in [fromMillis, toMillis] are passed on; scanning from REACH_MILLIS
+    // earlier makes sure the markers for the first ticks are seen.
+    static final class Trimmer implements SessionLog.RecordVisitor {
+        private record Held(long timestamp, byte type, String label) {
+        }
+
+        private final ArrayDeque<Held> held = new ArrayDeque<>();
+        private final long fromMillis;
+        private final long toMillis;
+        private final SessionLog.RecordVisitor downstream;
+
+        Trimmer(long fromMillis, long toMillis, SessionLog.RecordVisitor downstream) {
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void visit(long timestamp, byte type, String label) {
+            if (type == SessionLog.IDLE_START) {
+                Iterator<Held> newestFirst = held.descendingIterator();
+                while (newestFirst.hasNext()) {
+                    Held record = newestFirst.next();
+                    if (record.timestamp < timestamp) {
+                        break;
+                    }
+                    if (record.type == SessionLog.TICK) {
+                        newestFirst.remove();
+                    }
+                }
+            }
+            held.addLast(new Held(timestamp, type, label));
+            while (held.peekFirst().timestamp < timestamp - REACH_MILLIS) {
+                pass(held.pollFirst());
+            }
+        }
+
+        void finish() {
+            while (!held.isEmpty()) {
+                pass(held.pollFirst());
+            }
+        }
+
+        private void pass(Held record) {
+            if (record.timestamp >= fromMillis && record.timestamp <= toMillis) {
+                downstream.visit(record.timestamp, record.type, record.label);
+            }
+        }
+    }
+}
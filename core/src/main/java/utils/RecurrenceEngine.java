@@ -0,0 +1,296 @@
+package utils;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import model.TimeBlock;
+
+// Resolves the concrete plan for a date from weekly rules, per-date overrides and the everyday schedule.
+// Days are only expanded when asked for, and kept in a small LRU cache.
+public class RecurrenceEngine {
+    private static final String RECURRENCE_FILE = "recurrence.json";
+    private static final int MAX_CACHED_DAYS = 62;
+
+    // A named template that applies on the given weekdays, optionally only within a date range
+    public static final class Rule {
+        public final String name;
+        public final Set<DayOfWeek> days;
+        public final LocalDate validFrom;
+        public final LocalDate validUntil;
+        public final List<TimeBlock> blocks;
+
+        public Rule(String name, Set<DayOfWeek> days, LocalDate validFrom, LocalDate validUntil, List<TimeBlock> blocks) {
+            this.name = name;
+            this.days = days.isEmpty() ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(days);
+            this.validFrom = validFrom;
+            this.validUntil = validUntil;
+            this.blocks = List.copyOf(copyOf(blocks));
+        }
+
+        boolean appliesTo(LocalDate date) {
+            return days.contains(date.getDayOfWeek())
+                    && (validFrom == null || !date.isBefore(validFrom))
+                    && (validUntil == null || !date.isAfter(validUntil));
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + days;
+        }
+    }
+
+    private final List<Rule> rules = new ArrayList<>();
+    private final Map<LocalDate, List<TimeBlock>> overrides = new HashMap<>();
+    private List<TimeBlock> everyday;
+    // Copy of the everyday schedule for other threads, republished after every edit on the EDT
+    private List<TimeBlock> publishedEveryday;
+
+    private final LinkedHashMap<LocalDate, List<TimeBlock>> expandedDays =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<LocalDate, List<TimeBlock>> eldest) {
+                    return size() > MAX_CACHED_DAYS;
+                }
+            };
+
+    public RecurrenceEngine(List<TimeBlock> everyday) {
+        this.everyday = everyday;
+        this.publishedEveryday = snapshotOf(everyday);
+    }
+
+    // The plan for a date. Days without a rule or override get the live everyday schedule itself, so only
+    // call this on the EDT; other threads use planSnapshot().
+    public synchronized List<TimeBlock> planFor(LocalDate date) {
+        List<TimeBlock> plan = expandedDays.get(date);
+        if (plan == null) {
+            plan = expand(date);
+            expandedDays.put(date, plan);
+        }
+        return plan;
+    }
+
+    // The plan for a date in blocks nothing else edits, for reports and renderers running off the EDT
+    public synchronized List<TimeBlock> planSnapshot(LocalDate date) {
+        List<TimeBlock> plan = planFor(date);
+        return (plan == everyday) ? publishedEveryday : plan;
+    }
+
+    // True if the date falls back to the everyday schedule, so editing that schedule changes the date's plan
+    public synchronized boolean usesEverydaySchedule(LocalDate date) {
+        return planFor(date) == everyday;
+    }
+
+    private List<TimeBlock> expand(LocalDate date) {
+        List<TimeBlock> override = overrides.get(date);
+        if (override != null) {
+            return copyOf(override);
+        }
+        for (Rule rule : rules) {
+            if (rule.appliesTo(date)) {
+                return copyOf(rule.blocks);
+            }
+        }
+        return everyday;
+    }
+
+    // Each day gets its own block instances, so edits to one day's plan never leak into another
+    private static List<TimeBlock> copyOf(List<TimeBlock> blocks) {
+        List<TimeBlock> copy = new ArrayList<>(blocks.size());
+        for (TimeBlock block : blocks) {
+            copy.add(block.copy());
+        }
+        return copy;
+    }
+
+    // Same blocks and ids, but instances of their own
+    private static List<TimeBlock> snapshotOf(List<TimeBlock> blocks) {
+        List<TimeBlock> snapshot = new ArrayList<>(blocks.size());
+        for (TimeBlock block : blocks) {
+            snapshot.add(block.snapshot());
+        }
+        return Collections.unmodifiableList(snapshot);
+    }
+
+    public synchronized List<Rule> getRules() {
+        return List.copyOf(rules);
+    }
+
+    public synchronized void setEverydaySchedule(List<TimeBlock> everyday) {
+        List<TimeBlock> previous = this.everyday;
+        this.everyday = everyday;
+        publishedEveryday = snapshotOf(everyday);
+        expandedDays.values().removeIf(plan -> plan == previous);
+    }
+
+    // Call on the EDT after editing the everyday schedule in place
+    public synchronized void everydayEdited() {
+        publishedEveryday = snapshotOf(everyday);
+    }
+
+    // Adds a rule, or replaces the rule with the same name
+    public synchronized void putRule(Rule rule) {
+        Set<DayOfWeek> affected = EnumSet.noneOf(DayOfWeek.class);
+        affected.addAll(rule.days);
+        int existing = indexOfRule(rule.name);
+        if (existing >= 0) {
+            affected.addAll(rules.get(existing).days);
+            rules.set(existing, rule);
+        } else {
+            rules.add(rule);
+        }
+        invalidateWeekdays(affected);
+        save();
+    }
+
+    public synchronized void removeRule(String name) {
+        int existing = indexOfRule(name);
+        if (existing < 0) {
+            return;
+        }
+        Rule removed = rules.remove(existing);
+        invalidateWeekdays(removed.days);
+        save();
+    }
+
+    public synchronized void setOverride(LocalDate date, List<TimeBlock> blocks) {
+        overrides.put(date, copyOf(blocks));
+        expandedDays.remove(date);
+        save();
+    }
+
+    public synchronized void clearOverride(LocalDate date) {
+        if (overrides.remove(date) != null) {
+            expandedDays.remove(date);
+            save();
+        }
+    }
+
+    private int indexOfRule(String name) {
+        for (int i = 0; i < rules.size(); i++) {
+            if (rules.get(i).name.equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Drops cached days a rule change could affect. Overridden days never depend on rules.
+    private void invalidateWeekdays(Set<DayOfWeek> days) {
+        expandedDays.keySet().removeIf(date -> days.contains(date.getDayOfWeek()) && !overrides.containsKey(date));
+    }
+
+    // Load rules and overrides from file, if there are any
+    public static RecurrenceEngine load(List<TimeBlock> everyday) {
+        RecurrenceEngine engine = new RecurrenceEngine(everyday);
+        File file = new File(RECURRENCE_FILE);
+        if (!file.exists() || file.length() == 0) {
+            return engine;
+        }
+
+        try {
+            JSONObject root = new JSONObject(new String(Files.readAllBytes(Paths.get(RECURRENCE_FILE))).trim());
+
+            JSONArray ruleArray = root.optJSONArray("rules");
+            for (int i = 0; ruleArray != null && i < ruleArray.length(); i++) {
+                JSONObject obj = ruleArray.getJSONObject(i);
+                Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+                JSONArray dayArray = obj.getJSONArray("days");
+                for (int d = 0; d < dayArray.length(); d++) {
+                    days.add(DayOfWeek.valueOf(dayArray.getString(d)));
+                }
+                String from = obj.optString("validFrom", "");
+                String until = obj.optString("validUntil", "");
+                engine.rules.add(new Rule(obj.getString("name"), days,
+                        from.isEmpty() ? null : LocalDate.parse(from),
+                        until.isEmpty() ? null : LocalDate.parse(until),
+                        blocksFromJson(obj.getJSONArray("blocks"))));
+            }
+
+            JSONObject overrideObj = root.optJSONObject("overrides");
+            if (overrideObj != null) {
+                for (String date : overrideObj.keySet()) {
+                    engine.overrides.put(LocalDate.parse(date), blocksFromJson(overrideObj.getJSONArray(date)));
+                }
+            }
+        } catch (Exception e) {
+            Log.warn("Corrupt recurrence file, ignoring weekly templates.", e);
+        }
+        return engine;
+    }
+
+    private void save() {
+        JSONArray ruleArray = new JSONArray();
+        for (Rule rule : rules) {
+            JSONObject obj = new JSONObject();
+            obj.put("name", rule.name);
+            JSONArray dayArray = new JSONArray();
+            for (DayOfWeek day : rule.days) {
+                dayArray.put(day.name());
+            }
+            obj.put("days", dayArray);
+            if (rule.validFrom != null) {
+                obj.put("validFrom", rule.validFrom.toString());
+            }
+            if (rule.validUntil != null) {
+                obj.put("validUntil", rule.validUntil.toString());
+            }
+            obj.put("blocks", blocksToJson(rule.blocks));
+            ruleArray.put(obj);
+        }
+
+        JSONObject overrideObj = new JSONObject();
+        for (Map.Entry<LocalDate, List<TimeBlock>> entry : new TreeMap<>(overrides).entrySet()) {
+            overrideObj.put(entry.getKey().toString(), blocksToJson(entry.getValue()));
+        }
+
+        JSONObject root = new JSONObject();
+        root.put("rules", ruleArray);
+        root.put("overrides", overrideObj);
+
+        try (FileWriter file = new FileWriter(RECURRENCE_FILE, false)) {
+            file.write(root.toString(4));
+            file.flush();
+        } catch (IOException e) {
+            Log.error("Could not save " + RECURRENCE_FILE, e);
+        }
+    }
+
+    private static List<TimeBlock> blocksFromJson(JSONArray array) {
+        List<TimeBlock> blocks = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject obj = array.getJSONObject(i);
+            TimeBlock block = new TimeBlock(LocalTime.parse(obj.getString("start")), LocalTime.parse(obj.getString("end")),
+                    obj.getString("label"));
+            JSONArray children = obj.optJSONArray("children");
+            if (children != null) {
+                block.children.addAll(blocksFromJson(children));
+            }
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
+    private static JSONArray blocksToJson(List<TimeBlock> blocks) {
+        JSONArray array = new JSONArray();
+        for (TimeBlock block : blocks) {
+            JSONObject obj = new JSONObject();
+            obj.put("start", block.start.toString());
+            obj.put("end", block.end.toString());
+            obj.put("label", block.label);
+            if (!block.children.isEmpty()) {
+                obj.put("children", blocksToJson(block.children));
+            }
+            array.put(obj);
+        }
+        return array;
+    }
+}
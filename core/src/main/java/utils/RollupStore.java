@@ -0,0 +1,340 @@
+package utils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.function.Consumer;
+
+import model.TimeBlock;
+
+// Per-day and per-week minutes by label, kept up to date as session events are appended,
+// so reports and the overlay never have to rescan raw history.
+//
+// Sidecar layout: magic, version, last applied timestamp, last applied idle start, label dictionary, then per day:
+// epoch day, entry count, and (label index, actual minutes, planned minutes) per entry.
+public class RollupStore implements SessionLog.RecordVisitor {
+    private static final String FILE_NAME = "rollups.dat";
+    private static final int MAGIC = 0x54545255; // "TTRU"
+    private static final int VERSION = 2;
+
+    private static final int ACTUAL = 0;
+    private static final int PLANNED = 1;
+
+    private final Path file;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final TreeMap<LocalDate, Map<String, long[]>> days = new TreeMap<>();
+    private final Map<LocalDate, Map<String, long[]>> weeks = new HashMap<>();
+    private long lastAppliedTimestamp;
+    // Idle markers are backdated below lastAppliedTimestamp, so the newest one applied is tracked on its own
+    private long lastIdleStart;
+    private boolean dirty;
+    // Ticks an idle marker may still take back
+    private RecentTicks recentTicks = new RecentTicks();
+    // Held while writing the sidecar, so appends only wait for the in-memory snapshot and saves stay in order
+    private final Object saveLock = new Object();
+    // Changes made while a rebuild scans history, replayed onto the rebuilt rollups before they replace these
+    private List<Consumer<RollupStore>> duringRebuild;
+    private final Object rebuildLock = new Object();
+
+    // Day of the previous tick, so consecutive ticks skip the time zone conversion
+    private LocalDate cachedDate;
+    private long cachedDayStart;
+    private long cachedDayEnd;
+
+    private RollupStore(Path file) {
+        this.file = file;
+    }
+
+    // Loads the sidecar next to the session log and catches up on events it hasn't seen yet
+    public static RollupStore open(SessionLog log) {
+        RollupStore store = new RollupStore(log.getDirectory().resolve(FILE_NAME));
+        try {
+            store.read();
+        } catch (IOException e) {
+            Log.info("Rollups missing or unreadable, rebuilding from session log.");
+            store.clear();
+            store.lastAppliedTimestamp = 0;
+            store.lastIdleStart = 0;
+        }
+
+        // Replays from as far back as an idle marker written after the last save could reach, so it still takes
+        // back its ticks. Records applied before the save only refill the recent ticks.
+        long applied = store.lastAppliedTimestamp;
+        long idleApplied = store.lastIdleStart;
+        log.scan(applied - RecentTicks.REACH_MILLIS, Long.MAX_VALUE, (timestamp, type, label) -> {
+            synchronized (store) {
+                if (type == SessionLog.IDLE_START && timestamp <= idleApplied) {
+                    store.recentTicks.takeBackSince(timestamp, (tickTimestamp, tickLabel) -> {
+                    });
+                } else if (type != SessionLog.IDLE_START && timestamp <= applied) {
+                    if (type == SessionLog.TICK && !label.isEmpty()) {
+                        store.recentTicks.add(timestamp, label);
+                    }
+                } else {
+                    store.apply(timestamp, type, label);
+                }
+            }
+        });
+        return store;
+    }
+
+    // Session log append listener
+    @Override
+    public synchronized void visit(long timestamp, byte type, String label) {
+        apply(timestamp, type, label);
+        if (duringRebuild != null) {
+            duringRebuild.add(store -> store.apply(timestamp, type, label));
+        }
+    }
+
+    private synchronized void apply(long timestamp, byte type, String label) {
+        lastAppliedTimestamp = Math.max(lastAppliedTimestamp, timestamp);
+        if (type == SessionLog.IDLE_START) {
+            lastIdleStart = Math.max(lastIdleStart, timestamp);
+            // Minutes between the last input and noticing the absence weren't spent on the block
+            recentTicks.takeBackSince(timestamp, (tickTimestamp, tickLabel) -> {
+                add(dateOf(tickTimestamp), tickLabel, ACTUAL, -1);
+                dirty = true;
+            });
+            return;
+        }
+        if (type != SessionLog.TICK || label.isEmpty()) {
+            return;
+        }
+        add(dateOf(timestamp), label, ACTUAL, 1);
+        recentTicks.add(timestamp, label);
+        dirty = true;
+    }
+
+    private LocalDate dateOf(long timestamp) {
+        if (cachedDate == null || timestamp < cachedDayStart || timestamp >= cachedDayEnd) {
+            cachedDate = Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+            cachedDayStart = cachedDate.atStartOfDay(zone).toInstant().toEpochMilli();
+            cachedDayEnd = cachedDate.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+        return cachedDate;
+    }
+
+    // Records the plan for a date, replacing whatever was recorded for it before
+    public synchronized void setPlanned(LocalDate date, List<TimeBlock> plan) {
+        if (duringRebuild != null) {
+            List<TimeBlock> planned = List.copyOf(plan);
+            duringRebuild.add(store -> store.setPlanned(date, planned));
+        }
+        Map<String, long[]> day = days.computeIfAbsent(date, key -> new HashMap<>());
+        for (Map.Entry<String, long[]> entry : day.entrySet()) {
+            add(weekOf(date), entry.getKey(), PLANNED, -entry.getValue()[PLANNED], weeks);
+            entry.getValue()[PLANNED] = 0;
+        }
+        for (TimeBlock block : plan) {
+            add(date, block.label, PLANNED, AnalyticsEngine.plannedMinutes(block));
+        }
+        dirty = true;
+    }
+
+    private void add(LocalDate date, String label, int column, long delta) {
+        add(date, label, column, delta, days);
+        add(weekOf(date), label, column, delta, weeks);
+    }
+
+    private static void add(LocalDate key, String label, int column, long delta, Map<LocalDate, Map<String, long[]>> target) {
+        target.computeIfAbsent(key, k -> new HashMap<>()).computeIfAbsent(label, k -> new long[2])[column] += delta;
+    }
+
+    private static LocalDate weekOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    public synchronized long actualMinutes(LocalDate date, String label) {
+        long[] values = days.getOrDefault(date, Map.of()).get(label);
+        return (values == null) ? 0 : values[ACTUAL];
+    }
+
+    // Label -> {actual, planned} minutes for one day
+    public synchronized Map<String, long[]> day(LocalDate date) {
+        return copy(days.get(date));
+    }
+
+    // Label -> {actual, planned} minutes for the Monday-based week containing the date
+    public synchronized Map<String, long[]> week(LocalDate date) {
+        return copy(weeks.get(weekOf(date)));
+    }
+
+    // Label -> actual minutes per day index over [from, to], used by reports
+    public synchronized Map<String, long[]> actualByDay(LocalDate from, LocalDate to) {
+        int length = (int) (to.toEpochDay() - from.toEpochDay()) + 1;
+        Map<String, long[]> result = new HashMap<>();
+        for (Map.Entry<LocalDate, Map<String, long[]>> day : days.subMap(from, true, to, true).entrySet()) {
+            int index = (int) (day.getKey().toEpochDay() - from.toEpochDay());
+            for (Map.Entry<String, long[]> entry : day.getValue().entrySet()) {
+                if (entry.getValue()[ACTUAL] > 0) {
+                    result.computeIfAbsent(entry.getKey(), k -> new long[length])[index] = entry.getValue()[ACTUAL];
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, long[]> copy(Map<String, long[]> source) {
+        Map<String, long[]> copy = new HashMap<>();
+        if (source != null) {
+            source.forEach((label, values) -> copy.put(label, values.clone()));
+        }
+        return copy;
+    }
+
+    // Repair path: throws away the rollups and recomputes them from the raw session log. History is scanned into
+    // separate rollups without holding this store's lock, so ticks and the overlay keep using the old ones meanwhile.
+    public void rebuild(SessionLog log, RecurrenceEngine recurrence) {
+        synchronized (rebuildLock) {
+            // Appends notify us while holding the log's lock, so no record lands between taking the snapshot and
+            // starting to collect: older records are in the snapshot, newer ones are replayed at the end
+            List<SessionLog.Source> sources;
+            synchronized (log) {
+                sources = log.sources();
+                synchronized (this) {
+                    duringRebuild = new ArrayList<>();
+                }
+            }
+
+            RollupStore rebuilt = new RollupStore(file);
+            try {
+                for (SessionLog.Source source : sources) {
+                    source.scan(0, Long.MAX_VALUE, rebuilt::apply);
+                }
+                if (recurrence != null) {
+                    for (LocalDate date : new ArrayList<>(rebuilt.days.keySet())) {
+                        rebuilt.setPlanned(date, recurrence.planSnapshot(date));
+                    }
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    duringRebuild = null;
+                }
+                throw e;
+            }
+
+            synchronized (this) {
+                for (Consumer<RollupStore> change : duringRebuild) {
+                    change.accept(rebuilt);
+                }
+                duringRebuild = null;
+                days.clear();
+                days.putAll(rebuilt.days);
+                weeks.clear();
+                weeks.putAll(rebuilt.weeks);
+                recentTicks = rebuilt.recentTicks;
+                lastAppliedTimestamp = rebuilt.lastAppliedTimestamp;
+                lastIdleStart = rebuilt.lastIdleStart;
+                dirty = true;
+            }
+        }
+        save();
+    }
+
+    private void clear() {
+        days.clear();
+        weeks.clear();
+        recentTicks = new RecentTicks();
+        dirty = true;
+    }
+
+    public void saveIfDirty() {
+        save(true);
+    }
+
+    public void save() {
+        save(false);
+    }
+
+    // Writes to a temporary file first, so a crash mid-save leaves the previous sidecar intact
+    private void save(boolean onlyIfDirty) {
+        synchronized (saveLock) {
+            byte[] data;
+            synchronized (this) {
+                if (onlyIfDirty && !dirty) {
+                    return;
+                }
+                data = serialize();
+                dirty = false;
+            }
+
+            Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+            try {
+                Files.write(temp, data);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Log.warn("Could not write rollups to " + file, e);
+                synchronized (this) {
+                    dirty = true;
+                }
+            }
+        }
+    }
+
+    private byte[] serialize() {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (Map<String, long[]> day : days.values()) {
+            for (String label : day.keySet()) {
+                dictionary.putIfAbsent(label, dictionary.size());
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lastAppliedTimestamp);
+            out.writeLong(lastIdleStart);
+            out.writeInt(dictionary.size());
+            for (String label : dictionary.keySet()) {
+                out.writeUTF(label);
+            }
+            out.writeInt(days.size());
+            for (Map.Entry<LocalDate, Map<String, long[]>> day : days.entrySet()) {
+                out.writeInt((int) day.getKey().toEpochDay());
+                out.writeShort(day.getValue().size());
+                for (Map.Entry<String, long[]> entry : day.getValue().entrySet()) {
+                    out.writeShort(dictionary.get(entry.getKey()));
+                    out.writeShort((int) entry.getValue()[ACTUAL]);
+                    out.writeShort((int) entry.getValue()[PLANNED]);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Not thrown by an in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    private void read() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unknown rollup file format");
+            }
+            lastAppliedTimestamp = in.readLong();
+            lastIdleStart = in.readLong();
+            String[] labels = new String[in.readInt()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = in.readUTF();
+            }
+            int dayCount = in.readInt();
+            for (int i = 0; i < dayCount; i++) {
+                LocalDate date = LocalDate.ofEpochDay(in.readInt());
+                int entries = in.readUnsignedShort();
+                for (int e = 0; e < entries; e++) {
+                    String label = labels[in.readUnsignedShort()];
+                    add(date, label, ACTUAL, in.readUnsignedShort());
+                    add(date, label, PLANNED, in.readUnsignedShort());
+                }
+            }
+        }
+        dirty = false;
+    }
+}
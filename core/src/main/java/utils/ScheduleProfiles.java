@@ -0,0 +1,94 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.TimeBlock;
+
+// Named everyday schedules such as "workday" or "travel", one file per profile in profiles/<name>.json.
+// The default profile is the classic timeblocks.json. Profiles are only read when first asked for, and the
+// last few parsed ones stay in memory, so switching back and forth doesn't touch the disk.
+public class ScheduleProfiles {
+    public static final String DEFAULT_PROFILE = "default";
+    private static final String DEFAULT_FILE = "timeblocks.json";
+    private static final String DIRECTORY = "profiles";
+    private static final String SUFFIX = ".json";
+    private static final int MAX_CACHED_PROFILES = 4;
+
+    private static final Metrics.Histogram LOAD_TIME = Metrics.histogram("profiles.load");
+
+    private final LinkedHashMap<String, List<TimeBlock>> parsed =
+            new LinkedHashMap<>(8, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<TimeBlock>> eldest) {
+                    return size() > MAX_CACHED_PROFILES;
+                }
+            };
+
+    // Letters, digits, spaces, dashes and underscores, so the name is always a safe file name
+    public static boolean isValidName(String name) {
+        return name != null && name.matches("[\\w -]{1,40}") && !name.isBlank();
+    }
+
+    public Path fileFor(String name) {
+        return name.equals(DEFAULT_PROFILE) ? Paths.get(DEFAULT_FILE) : Paths.get(DIRECTORY, name + SUFFIX);
+    }
+
+    // The default profile first, then the rest in file name order
+    public List<String> names() {
+        List<String> names = new ArrayList<>();
+        Path directory = Paths.get(DIRECTORY);
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+                for (Path file : files) {
+                    String fileName = file.getFileName().toString();
+                    names.add(fileName.substring(0, fileName.length() - SUFFIX.length()));
+                }
+            } catch (IOException e) {
+                Log.warn("Could not list schedule profiles.", e);
+            }
+        }
+        names.remove(DEFAULT_PROFILE);
+        names.sort(String.CASE_INSENSITIVE_ORDER);
+        names.add(0, DEFAULT_PROFILE);
+        return names;
+    }
+
+    // A copy of the parsed profile if it's in memory, otherwise null
+    public synchronized List<TimeBlock> cached(String name) {
+        List<TimeBlock> blocks = parsed.get(name);
+        return (blocks == null) ? null : snapshotOf(blocks);
+    }
+
+    // Reads and parses the profile's file. Slow on large files, so call it off the EDT.
+    public List<TimeBlock> load(String name) throws IOException {
+        long loadStart = System.nanoTime();
+        List<TimeBlock> blocks = TimeUtils.parseSchedule(Files.readString(fileFor(name)));
+        synchronized (this) {
+            parsed.put(name, snapshotOf(blocks));
+        }
+        LOAD_TIME.recordSince(loadStart);
+        return blocks;
+    }
+
+    // Keeps its own copy of every block, so later edits to the caller's blocks don't leak into the cache
+    public synchronized void remember(String name, List<TimeBlock> blocks) {
+        parsed.put(name, snapshotOf(blocks));
+    }
+
+    // Ids are kept, so a profile read back from the cache still merges with synced edits to the same blocks
+    private static List<TimeBlock> snapshotOf(List<TimeBlock> blocks) {
+        List<TimeBlock> copy = new ArrayList<>(blocks.size());
+        for (TimeBlock block : blocks) {
+            copy.add(block.snapshot());
+        }
+        return List.copyOf(copy);
+    }
+}
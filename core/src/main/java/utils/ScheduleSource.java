@@ -0,0 +1,22 @@
+package utils;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Properties;
+
+import model.TimeBlock;
+
+// A provider of extra blocks shown next to the local schedule, e.g. a calendar file or a script's output.
+// Implementations are found with ServiceLoader (META-INF/services/utils.ScheduleSource) and need a public
+// no-argument constructor. load() runs on a background thread and may be slow.
+public interface ScheduleSource {
+    // Short name, also the prefix of this source's keys in sources.properties
+    String name();
+
+    // Reads this source's keys. Returns false when the source isn't set up, so it stays off.
+    boolean configure(Properties settings);
+
+    // Blocks for one date
+    List<TimeBlock> load(LocalDate date) throws IOException;
+}
@@ -0,0 +1,213 @@
+package utils;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import model.TimeBlock;
+
+// Keeps the blocks of every configured ScheduleSource in a per-date cache and merges them into the local plan.
+//
+// Reads never wait for a source: planFor() returns whatever is cached, even if stale, and queues a background
+// refresh for missing or stale dates (stale-while-revalidate). Each source is also re-read on its own interval.
+// When a refresh changes a date's blocks, the change listener runs on the refresh thread.
+//
+// sources.properties holds each source's keys, plus <name>.refreshSeconds (default 300).
+public class ScheduleSources implements AutoCloseable {
+    private static final String SOURCES_FILE = "sources.properties";
+    private static final long DEFAULT_REFRESH_SECONDS = 300;
+    private static final int MAX_CACHED_DAYS = 14;
+
+    private static final Metrics.Histogram REFRESH_TIME = Metrics.histogram("sources.refresh");
+
+    private record Cached(List<TimeBlock> blocks, long loadedAt) {
+    }
+
+    // One source's cache. The map is guarded by the state itself.
+    private static final class SourceState {
+        final ScheduleSource source;
+        final long intervalMillis;
+        final Set<LocalDate> refreshing = ConcurrentHashMap.newKeySet();
+        final LinkedHashMap<LocalDate, Cached> cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, Cached> eldest) {
+                return size() > MAX_CACHED_DAYS;
+            }
+        };
+
+        SourceState(ScheduleSource source, long intervalMillis) {
+            this.source = source;
+            this.intervalMillis = intervalMillis;
+        }
+    }
+
+    private final List<SourceState> states = new ArrayList<>();
+    private final ScheduledExecutorService refresher;
+    private volatile Runnable onChange = () -> { };
+
+    public ScheduleSources(List<ScheduleSource> sources, Properties settings) {
+        refresher = new ScheduledThreadPoolExecutor(2, runnable -> {
+            Thread thread = new Thread(runnable, "schedule-source-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (ScheduleSource source : sources) {
+            long seconds = Long.parseLong(settings.getProperty(source.name() + ".refreshSeconds",
+                    String.valueOf(DEFAULT_REFRESH_SECONDS)).trim());
+            SourceState state = new SourceState(source, TimeUnit.SECONDS.toMillis(seconds));
+            states.add(state);
+            refresher.scheduleWithFixedDelay(() -> refreshCached(state), seconds, seconds, TimeUnit.SECONDS);
+        }
+    }
+
+    // Every source on the classpath that sources.properties sets up
+    public static ScheduleSources load() {
+        Properties settings = new Properties();
+        try (FileInputStream input = new FileInputStream(SOURCES_FILE)) {
+            settings.load(input);
+        } catch (IOException e) {
+            // No extra sources configured
+        }
+
+        List<ScheduleSource> enabled = new ArrayList<>();
+        for (ScheduleSource source : ServiceLoader.load(ScheduleSource.class)) {
+            try {
+                if (source.configure(settings)) {
+                    enabled.add(source);
+                    Log.info("Schedule source enabled: " + source.name());
+                }
+            } catch (RuntimeException e) {
+                Log.warn("Invalid settings for schedule source " + source.name() + ": " + e.getMessage());
+            }
+        }
+        return new ScheduleSources(enabled, settings);
+    }
+
+    // False when sources.properties enables nothing, so planFor() hands back the local plan itself
+    public boolean hasSources() {
+        return !states.isEmpty();
+    }
+
+    public void setOnChange(Runnable onChange) {
+        this.onChange = onChange;
+    }
+
+    // The local plan plus every source's cached blocks for the date, in start order. Never blocks on a source.
+    public List<TimeBlock> planFor(LocalDate date, List<TimeBlock> localPlan) {
+        if (states.isEmpty()) {
+            return localPlan;
+        }
+
+        List<TimeBlock> merged = new ArrayList<>(localPlan);
+        long now = System.currentTimeMillis();
+        for (SourceState state : states) {
+            Cached cached;
+            synchronized (state) {
+                cached = state.cache.get(date);
+            }
+            if (cached == null || now - cached.loadedAt >= state.intervalMillis) {
+                refreshAsync(state, date);
+            }
+            if (cached != null) {
+                for (TimeBlock block : cached.blocks) {
+                    if (!containsSame(merged, block)) {
+                        merged.add(block);
+                    }
+                }
+            }
+        }
+        merged.sort(Comparator.comparing(block -> block.start));
+        return merged;
+    }
+
+    private void refreshCached(SourceState state) {
+        List<LocalDate> dates;
+        synchronized (state) {
+            dates = new ArrayList<>(state.cache.keySet());
+        }
+        for (LocalDate date : dates) {
+            refreshAsync(state, date);
+        }
+    }
+
+    // At most one refresh per source and date is in flight
+    private void refreshAsync(SourceState state, LocalDate date) {
+        if (!state.refreshing.add(date)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    refresh(state, date);
+                } finally {
+                    state.refreshing.remove(date);
+                }
+            });
+        } catch (RuntimeException e) {
+            state.refreshing.remove(date); // Shut down
+        }
+    }
+
+    private void refresh(SourceState state, LocalDate date) {
+        long refreshStart = System.nanoTime();
+        Cached previous;
+        synchronized (state) {
+            previous = state.cache.get(date);
+        }
+
+        List<TimeBlock> blocks;
+        try {
+            blocks = List.copyOf(state.source.load(date));
+        } catch (Exception e) {
+            // Keep serving what we had, and try again after the next interval
+            Log.warn("Could not refresh schedule source " + state.source.name() + ": " + e.getMessage());
+            blocks = (previous != null) ? previous.blocks : List.of();
+        }
+
+        synchronized (state) {
+            state.cache.put(date, new Cached(blocks, System.currentTimeMillis()));
+        }
+        REFRESH_TIME.recordSince(refreshStart);
+
+        if (previous == null ? !blocks.isEmpty() : !sameBlocks(previous.blocks, blocks)) {
+            onChange.run();
+        }
+    }
+
+    // Sources may hand out fresh ids on every load, so blocks are compared by content
+    private static boolean sameBlocks(List<TimeBlock> a, List<TimeBlock> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!sameContent(a.get(i), b.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsSame(List<TimeBlock> blocks, TimeBlock block) {
+        for (TimeBlock other : blocks) {
+            if (sameContent(other, block)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean sameContent(TimeBlock a, TimeBlock b) {
+        return a.start.equals(b.start) && a.end.equals(b.end) && a.label.equals(b.label);
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+}
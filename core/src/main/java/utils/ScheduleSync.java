@@ -0,0 +1,293 @@
+package utils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalTime;
+import java.util.*;
+
+import model.TimeBlock;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+// Merges schedule edits from several instances or devices sharing a sync directory, without locks or a server.
+//
+// The schedule is a last-writer-wins element set keyed by block id. Every change is stamped with a hybrid
+// logical clock and the writing replica's id, and the higher (clock, replica) pair wins. Each replica only
+// ever appends to its own delta file (one JSON object per line), so a file-sync tool never sees two writers
+// on one file. Other replicas' files are read incrementally from the last offset seen.
+public class ScheduleSync implements AutoCloseable {
+    private static final String DEFAULT_DIRECTORY = "sync";
+    private static final String DELTA_SUFFIX = ".deltas";
+    private static final String REPLICA_ID_FILE = ".time-tracker-replica";
+
+    private static final Metrics.Histogram MERGE_TIME = Metrics.histogram("sync.merge");
+
+    // One version of a block. Deleted blocks stay as tombstones so older writes can't resurrect them.
+    // Children travel with their parent as a JSON array, so sub-blocks merge at the parent's granularity.
+    private record Element(String id, LocalTime start, LocalTime end, String label, String children, boolean deleted,
+                           long clock, String replica) {
+        boolean newerThan(Element other) {
+            if (clock != other.clock) {
+                return clock > other.clock;
+            }
+            return replica.compareTo(other.replica) > 0;
+        }
+
+        boolean sameContent(TimeBlock block) {
+            return !deleted && start.equals(block.start) && end.equals(block.end) && label.equals(block.label)
+                    && children.equals(childrenJson(block));
+        }
+    }
+
+    private final Path directory;
+    private final String replicaId;
+    private final Path ownFile;
+    private final Map<String, Element> elements = new HashMap<>();
+    // What the caller last saw for each block, so a save only writes what the user actually changed
+    private final Map<String, Element> known = new HashMap<>();
+    // Bytes already merged per delta file
+    private final Map<Path, Long> offsets = new HashMap<>();
+    private long clock;
+    private WatchService watchService;
+
+    public ScheduleSync() throws IOException {
+        this(Paths.get(System.getProperty("timetracker.sync.dir", DEFAULT_DIRECTORY)), localReplicaId());
+    }
+
+    public ScheduleSync(Path directory, String replicaId) throws IOException {
+        this.directory = directory;
+        this.replicaId = replicaId;
+        this.ownFile = directory.resolve(replicaId + DELTA_SUFFIX);
+        Files.createDirectories(directory);
+    }
+
+    // Per machine and data directory. Kept outside the data directory, since that may be synced between devices.
+    public static String localReplicaId() {
+        Path idFile = Paths.get(System.getProperty("user.home"), REPLICA_ID_FILE);
+        String machineId;
+        try {
+            if (Files.exists(idFile)) {
+                machineId = Files.readString(idFile).trim();
+            } else {
+                machineId = UUID.randomUUID().toString().substring(0, 8);
+                Files.writeString(idFile, machineId);
+            }
+        } catch (IOException e) {
+            Log.warn("Could not store replica id, falling back to the host name.");
+            try {
+                machineId = InetAddress.getLocalHost().getHostName();
+            } catch (IOException hostError) {
+                machineId = "unknown";
+            }
+        }
+        String directoryHash = Integer.toHexString(Paths.get("").toAbsolutePath().toString().hashCode());
+        return machineId + "-" + directoryHash;
+    }
+
+    // False until this replica's first commit, e.g. on the first run after sync was set up on a device
+    public boolean hasOwnDeltas() {
+        return Files.exists(ownFile);
+    }
+
+    // Reads whatever was appended to any delta file since the last call. Returns true if the schedule changed.
+    public synchronized boolean mergeRemote() {
+        long mergeStart = System.nanoTime();
+        boolean changed = false;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + DELTA_SUFFIX)) {
+            for (Path file : files) {
+                changed |= mergeFile(file);
+            }
+        } catch (IOException e) {
+            Log.warn("Could not read sync directory " + directory, e);
+        }
+        MERGE_TIME.recordSince(mergeStart);
+        return changed;
+    }
+
+    private boolean mergeFile(Path file) throws IOException {
+        long offset = offsets.getOrDefault(file, 0L);
+        long size = Files.size(file);
+        if (size < offset) {
+            offset = 0; // Replaced rather than appended to, read it again from the start
+        }
+        if (size == offset) {
+            return false;
+        }
+
+        byte[] bytes = new byte[(int) (size - offset)];
+        try (RandomAccessFile in = new RandomAccessFile(file.toFile(), "r")) {
+            in.seek(offset);
+            in.readFully(bytes);
+        }
+
+        // Only merge complete lines; a line still being written is picked up next time
+        int lastNewline = -1;
+        for (int i = bytes.length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                lastNewline = i;
+                break;
+            }
+        }
+        if (lastNewline < 0) {
+            return false;
+        }
+        offsets.put(file, offset + lastNewline + 1);
+
+        boolean changed = false;
+        String text = new String(bytes, 0, lastNewline, StandardCharsets.UTF_8);
+        for (String line : text.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                changed |= apply(parse(new JSONObject(line)));
+            } catch (RuntimeException e) {
+                Log.warn("Skipping unreadable delta in " + file.getFileName() + ": " + line);
+            }
+        }
+        return changed;
+    }
+
+    private boolean apply(Element incoming) {
+        // Hybrid logical clock: never fall behind a clock we've seen
+        clock = Math.max(clock, incoming.clock);
+        Element current = elements.get(incoming.id);
+        if (current != null && !incoming.newerThan(current)) {
+            return false;
+        }
+        elements.put(incoming.id, incoming);
+        return true;
+    }
+
+    // Live blocks in start order. Marks them as seen, so the next commit diffs against this view.
+    public synchronized List<TimeBlock> snapshot() {
+        List<TimeBlock> blocks = new ArrayList<>();
+        known.clear();
+        for (Element element : elements.values()) {
+            if (!element.deleted) {
+                TimeBlock block = new TimeBlock(element.id, element.start, element.end, element.label);
+                if (!element.children.isEmpty()) {
+                    block.children.addAll(TimeUtils.blocksFromJson(new JSONArray(element.children)));
+                }
+                blocks.add(block);
+                known.put(element.id, element);
+            }
+        }
+        blocks.sort(Comparator.comparing((TimeBlock block) -> block.start).thenComparing(block -> block.id));
+        return blocks;
+    }
+
+    // Records the differences between the caller's schedule and what it last saw, and appends them to our delta file
+    public synchronized void commit(List<TimeBlock> schedule) {
+        List<Element> changes = new ArrayList<>();
+        Set<String> present = new HashSet<>();
+        for (TimeBlock block : schedule) {
+            present.add(block.id);
+            Element seen = known.get(block.id);
+            if (seen == null || !seen.sameContent(block)) {
+                changes.add(new Element(block.id, block.start, block.end, block.label, childrenJson(block), false, tick(), replicaId));
+            }
+        }
+        // Only blocks the caller knew about can have been deleted by it; blocks merged in since are kept
+        for (Element seen : known.values()) {
+            if (!present.contains(seen.id)) {
+                changes.add(new Element(seen.id, seen.start, seen.end, seen.label, "", true, tick(), replicaId));
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        StringBuilder lines = new StringBuilder();
+        for (Element change : changes) {
+            apply(change);
+            lines.append(toJson(change)).append('\n');
+        }
+        try {
+            boolean caughtUp = offsets.getOrDefault(ownFile, 0L) == (Files.exists(ownFile) ? Files.size(ownFile) : 0L);
+            Files.writeString(ownFile, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            if (caughtUp) {
+                offsets.put(ownFile, Files.size(ownFile)); // Our own lines are already applied
+            }
+        } catch (IOException e) {
+            Log.error("Could not write schedule changes to " + ownFile, e);
+        }
+
+        known.clear();
+        for (TimeBlock block : schedule) {
+            known.put(block.id, elements.get(block.id));
+        }
+    }
+
+    // Physical time when it moves forward, otherwise one past the last clock seen
+    private long tick() {
+        clock = Math.max(clock + 1, System.currentTimeMillis() << 16);
+        return clock;
+    }
+
+    // Calls back on a daemon thread whenever another replica's delta file changes
+    public void watch(Runnable onRemoteChange) throws IOException {
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    boolean remote = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        Object context = event.context();
+                        if (context instanceof Path changed && changed.toString().endsWith(DELTA_SUFFIX)
+                                && !directory.resolve(changed).equals(ownFile)) {
+                            remote = true;
+                        }
+                    }
+                    key.reset();
+                    if (remote) {
+                        onRemoteChange.run();
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Closed, stop watching
+            }
+        }, "schedule-sync-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    // Empty for blocks without children
+    private static String childrenJson(TimeBlock block) {
+        return block.children.isEmpty() ? "" : TimeUtils.blocksToJson(block.children).toString();
+    }
+
+    private static Element parse(JSONObject obj) {
+        return new Element(obj.getString("id"), LocalTime.parse(obj.getString("start")), LocalTime.parse(obj.getString("end")),
+                obj.getString("label"), obj.optString("children", ""), obj.optInt("deleted", 0) == 1, obj.getLong("clock"),
+                obj.getString("replica"));
+    }
+
+    private static String toJson(Element element) {
+        JSONObject obj = new JSONObject();
+        obj.put("id", element.id);
+        obj.put("start", element.start.toString());
+        obj.put("end", element.end.toString());
+        obj.put("label", element.label);
+        if (!element.children.isEmpty()) {
+            obj.put("children", element.children);
+        }
+        obj.put("deleted", element.deleted ? 1 : 0);
+        obj.put("clock", element.clock);
+        obj.put("replica", element.replica);
+        return obj.toString();
+    }
+}
@@ -0,0 +1,244 @@
+package utils;
+
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import model.TimeBlock;
+
+// Checks an edit against its neighbours in O(log n + k), instead of comparing it with every other block.
+//
+// Times are minutes after the start of the day, like NestedBlockIndex, so a block may run past midnight: its end
+// then lies past 1440. Blocks are bucketed by start minute under a segment tree that keeps the latest end in each
+// range of starts, so the blocks still running at a minute are found without walking the ones that ended before it.
+// The schedule repeats every day, so a range is also checked one day earlier and later to catch blocks that wrap
+// the end of the bar.
+public class ScheduleValidator {
+    private static final int TOTAL_MINUTES = 1440;
+
+    public enum Kind { INVERTED, OVERLAP, GAP }
+
+    public record Conflict(Kind kind, TimeBlock other, String message) {
+        // Empty ranges can't be drawn or tracked; overlaps and gaps are only warnings
+        public boolean isError() {
+            return kind == Kind.INVERTED;
+        }
+    }
+
+    // Where a block was indexed, needed to unindex it after an in-place edit
+    private record Range(int start, int end) {
+    }
+
+    private final LocalTime startOfDay;
+    private final Map<TimeBlock, Range> indexed = new IdentityHashMap<>();
+    // Blocks by start minute, and the minutes that have any
+    private final List<List<TimeBlock>> buckets = new ArrayList<>(TOTAL_MINUTES);
+    private final TreeSet<Integer> occupied = new TreeSet<>();
+    // Segment tree over start minutes; each node holds the latest end of the blocks starting in its range
+    private final int[] maxEnd = new int[4 * TOTAL_MINUTES];
+
+    public ScheduleValidator(Collection<TimeBlock> blocks, LocalTime startOfDay) {
+        this.startOfDay = startOfDay;
+        for (int minute = 0; minute < TOTAL_MINUTES; minute++) {
+            buckets.add(new ArrayList<>(1));
+        }
+        Arrays.fill(maxEnd, Integer.MIN_VALUE);
+        for (TimeBlock block : blocks) {
+            add(block);
+        }
+    }
+
+    public void add(TimeBlock block) {
+        int start = minutesAfter(block.start);
+        int end = minutesAfter(block.end);
+        if (end <= start) {
+            end += TOTAL_MINUTES; // Runs past midnight of the bar; a zero-length block covers the whole day
+        }
+        index(block, new Range(start, end));
+    }
+
+    public void remove(TimeBlock block) {
+        Range range = indexed.remove(block);
+        if (range != null) {
+            List<TimeBlock> bucket = buckets.get(range.start);
+            bucket.remove(block);
+            if (bucket.isEmpty()) {
+                occupied.remove(range.start);
+            }
+            refresh(range.start);
+        }
+    }
+
+    // Re-indexes a block whose start or end was edited in place
+    public void update(TimeBlock block) {
+        remove(block);
+        add(block);
+    }
+
+    // Checks a proposed range against its neighbours. The block being edited, if any, is ignored.
+    public List<Conflict> check(LocalTime start, LocalTime end, TimeBlock ignore) {
+        List<Conflict> conflicts = new ArrayList<>();
+        if (end.equals(start)) {
+            conflicts.add(new Conflict(Kind.INVERTED, null, "End time must differ from start time."));
+            return conflicts;
+        }
+        int from = minutesAfter(start);
+        int to = minutesAfter(end);
+        if (to <= from) {
+            to += TOTAL_MINUTES;
+        }
+
+        // Take the edited block out for the duration of the check, so it can't bound a gap or show up as an overlap
+        Range ignored = (ignore != null) ? indexed.get(ignore) : null;
+        if (ignored != null) {
+            remove(ignore);
+        }
+        try {
+            // Blocks overlapping the range, including ones reaching in from the day before or after
+            Map<TimeBlock, Range> overlapping = new IdentityHashMap<>();
+            for (int shift = -TOTAL_MINUTES; shift <= TOTAL_MINUTES; shift += TOTAL_MINUTES) {
+                collectOverlapping(1, 0, TOTAL_MINUTES - 1, from - shift, to - shift, shift, overlapping);
+            }
+            List<Map.Entry<TimeBlock, Range>> ordered = new ArrayList<>(overlapping.entrySet());
+            ordered.sort(Comparator.comparingInt(entry -> entry.getValue().start));
+            // A range that starts or ends inside another block has no gap on that side
+            boolean overlapsStart = false;
+            boolean overlapsEnd = false;
+            for (Map.Entry<TimeBlock, Range> entry : ordered) {
+                conflicts.add(overlap(entry.getKey()));
+                overlapsStart |= entry.getValue().start < from;
+                overlapsEnd |= entry.getValue().end > to;
+            }
+
+            // The earlier block ending last bounds the gap before the range, which may be one from the day before
+            TimeBlock previous = (from > 0) ? latestEnding(1, 0, TOTAL_MINUTES - 1, 0, from - 1) : null;
+            int previousEnd = (previous != null) ? indexed.get(previous).end : Integer.MIN_VALUE;
+            TimeBlock wrapping = latestEnding(1, 0, TOTAL_MINUTES - 1, 0, TOTAL_MINUTES - 1);
+            if (wrapping != null && indexed.get(wrapping).end - TOTAL_MINUTES >= Math.max(previousEnd + 1, 0)) {
+                previous = wrapping;
+                previousEnd = indexed.get(wrapping).end - TOTAL_MINUTES;
+            }
+            if (!overlapsStart && previous != null && previousEnd < from) {
+                conflicts.add(gap(from - previousEnd, "after", previous));
+            }
+
+            // And the next block starting at or after the end bounds the gap after it, wrapping to the next day
+            Integer nextStart = occupied.ceiling(to % TOTAL_MINUTES);
+            int offset = (to >= TOTAL_MINUTES) ? TOTAL_MINUTES : 0;
+            if (nextStart == null && offset == 0 && !occupied.isEmpty()) {
+                nextStart = occupied.first();
+                offset = TOTAL_MINUTES;
+            }
+            if (!overlapsEnd && nextStart != null && nextStart + offset > to) {
+                TimeBlock following = buckets.get(nextStart).get(0);
+                if (!overlapping.containsKey(following)) {
+                    conflicts.add(gap(nextStart + offset - to, "before", following));
+                }
+            }
+        } finally {
+            if (ignored != null) {
+                index(ignore, ignored);
+            }
+        }
+        return conflicts;
+    }
+
+    private void index(TimeBlock block, Range range) {
+        indexed.put(block, range);
+        buckets.get(range.start).add(block);
+        occupied.add(range.start);
+        refresh(range.start);
+    }
+
+    // Recomputes the latest end along the path from the minute's leaf to the root
+    private void refresh(int minute) {
+        int latest = Integer.MIN_VALUE;
+        for (TimeBlock block : buckets.get(minute)) {
+            latest = Math.max(latest, indexed.get(block).end);
+        }
+        set(1, 0, TOTAL_MINUTES - 1, minute, latest);
+    }
+
+    private void set(int node, int low, int high, int minute, int value) {
+        if (low == high) {
+            maxEnd[node] = value;
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        if (minute <= middle) {
+            set(2 * node, low, middle, minute, value);
+        } else {
+            set(2 * node + 1, middle + 1, high, minute, value);
+        }
+        maxEnd[node] = Math.max(maxEnd[2 * node], maxEnd[2 * node + 1]);
+    }
+
+    private int maxEnd(int node, int low, int high, int from, int to) {
+        if (to < low || high < from) {
+            return Integer.MIN_VALUE;
+        }
+        if (from <= low && high <= to) {
+            return maxEnd[node];
+        }
+        int middle = (low + high) >>> 1;
+        return Math.max(maxEnd(2 * node, low, middle, from, to), maxEnd(2 * node + 1, middle + 1, high, from, to));
+    }
+
+    // The block with the latest end among those starting in [from, to]
+    private TimeBlock latestEnding(int node, int low, int high, int from, int to) {
+        int latest = maxEnd(node, low, high, from, to);
+        if (latest == Integer.MIN_VALUE) {
+            return null;
+        }
+        while (low != high) {
+            int middle = (low + high) >>> 1;
+            if (maxEnd(2 * node, low, middle, from, to) == latest) {
+                node = 2 * node;
+                high = middle;
+            } else {
+                node = 2 * node + 1;
+                low = middle + 1;
+            }
+        }
+        for (TimeBlock block : buckets.get(low)) {
+            if (indexed.get(block).end == latest) {
+                return block;
+            }
+        }
+        return null;
+    }
+
+    // Blocks starting before `to` that end after `from`; only subtrees whose latest end passes `from` are visited.
+    // Each hit is recorded with its range moved by the shift, back onto the checked day.
+    private void collectOverlapping(int node, int low, int high, int from, int to, int shift,
+                                    Map<TimeBlock, Range> found) {
+        if (low >= to || maxEnd[node] <= from) {
+            return;
+        }
+        if (low == high) {
+            for (TimeBlock block : buckets.get(low)) {
+                Range range = indexed.get(block);
+                if (range.end > from) {
+                    found.putIfAbsent(block, new Range(range.start + shift, range.end + shift));
+                }
+            }
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        collectOverlapping(2 * node, low, middle, from, to, shift, found);
+        collectOverlapping(2 * node + 1, middle + 1, high, from, to, shift, found);
+    }
+
+    private int minutesAfter(LocalTime time) {
+        long minutes = ChronoUnit.MINUTES.between(startOfDay, time);
+        return (int) ((minutes < 0) ? minutes + TOTAL_MINUTES : minutes);
+    }
+
+    private static Conflict overlap(TimeBlock block) {
+        return new Conflict(Kind.OVERLAP, block, "Overlaps \"" + block.label + "\" (" + block.start + "-" + block.end + ").");
+    }
+
+    private static Conflict gap(int minutes, String where, TimeBlock block) {
+        return new Conflict(Kind.GAP, block, "Gap of " + minutes + " min " + where + " \"" + block.label + "\".");
+    }
+}
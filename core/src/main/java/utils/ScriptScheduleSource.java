@@ -0,0 +1,71 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import model.TimeBlock;
+
+// Runs a command with the date (yyyy-mm-dd) as its last argument and reads a timeblocks.json style array from
+// its output. The command is split on whitespace, no shell is involved.
+//   script.command=python agenda.py
+//   script.timeoutSeconds=30
+public class ScriptScheduleSource implements ScheduleSource {
+    private List<String> command;
+    private long timeoutSeconds;
+
+    @Override
+    public String name() {
+        return "script";
+    }
+
+    @Override
+    public boolean configure(Properties settings) {
+        String configured = settings.getProperty("script.command");
+        if (configured == null || configured.isBlank()) {
+            return false;
+        }
+        command = Arrays.asList(configured.trim().split("\\s+"));
+        timeoutSeconds = Long.parseLong(settings.getProperty("script.timeoutSeconds", "30").trim());
+        return true;
+    }
+
+    @Override
+    public List<TimeBlock> load(LocalDate date) throws IOException {
+        List<String> arguments = new ArrayList<>(command);
+        arguments.add(date.toString());
+
+        // Output goes to a temp file, so a hung script can't block us on a pipe and the timeout always applies
+        Path output = Files.createTempFile("schedule-source", ".json");
+        try {
+            Process process = new ProcessBuilder(arguments)
+                    .redirectOutput(output.toFile())
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            try {
+                if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                    throw new IOException("Timed out: " + String.join(" ", command));
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for " + String.join(" ", command));
+            }
+            if (process.exitValue() != 0) {
+                throw new IOException("Exit code " + process.exitValue() + ": " + String.join(" ", command));
+            }
+
+            String json = Files.readString(output).trim();
+            return json.isEmpty() ? new ArrayList<>() : TimeUtils.parseSchedule(json);
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+}
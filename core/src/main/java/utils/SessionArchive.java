@@ -0,0 +1,435 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Cold history: closed months of the session log rewritten into one compressed, columnar file per month.
+//
+// File layout: chunks, then the label dictionary, then the chunk index, then a footer.
+// Chunk: record count, then three columns (timestamps as zigzag varint deltas, type bytes,
+// varint label ids), each stored as [raw length][compressed length][deflated bytes].
+// Index entry per chunk: min timestamp, max timestamp, file offset. Range scans skip chunks by the index.
+// Footer: [long dictionary offset][int chunk count][long min][long max][int magic].
+//
+// Month files are read onto the heap rather than mapped, so a rewrite can replace them on Windows too.
+// Raw segments stay mapped by the log and may not be deletable right away, so the names of archived segments
+// are kept in archived-segments.txt; the log never serves them again and deletes them on its next start.
+public class SessionArchive {
+    private static final String FILE_SUFFIX = ".tta";
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final int MAGIC = 0x54544152; // "TTAR"
+    private static final int FOOTER_SIZE = 8 + 4 + 8 + 8 + 4;
+    private static final int CHUNK_RECORDS = 4096;
+    private static final String ARCHIVED_SEGMENTS_FILE = "archived-segments.txt";
+
+    private static final Metrics.Histogram ARCHIVE_TIME = Metrics.histogram("sessionArchive.archive");
+
+    private record Entry(long timestamp, byte type, String label) {
+    }
+
+    // One archived month. Only the dictionary and the chunk index are decoded when it is opened.
+    public static final class Month implements SessionLog.Source {
+        public final Path path;
+        public final long firstTimestamp;
+        public final long lastTimestamp;
+        private final ByteBuffer buffer;
+        private final String[] labels;
+        private final long[] chunkMin;
+        private final long[] chunkMax;
+        private final long[] chunkOffset;
+
+        Month(Path path) throws IOException {
+            this.path = path;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                buffer = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.BIG_ENDIAN);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // Keep reading until the whole file is in memory
+                }
+                buffer.flip();
+            }
+            int footer = buffer.limit() - FOOTER_SIZE;
+            if (footer < 0 || buffer.getInt(footer + 28) != MAGIC) {
+                throw new IOException("Not a session archive: " + path);
+            }
+            long dictionaryOffset = buffer.getLong(footer);
+            int chunks = buffer.getInt(footer + 8);
+            firstTimestamp = buffer.getLong(footer + 12);
+            lastTimestamp = buffer.getLong(footer + 20);
+
+            ByteBuffer index = buffer.duplicate().position((int) dictionaryOffset);
+            labels = new String[index.getInt()];
+            for (int i = 0; i < labels.length; i++) {
+                byte[] bytes = new byte[index.getShort() & 0xFFFF];
+                index.get(bytes);
+                labels[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            chunkMin = new long[chunks];
+            chunkMax = new long[chunks];
+            chunkOffset = new long[chunks];
+            for (int i = 0; i < chunks; i++) {
+                chunkMin[i] = index.getLong();
+                chunkMax[i] = index.getLong();
+                chunkOffset[i] = index.getLong();
+            }
+        }
+
+        @Override
+        public boolean overlaps(long fromMillis, long toMillis) {
+            return firstTimestamp <= toMillis && lastTimestamp >= fromMillis;
+        }
+
+        @Override
+        public void scan(long fromMillis, long toMillis, SessionLog.RecordVisitor visitor) {
+            Inflater inflater = new Inflater();
+            try {
+                for (int chunk = 0; chunk < chunkOffset.length; chunk++) {
+                    if (chunkMin[chunk] > toMillis || chunkMax[chunk] < fromMillis) {
+                        continue;
+                    }
+                    ByteBuffer in = buffer.duplicate().position((int) chunkOffset[chunk]);
+                    int count = in.getInt();
+                    ByteBuffer timestamps = ByteBuffer.wrap(inflate(in, inflater));
+                    byte[] types = inflate(in, inflater);
+                    ByteBuffer labelIds = ByteBuffer.wrap(inflate(in, inflater));
+
+                    long timestamp = 0;
+                    for (int i = 0; i < count; i++) {
+                        long delta = readVarLong(timestamps);
+                        timestamp += (delta >>> 1) ^ -(delta & 1);
+                        int labelId = (int) readVarLong(labelIds);
+                        if (timestamp >= fromMillis && timestamp <= toMillis) {
+                            visitor.visit(timestamp, types[i], labels[labelId]);
+                        }
+                    }
+                }
+            } catch (DataFormatException e) {
+                Log.warn("Corrupt chunk in " + path.getFileName() + ", skipping the rest of it.");
+            } finally {
+                inflater.end();
+            }
+        }
+
+        // Decodes every record, oldest first; used when a month has to be rewritten
+        List<Entry> entries() {
+            List<Entry> entries = new ArrayList<>();
+            scan(Long.MIN_VALUE, Long.MAX_VALUE, (timestamp, type, label) -> entries.add(new Entry(timestamp, type, label)));
+            return entries;
+        }
+    }
+
+    private final Path directory;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final List<Month> months = new CopyOnWriteArrayList<>();
+    // File names of raw segments whose records are archived, guarded by this
+    private final Set<String> archivedSegments = new TreeSet<>();
+
+    public SessionArchive(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        Path manifest = directory.resolve(ARCHIVED_SEGMENTS_FILE);
+        if (Files.exists(manifest)) {
+            for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    archivedSegments.add(line.trim());
+                }
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(file -> file.getFileName().toString().endsWith(FILE_SUFFIX)).sorted().toList()) {
+                try {
+                    months.add(new Month(path));
+                } catch (IOException | RuntimeException e) {
+                    Log.warn("Ignoring unreadable archive " + path.getFileName());
+                }
+            }
+        }
+    }
+
+    public List<Month> months() {
+        return new ArrayList<>(months);
+    }
+
+    // True if the segment's records are already in the archive, even though its file may still exist
+    synchronized boolean isArchived(Path segment) {
+        return archivedSegments.contains(segment.getFileName().toString());
+    }
+
+    // Forgets archived segments whose files are gone, so the list doesn't grow forever
+    synchronized void retainArchived(Collection<Path> remaining) {
+        Set<String> names = new HashSet<>();
+        for (Path path : remaining) {
+            names.add(path.getFileName().toString());
+        }
+        if (archivedSegments.retainAll(names)) {
+            try {
+                writeArchivedSegments();
+            } catch (IOException e) {
+                Log.warn("Could not update " + ARCHIVED_SEGMENTS_FILE, e);
+            }
+        }
+    }
+
+    // Moves closed segments that end before the current month into the archive, then removes them from the log.
+    // Returns the number of segments archived.
+    public synchronized int archiveClosedMonths(SessionLog log) {
+        long archiveStart = System.nanoTime();
+        long cutoff = YearMonth.now(zone).atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        List<SessionLog.Segment> closed = log.closedSegments();
+        List<SessionLog.Segment> archivable = new ArrayList<>();
+        for (SessionLog.Segment segment : closed) {
+            if (segment.lastTimestamp < cutoff) {
+                archivable.add(segment);
+            }
+        }
+        if (archivable.isEmpty()) {
+            return 0;
+        }
+
+        // Bucket by month; a segment can straddle a month boundary
+        Map<YearMonth, List<Entry>> byMonth = new TreeMap<>();
+        for (SessionLog.Segment segment : archivable) {
+            segment.scan(Long.MIN_VALUE, Long.MAX_VALUE, (timestamp, type, label) -> byMonth
+                    .computeIfAbsent(YearMonth.from(Instant.ofEpochMilli(timestamp).atZone(zone)), key -> new ArrayList<>())
+                    .add(new Entry(timestamp, type, label)));
+        }
+
+        List<Month> written = new ArrayList<>();
+        try {
+            for (Map.Entry<YearMonth, List<Entry>> month : byMonth.entrySet()) {
+                written.add(writeMonth(month.getKey(), month.getValue()));
+            }
+            for (SessionLog.Segment segment : archivable) {
+                archivedSegments.add(segment.path.getFileName().toString());
+            }
+            writeArchivedSegments();
+        } catch (IOException e) {
+            Log.error("Could not write session archive, keeping raw segments.", e);
+            return 0;
+        }
+
+        // Swap in the months and drop the segments under the log's lock, which SessionLog.sources() also takes,
+        // so a reader sees each record either archived or raw, never both or neither
+        synchronized (log) {
+            for (Month month : written) {
+                months.removeIf(archived -> archived.path.equals(month.path));
+                months.add(month);
+            }
+            months.sort(Comparator.comparing(archived -> archived.path.getFileName().toString()));
+            log.dropSegments(archivable);
+        }
+        ARCHIVE_TIME.recordSince(archiveStart);
+        return archivable.size();
+    }
+
+    // Merges with what is already archived for the month, since earlier segments may have covered part of it.
+    // Returns the rewritten month; the caller publishes it together with dropping the segments.
+    private Month writeMonth(YearMonth month, List<Entry> entries) throws IOException {
+        Path path = directory.resolve(MONTH_FORMAT.format(month) + FILE_SUFFIX);
+        for (Month candidate : months) {
+            if (candidate.path.equals(path)) {
+                entries.addAll(candidate.entries());
+            }
+        }
+
+        // Sorting makes deltas small; dropping exact duplicates makes a retried archive run harmless
+        // Sorted on every field, so exact duplicates end up next to each other even within the same millisecond
+        entries.sort(Comparator.comparingLong(Entry::timestamp).thenComparingInt(Entry::type).thenComparing(Entry::label));
+        List<Entry> unique = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (unique.isEmpty() || !unique.get(unique.size() - 1).equals(entry)) {
+                unique.add(entry);
+            }
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        write(temp, unique);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Month(path);
+    }
+
+    // Written before the segments are deleted, so a segment that can't be deleted yet is never read twice
+    private void writeArchivedSegments() throws IOException {
+        Path manifest = directory.resolve(ARCHIVED_SEGMENTS_FILE);
+        Path temp = manifest.resolveSibling(ARCHIVED_SEGMENTS_FILE + ".tmp");
+        Files.write(temp, archivedSegments, StandardCharsets.UTF_8);
+        Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void write(Path path, List<Entry> entries) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        List<long[]> index = new ArrayList<>();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = 0;
+            for (int from = 0; from < entries.size(); from += CHUNK_RECORDS) {
+                List<Entry> chunk = entries.subList(from, Math.min(entries.size(), from + CHUNK_RECORDS));
+                Column timestamps = new Column(chunk.size() * 3);
+                Column types = new Column(chunk.size());
+                Column labelIds = new Column(chunk.size());
+                long previous = 0;
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                for (Entry entry : chunk) {
+                    long delta = entry.timestamp - previous;
+                    timestamps.writeVarLong((delta << 1) ^ (delta >> 63));
+                    previous = entry.timestamp;
+                    types.write(entry.type);
+                    labelIds.writeVarLong(dictionary.computeIfAbsent(entry.label, key -> dictionary.size()));
+                    min = Math.min(min, entry.timestamp);
+                    max = Math.max(max, entry.timestamp);
+                }
+                index.add(new long[]{min, max, position});
+
+                ByteBuffer header = ByteBuffer.allocate(4).putInt(chunk.size()).flip();
+                position += writeFully(out, header);
+                position += writeFully(out, timestamps.deflate(deflater));
+                position += writeFully(out, types.deflate(deflater));
+                position += writeFully(out, labelIds.deflate(deflater));
+            }
+
+            long dictionaryOffset = position;
+            Column tail = new Column(1024);
+            tail.writeInt(dictionary.size());
+            for (String label : dictionary.keySet()) {
+                byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+                tail.writeShort(bytes.length);
+                tail.write(bytes);
+            }
+            for (long[] entry : index) {
+                tail.writeLong(entry[0]);
+                tail.writeLong(entry[1]);
+                tail.writeLong(entry[2]);
+            }
+            tail.writeLong(dictionaryOffset);
+            tail.writeInt(index.size());
+            tail.writeLong(entries.isEmpty() ? 0 : entries.get(0).timestamp);
+            tail.writeLong(entries.isEmpty() ? 0 : entries.get(entries.size() - 1).timestamp);
+            tail.writeInt(MAGIC);
+            writeFully(out, tail.buffer());
+            out.force(true);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static int writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        int written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        return written;
+    }
+
+    private static byte[] inflate(ByteBuffer in, Inflater inflater) throws DataFormatException {
+        int rawLength = in.getInt();
+        int compressedLength = in.getInt();
+        byte[] compressed = new byte[compressedLength];
+        in.get(compressed);
+        byte[] raw = new byte[rawLength];
+        inflater.reset();
+        inflater.setInput(compressed);
+        int filled = 0;
+        while (filled < rawLength) {
+            int inflated = inflater.inflate(raw, filled, rawLength - filled);
+            if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                throw new DataFormatException("Truncated column");
+            }
+            filled += inflated;
+        }
+        return raw;
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    // Growable byte buffer for building one column
+    private static final class Column {
+        private byte[] bytes;
+        private int size;
+
+        Column(int capacity) {
+            bytes = new byte[Math.max(16, capacity)];
+        }
+
+        void write(int b) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, size * 2);
+            }
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] data) {
+            for (byte b : data) {
+                write(b);
+            }
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeShort(int value) {
+            write(value >>> 8);
+            write(value);
+        }
+
+        void writeInt(int value) {
+            writeShort(value >>> 16);
+            writeShort(value & 0xFFFF);
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        ByteBuffer buffer() {
+            return ByteBuffer.wrap(bytes, 0, size);
+        }
+
+        // [raw length][compressed length][deflated bytes]
+        ByteBuffer deflate(Deflater deflater) {
+            deflater.reset();
+            deflater.setInput(bytes, 0, size);
+            deflater.finish();
+            byte[] compressed = new byte[size + 64];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            return ByteBuffer.allocate(8 + length).putInt(size).putInt(length).put(compressed, 0, length).flip();
+        }
+    }
+
+}
@@ -0,0 +1,409 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+
+// Append-only log of what actually happened, stored in fixed-size memory-mapped segments.
+//
+// Segment layout: header (magic, version, min timestamp, max timestamp), then records of
+// [int payload length][int CRC32 of payload][long epoch millis][byte type][short label length][label UTF-8].
+// The length is written last, so a record torn by a crash reads as the end of the log. Checksums are verified
+// when a segment is opened, and the first record that fails its checksum ends the segment.
+// Closed months are moved into a compressed SessionArchive; scans cover both transparently.
+public class SessionLog implements AutoCloseable {
+    public static final byte START = 1;
+    public static final byte STOP = 2;
+    public static final byte TICK = 3;
+    public static final byte IDLE_START = 4;
+    public static final byte IDLE_END = 5;
+
+    private static final String DEFAULT_DIRECTORY = "sessions";
+    private static final String ARCHIVE_DIRECTORY = "archive";
+    private static final int SEGMENT_SIZE = 4 * 1024 * 1024;
+    private static final int MAGIC = 0x54545347; // "TTSG"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int FIRST_TIMESTAMP_OFFSET = 8;
+    private static final int LAST_TIMESTAMP_OFFSET = 16;
+    private static final int RECORD_OVERHEAD = 4 + 4 + 8 + 1 + 2;
+    private static final int MAX_LABEL_BYTES = 1024;
+
+    private static final Metrics.Histogram APPEND_TIME = Metrics.histogram("sessionLog.append");
+
+    public interface RecordVisitor {
+        void visit(long timestamp, byte type, String label);
+    }
+
+    // Anything that can be range-scanned for records: a live segment or an archived month
+    public interface Source {
+        boolean overlaps(long fromMillis, long toMillis);
+
+        void scan(long fromMillis, long toMillis, RecordVisitor visitor);
+    }
+
+    // One segment file. Segments know their time range, which lets range scans skip them entirely.
+    // Timestamps are the min/max over all records, since idle markers are written backdated.
+    public static final class Segment implements Source {
+        public final Path path;
+        public final long firstTimestamp;
+        public final long lastTimestamp;
+        private final ByteBuffer buffer;
+
+        Segment(Path path, long firstTimestamp, long lastTimestamp, ByteBuffer buffer) {
+            this.path = path;
+            this.firstTimestamp = firstTimestamp;
+            this.lastTimestamp = lastTimestamp;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public boolean overlaps(long fromMillis, long toMillis) {
+            return firstTimestamp != 0 && firstTimestamp <= toMillis && lastTimestamp >= fromMillis;
+        }
+
+        // Visits every valid record with a timestamp in [fromMillis, toMillis]
+        @Override
+        public void scan(long fromMillis, long toMillis, RecordVisitor visitor) {
+            ByteBuffer records = buffer.duplicate();
+            LabelDecoder labels = new LabelDecoder();
+            int position = HEADER_SIZE;
+            while (position + RECORD_OVERHEAD <= records.limit()) {
+                int length = records.getInt(position);
+                if (length <= 0 || position + 8 + length > records.limit()) {
+                    return;
+                }
+                long timestamp = records.getLong(position + 8);
+                if (timestamp >= fromMillis && timestamp <= toMillis) {
+                    byte type = records.get(position + 16);
+                    int labelLength = records.getShort(position + 17);
+                    visitor.visit(timestamp, type, labels.decode(records, position + 19, labelLength));
+                }
+                position += 8 + length;
+            }
+        }
+    }
+
+    // Reuses the previous String when consecutive records carry the same label, which is the common case
+    private static final class LabelDecoder {
+        private byte[] lastBytes = new byte[0];
+        private String lastLabel = "";
+        private byte[] scratch = new byte[64];
+
+        String decode(ByteBuffer buffer, int offset, int length) {
+            if (scratch.length < length) {
+                scratch = new byte[length];
+            }
+            buffer.get(offset, scratch, 0, length);
+            if (!Arrays.equals(scratch, 0, length, lastBytes, 0, lastBytes.length)) {
+                lastBytes = Arrays.copyOf(scratch, length);
+                lastLabel = new String(lastBytes, StandardCharsets.UTF_8);
+            }
+            return lastLabel;
+        }
+    }
+
+    private final Path directory;
+    private final SessionArchive archive;
+    private final List<Segment> closedSegments = new ArrayList<>();
+    private final List<RecordVisitor> appendListeners = new CopyOnWriteArrayList<>();
+    private final CRC32 crc = new CRC32();
+    private Path activePath;
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private int writePosition;
+    private long activeFirstTimestamp;
+    private long activeLastTimestamp;
+    private int nextSegmentNumber;
+
+    public SessionLog() throws IOException {
+        this(Paths.get(DEFAULT_DIRECTORY));
+    }
+
+    public SessionLog(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        this.archive = new SessionArchive(directory.resolve(ARCHIVE_DIRECTORY));
+
+        List<Path> listed;
+        try (Stream<Path> files = Files.list(directory)) {
+            listed = files.filter(path -> path.getFileName().toString().matches("segment-\\d{8}\\.log"))
+                    .sorted()
+                    .toList();
+        }
+
+        // Segments archived by an earlier run that couldn't delete them; nothing maps them yet, so delete now
+        List<Path> segmentFiles = new ArrayList<>();
+        List<Path> undeleted = new ArrayList<>();
+        for (Path path : listed) {
+            nextSegmentNumber = segmentNumber(path) + 1;
+            if (!archive.isArchived(path)) {
+                segmentFiles.add(path);
+                continue;
+            }
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                undeleted.add(path);
+            }
+        }
+        archive.retainArchived(undeleted);
+
+        for (int i = 0; i < segmentFiles.size(); i++) {
+            Path path = segmentFiles.get(i);
+            if (i < segmentFiles.size() - 1) {
+                closedSegments.add(openClosedSegment(path));
+            } else {
+                recoverActiveSegment(path);
+            }
+        }
+        if (active == null) {
+            startNewSegment();
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // Listeners see every record right after it was appended, e.g. to keep rollups current
+    public void addListener(RecordVisitor listener) {
+        appendListeners.add(listener);
+    }
+
+    public void removeListener(RecordVisitor listener) {
+        appendListeners.remove(listener);
+    }
+
+    public synchronized void append(long timestamp, byte type, String label) {
+        long appendStart = System.nanoTime();
+        byte[] labelBytes = (label == null) ? new byte[0] : label.getBytes(StandardCharsets.UTF_8);
+        if (labelBytes.length > MAX_LABEL_BYTES) {
+            labelBytes = Arrays.copyOf(labelBytes, MAX_LABEL_BYTES);
+        }
+
+        int payloadLength = 8 + 1 + 2 + labelBytes.length;
+        if (writePosition + 8 + payloadLength > SEGMENT_SIZE) {
+            try {
+                rollOver();
+            } catch (IOException e) {
+                Log.error("Could not roll over session log, dropping event.", e);
+                return;
+            }
+        }
+
+        int position = writePosition;
+        active.putLong(position + 8, timestamp);
+        active.put(position + 16, type);
+        active.putShort(position + 17, (short) labelBytes.length);
+        active.put(position + 19, labelBytes);
+
+        crc.reset();
+        crc.update(active.slice(position + 8, payloadLength));
+        active.putInt(position + 4, (int) crc.getValue());
+        // Publishing the length last makes the record visible to recovery and readers
+        active.putInt(position, payloadLength);
+        writePosition = position + 8 + payloadLength;
+
+        if (activeFirstTimestamp == 0 || timestamp < activeFirstTimestamp) {
+            activeFirstTimestamp = timestamp;
+            active.putLong(FIRST_TIMESTAMP_OFFSET, timestamp);
+        }
+        activeLastTimestamp = Math.max(activeLastTimestamp, timestamp);
+        APPEND_TIME.recordSince(appendStart);
+
+        String storedLabel = new String(labelBytes, StandardCharsets.UTF_8);
+        for (RecordVisitor listener : appendListeners) {
+            listener.visit(timestamp, type, storedLabel);
+        }
+    }
+
+    public void append(byte type, String label) {
+        append(System.currentTimeMillis(), type, label);
+    }
+
+    // Snapshot of all segments, oldest first. The active one only covers records written so far.
+    public synchronized List<Segment> segments() {
+        List<Segment> segments = new ArrayList<>(closedSegments);
+        ByteBuffer written = active.duplicate().limit(writePosition).asReadOnlyBuffer();
+        segments.add(new Segment(activePath, activeFirstTimestamp, activeLastTimestamp, written));
+        return segments;
+    }
+
+    public synchronized List<Segment> closedSegments() {
+        return new ArrayList<>(closedSegments);
+    }
+
+    // Oldest timestamp in the log, archive included, or 0 if nothing was recorded yet
+    public synchronized long firstTimestamp() {
+        long oldest = Long.MAX_VALUE;
+        for (SessionArchive.Month month : archive.months()) {
+            oldest = Math.min(oldest, month.firstTimestamp);
+        }
+        for (Segment segment : segments()) {
+            if (segment.firstTimestamp != 0) {
+                oldest = Math.min(oldest, segment.firstTimestamp);
+            }
+        }
+        return (oldest == Long.MAX_VALUE) ? 0 : oldest;
+    }
+
+    // Archived months followed by the live segments, oldest first. Taken under the lock the archive holds while it
+    // swaps archived months for their segments, so no record is missed or seen twice.
+    public synchronized List<Source> sources() {
+        List<Source> sources = new ArrayList<>(archive.months());
+        sources.addAll(segments());
+        return sources;
+    }
+
+    // Visits every record in the time range, archived ones included, oldest first
+    public void scan(long fromMillis, long toMillis, RecordVisitor visitor) {
+        for (Source source : sources()) {
+            if (source.overlaps(fromMillis, toMillis)) {
+                source.scan(fromMillis, toMillis, visitor);
+            }
+        }
+    }
+
+    // Like scan, but without the ticks written between the last input and a backdated IDLE_START, so readers only
+    // see minutes that were actually spent on a block
+    public void scanActive(long fromMillis, long toMillis, RecordVisitor visitor) {
+        RecentTicks.Trimmer trimmer = new RecentTicks.Trimmer(fromMillis, toMillis, visitor);
+        scan(fromMillis - RecentTicks.REACH_MILLIS, toMillis, trimmer);
+        trimmer.finish();
+    }
+
+    // Rewrites closed months into the compressed archive and drops their raw segments
+    public int archiveClosedMonths() {
+        return archive.archiveClosedMonths(this);
+    }
+
+    // Called by the archive once the segments' records are safely archived
+    synchronized void dropSegments(Collection<Segment> archived) {
+        closedSegments.removeAll(archived);
+        for (Segment segment : archived) {
+            try {
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                // Still mapped on Windows. The archive lists it as archived, so it is skipped and deleted on the next start.
+                Log.warn("Could not delete archived segment " + segment.path.getFileName());
+            }
+        }
+    }
+
+    // Flushes mapped pages to disk, so events also survive a power loss
+    public synchronized void flush() {
+        active.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        active.force();
+        activeChannel.close();
+    }
+
+    private void rollOver() throws IOException {
+        active.putLong(LAST_TIMESTAMP_OFFSET, activeLastTimestamp);
+        active.force();
+        activeChannel.close();
+        closedSegments.add(new Segment(activePath, activeFirstTimestamp, activeLastTimestamp,
+                active.duplicate().limit(writePosition).asReadOnlyBuffer()));
+        startNewSegment();
+    }
+
+    private void startNewSegment() throws IOException {
+        activePath = directory.resolve(String.format("segment-%08d.log", nextSegmentNumber++));
+        activeChannel = FileChannel.open(activePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+        active.putInt(0, MAGIC);
+        active.putInt(4, VERSION);
+        writePosition = HEADER_SIZE;
+        activeFirstTimestamp = 0;
+        activeLastTimestamp = 0;
+    }
+
+    // Maps a sealed segment, ending it before the first record whose checksum doesn't match, so scans never
+    // hand a corrupted record to readers
+    private static Segment openClosedSegment(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long first = buffer.getLong(FIRST_TIMESTAMP_OFFSET);
+            long last = buffer.getLong(LAST_TIMESTAMP_OFFSET);
+            long[] tail = findTail(buffer);
+            if (tail[2] != 0) {
+                Log.warn("Corrupt record in " + path.getFileName() + " at offset " + tail[0] + ", ignoring the rest of it.");
+            }
+            if (last == 0 || tail[2] != 0) {
+                // Sealed without a max timestamp (e.g. a crash during rollover) or cut short, so take it from the records
+                last = tail[1];
+            }
+            return new Segment(path, first, last, buffer.limit((int) tail[0]));
+        }
+    }
+
+    // Maps the newest segment for writing and truncates it after the last record with a valid checksum
+    private void recoverActiveSegment(Path path) throws IOException {
+        activePath = path;
+        activeChannel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+        if (active.getInt(0) != MAGIC) {
+            active.putInt(0, MAGIC);
+            active.putInt(4, VERSION);
+        }
+
+        long[] tail = findTail(active);
+        if (tail[2] != 0) {
+            Log.warn("Corrupt record in " + path.getFileName() + " at offset " + tail[0] + ", truncating the log there.");
+        }
+        writePosition = (int) tail[0];
+        activeFirstTimestamp = active.getLong(FIRST_TIMESTAMP_OFFSET);
+        activeLastTimestamp = tail[1];
+
+        // Zero whatever a crash left behind, so it can't be mistaken for records later. After a corrupt record,
+        // intact records may follow it, and new appends would otherwise run into them.
+        int zeroUntil = (tail[2] != 0) ? SEGMENT_SIZE : Math.min(SEGMENT_SIZE, writePosition + 4096);
+        for (int i = writePosition; i < zeroUntil; i++) {
+            active.put(i, (byte) 0);
+        }
+    }
+
+    // Returns {end of the last valid record, max timestamp of all valid records, 1 if a record with a plausible
+    // length failed its checksum and 0 if the records simply ended}
+    private static long[] findTail(ByteBuffer buffer) {
+        CRC32 check = new CRC32();
+        int position = HEADER_SIZE;
+        long maxTimestamp = 0;
+        long corrupt = 0;
+        while (position + RECORD_OVERHEAD <= buffer.limit()) {
+            int length = buffer.getInt(position);
+            if (length < 11 || position + 8 + length > buffer.limit()) {
+                break;
+            }
+            check.reset();
+            check.update(buffer.slice(position + 8, length));
+            if ((int) check.getValue() != buffer.getInt(position + 4)) {
+                corrupt = 1;
+                break;
+            }
+            maxTimestamp = Math.max(maxTimestamp, buffer.getLong(position + 8));
+            position += 8 + length;
+        }
+        return new long[]{position, maxTimestamp, corrupt};
+    }
+
+    private static int segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring("segment-".length(), name.length() - ".log".length()));
+    }
+}
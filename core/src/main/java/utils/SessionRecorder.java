@@ -0,0 +1,114 @@
+package utils;
+
+import java.io.IOException;
+
+import model.TimeBlock;
+
+// Records what actually happened into the session log: when tracking starts and stops,
+// which block was active at every minute, every block transition, and when the user was away.
+public class SessionRecorder {
+    private static final int ROLLUP_SAVE_INTERVAL_TICKS = 15;
+
+    private final SessionLog log;
+    private final RollupStore rollups;
+    private String lastLabel;
+    private int ticksSinceRollupSave;
+    // Away from the computer, so minutes aren't counted as time spent on the block
+    private boolean idle;
+
+    public SessionRecorder(SessionLog log) {
+        this.log = log;
+        this.rollups = RollupStore.open(log);
+        log.addListener(rollups);
+    }
+
+    public SessionLog getLog() {
+        return log;
+    }
+
+    public RollupStore getRollups() {
+        return rollups;
+    }
+
+    // Marks the start of tracking, e.g. when the overlay launches
+    public synchronized void start(TimeBlock current) {
+        lastLabel = labelOf(current);
+        log.append(SessionLog.START, lastLabel);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "session-recorder-stop"));
+
+        // Compress months that ended since the last launch, off the startup path
+        Thread archiver = new Thread(() -> {
+            int archived = log.archiveClosedMonths();
+            if (archived > 0) {
+                Log.info("Archived " + archived + " session log segment(s).");
+            }
+        }, "session-archiver");
+        archiver.setDaemon(true);
+        archiver.start();
+    }
+
+    // Called once a minute with the block that is active right now
+    public synchronized void tick(TimeBlock current) {
+        String label = labelOf(current);
+        if (!label.equals(lastLabel)) {
+            // The transition event was missed (e.g. the machine slept), close the old block here
+            log.append(SessionLog.STOP, lastLabel);
+            log.append(SessionLog.START, label);
+            lastLabel = label;
+        }
+        if (!idle) {
+            log.append(SessionLog.TICK, label);
+        }
+        log.flush();
+
+        if (++ticksSinceRollupSave >= ROLLUP_SAVE_INTERVAL_TICKS) {
+            ticksSinceRollupSave = 0;
+            rollups.saveIfDirty();
+        }
+    }
+
+    public synchronized void transition(BlockEventEngine.TransitionEvent event) {
+        if (event.type == BlockEventEngine.TransitionType.START) {
+            if (lastLabel != null && !lastLabel.isEmpty()) {
+                log.append(SessionLog.STOP, lastLabel);
+            }
+            lastLabel = event.block.label;
+            log.append(SessionLog.START, lastLabel);
+        } else if (event.block.label.equals(lastLabel)) {
+            log.append(SessionLog.STOP, lastLabel);
+            lastLabel = "";
+        }
+    }
+
+    public synchronized void idleStarted(long timestamp) {
+        if (!idle && lastLabel != null) {
+            idle = true;
+            log.append(timestamp, SessionLog.IDLE_START, lastLabel);
+        }
+    }
+
+    public synchronized void idleEnded(long timestamp) {
+        if (idle && lastLabel != null) {
+            idle = false;
+            log.append(timestamp, SessionLog.IDLE_END, lastLabel);
+        }
+    }
+
+    public synchronized void stop() {
+        if (lastLabel == null) {
+            return;
+        }
+        log.append(SessionLog.STOP, lastLabel);
+        lastLabel = null;
+        rollups.saveIfDirty();
+        try {
+            log.close();
+        } catch (IOException e) {
+            Log.warn("Could not close session log.", e);
+        }
+    }
+
+    private static String labelOf(TimeBlock block) {
+        return (block == null) ? "" : block.label;
+    }
+}
@@ -0,0 +1,203 @@
+package utils;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Consumer;
+
+
+public class SingleInstance {
+    private static final String LOCK_FILE = "app.lock";
+    private static final String PORT_FILE = "app.port";
+    private static final int CONNECT_TIMEOUT_MS = 300;
+    // How long a second launch keeps trying while the running instance is still starting up
+    private static final int FORWARD_PATIENCE_MS = 5000;
+    private static final int FORWARD_RETRY_MS = 100;
+    private static final String ACK = "ok";
+
+    // Held for the lifetime of the JVM, releasing them would let a second instance start
+    private static FileChannel lockChannel;
+    private static FileLock lock;
+    private static ServerSocket serverSocket;
+    // Written to the port file and expected as the first line of a command, so a stale port file pointing at
+    // some other program is noticed instead of trusted
+    private static String token;
+    // Commands that arrived before there was a handler for them, e.g. while the overlay is being built
+    private static Consumer<String[]> handler;
+    private static final List<String[]> pending = new ArrayList<>();
+
+    // Tries to become the only running instance. Returns false if another instance holds the lock.
+    public static synchronized boolean acquire() {
+        try {
+            lockChannel = FileChannel.open(Paths.get(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        } catch (IOException e) {
+            // If the lock can't be created at all, don't block the user from starting the app
+            Log.warn("Could not create instance lock, continuing without it.");
+            return true;
+        }
+
+        if (lock == null) {
+            closeQuietly(lockChannel);
+            lockChannel = null;
+            return false;
+        }
+        return true;
+    }
+
+    // Sends the command-line action to the running instance. Returns true once the instance confirmed it. Retries
+    // for a few seconds, since the instance holding the lock may not have published its port yet.
+    public static boolean forward(String[] args) {
+        String[] command = (args.length == 0) ? new String[]{"show"} : args;
+        long giveUpAt = System.currentTimeMillis() + FORWARD_PATIENCE_MS;
+        while (true) {
+            if (tryForward(command)) {
+                return true;
+            }
+            if (System.currentTimeMillis() >= giveUpAt) {
+                return false;
+            }
+            try {
+                Thread.sleep(FORWARD_RETRY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private static boolean tryForward(String[] command) {
+        String[] published;
+        int port;
+        try {
+            published = new String(Files.readAllBytes(Paths.get(PORT_FILE)), StandardCharsets.UTF_8).trim().split("\\s+");
+            port = Integer.parseInt(published[0]);
+        } catch (IOException | NumberFormatException e) {
+            return false;
+        }
+        if (published.length < 2) {
+            return false; // Written by an older version, or left half-written
+        }
+
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MS);
+            socket.setSoTimeout(CONNECT_TIMEOUT_MS);
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            out.write(published[1]);
+            out.write('\n');
+            for (String arg : command) {
+                // One argument per line, labels can't contain line breaks anyway
+                out.write(arg.replace('\n', ' ').replace('\r', ' '));
+                out.write('\n');
+            }
+            out.flush();
+            socket.shutdownOutput();
+            // Only the instance that wrote the token answers; anything else on a stale port doesn't
+            String answer = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+            return ACK.equals(answer);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Starts accepting forwarded commands on a loopback port right after acquire(), so launches during startup
+    // aren't turned away. Commands are queued until handleWith() is called.
+    public static synchronized void listen() {
+        if (lock == null || serverSocket != null) {
+            return;
+        }
+
+        try {
+            serverSocket = new ServerSocket(0, 8, InetAddress.getLoopbackAddress());
+            byte[] secret = new byte[16];
+            new SecureRandom().nextBytes(secret);
+            token = HexFormat.of().formatHex(secret);
+            // Written next to the file and moved over it, so a second launch never reads half of it
+            Path temp = Paths.get(PORT_FILE + ".tmp");
+            Files.write(temp, (serverSocket.getLocalPort() + " " + token).getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, Paths.get(PORT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.warn("Could not open instance socket, forwarding disabled.", e);
+            return;
+        }
+
+        Thread acceptThread = new Thread(SingleInstance::acceptLoop, "instance-listener");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    // Hands every queued and future command to the handler
+    public static void handleWith(Consumer<String[]> commandHandler) {
+        List<String[]> queued;
+        synchronized (SingleInstance.class) {
+            handler = commandHandler;
+            queued = new ArrayList<>(pending);
+            pending.clear();
+        }
+        for (String[] command : queued) {
+            commandHandler.accept(command);
+        }
+    }
+
+    private static void dispatch(String[] command) {
+        Consumer<String[]> current;
+        synchronized (SingleInstance.class) {
+            current = handler;
+            if (current == null) {
+                pending.add(command);
+                return;
+            }
+        }
+        current.accept(command);
+    }
+
+    private static void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try (Socket client = serverSocket.accept()) {
+                client.setSoTimeout(CONNECT_TIMEOUT_MS);
+                BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+                if (!token.equals(in.readLine())) {
+                    continue; // Not one of our launches
+                }
+                List<String> command = new ArrayList<>();
+                String line;
+                while ((line = in.readLine()) != null) {
+                    command.add(line);
+                }
+                if (!command.isEmpty()) {
+                    dispatch(command.toArray(new String[0]));
+                }
+                Writer out = new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8);
+                out.write(ACK + "\n");
+                out.flush();
+            } catch (IOException e) {
+                // A misbehaving client shouldn't stop the listener
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            if (closeable != null) {
+                closeable.close();
+            }
+        } catch (IOException ignored) {
+        }
+    }
+}
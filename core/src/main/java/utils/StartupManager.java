@@ -37,7 +37,7 @@ public class StartupManager {
         try (FileOutputStream output = new FileOutputStream(SETTINGS_FILE)) {
             properties.store(output, "Startup Settings");
         } catch (IOException e) {
-            e.printStackTrace();
+            Log.error("Could not save startup preference.", e);
         }
     }
 
@@ -80,7 +80,7 @@ public class StartupManager {
                 Files.write(Paths.get(plistPath), plistContent.getBytes());
             }
         } catch (IOException e) {
-            e.printStackTrace();
+            Log.warn("Could not add the app to startup.", e);
         }
     }
 
@@ -106,7 +106,7 @@ public class StartupManager {
                 Files.deleteIfExists(Paths.get(plistPath));
             }
         } catch (IOException e) {
-            e.printStackTrace();
+            Log.warn("Could not remove the app from startup.", e);
         }
     }
 
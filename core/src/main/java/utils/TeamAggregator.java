@@ -0,0 +1,330 @@
+package utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+// Combines the session streams and rollups uploaded by many overlays into per-user and per-label totals.
+//
+//   POST /sessions  {"user": "...", "stream": "...", "seq": 0, "events": [{"t": millis, "type": 3, "label": "..."}, ...]}
+//   POST /rollups   {"user": "...", "at": millis, "day": "2026-10-19", "labels": {"label": actual minutes, ...}}
+//   GET  /stats     current totals as JSON
+//
+// A session batch whose stream and sequence number were already applied is skipped, so a client retrying an
+// upload that timed out after it was accepted doesn't count its minutes twice. Rollups are absolute and only
+// replace a stored one taken earlier, since workers may apply one user's rollups out of order.
+//
+// Usage: aggregate [port] [queue capacity]
+//
+// Every request runs on its own virtual thread, which parses the body and hands the batch to a bounded queue.
+// A few workers drain the queue into LongAdder counters, so concurrent updates to one label never contend on a
+// lock. When the queue stays full an upload is answered with 503 and Retry-After, and clients back off.
+public class TeamAggregator implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8765;
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final long OFFER_TIMEOUT_MILLIS = 200;
+    private static final int MAX_BODY_BYTES = 8 * 1024 * 1024;
+    // Applied sequence numbers remembered per stream; a retry never lags this far behind
+    private static final int SEQUENCE_WINDOW = 256;
+
+    private static final Metrics.Histogram APPLY_TIME = Metrics.histogram("aggregator.apply");
+    private static final LongAdder BATCHES = Metrics.counter("aggregator.batches");
+    private static final LongAdder EVENTS = Metrics.counter("aggregator.events");
+    private static final LongAdder REJECTED = Metrics.counter("aggregator.rejected");
+
+    private sealed interface Batch permits SessionBatch, RollupBatch {
+    }
+
+    // Stream and sequence are null and -1 for clients that don't number their batches
+    private record SessionBatch(String user, String stream, long sequence, long[] timestamps, byte[] types,
+                                String[] labels) implements Batch {
+    }
+
+    private record RollupBatch(String user, long takenAt, LocalDate day, Map<String, Long> actualMinutes) implements Batch {
+    }
+
+    private record Reported(long minutes, long takenAt) {
+    }
+
+    // Running totals for one user, label, or user and label
+    private static final class Totals {
+        final LongAdder trackedMinutes = new LongAdder();
+        final LongAdder rollupMinutes = new LongAdder();
+        final LongAdder transitions = new LongAdder();
+
+        JSONObject toJson() {
+            JSONObject obj = new JSONObject();
+            obj.put("trackedMinutes", trackedMinutes.sum());
+            obj.put("rollupMinutes", rollupMinutes.sum());
+            obj.put("transitions", transitions.sum());
+            return obj;
+        }
+    }
+
+    private final HttpServer server;
+    private final BlockingQueue<Batch> queue;
+    private final ExecutorService workers;
+    private final ExecutorService requestThreads = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final ConcurrentHashMap<String, Totals> byUser = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Totals> byLabel = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Totals>> byUserAndLabel = new ConcurrentHashMap<>();
+    // Last reported rollup per user, day and label. Rollups are absolute, so only the difference is added.
+    private final ConcurrentHashMap<String, Reported> lastRollups = new ConcurrentHashMap<>();
+    // Sequence numbers of the session batches applied per user and stream
+    private final ConcurrentHashMap<String, Set<Long>> appliedBatches = new ConcurrentHashMap<>();
+    // Recent ticks per user and stream, which a backdated idle marker in a later batch may take back
+    private final ConcurrentHashMap<String, RecentTicks> recentTicks = new ConcurrentHashMap<>();
+
+    public TeamAggregator(int port) throws IOException {
+        this(port, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public TeamAggregator(int port, int queueCapacity) throws IOException {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        int workerCount = Runtime.getRuntime().availableProcessors();
+        workers = Executors.newFixedThreadPool(workerCount, Thread.ofVirtual().name("aggregator-", 0).factory());
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::drain);
+        }
+
+        server = HttpServer.create(new InetSocketAddress(port), 256);
+        server.setExecutor(requestThreads);
+        server.createContext("/sessions", exchange -> ingest(exchange, TeamAggregator::parseSessions));
+        server.createContext("/rollups", exchange -> ingest(exchange, TeamAggregator::parseRollups));
+        server.createContext("/stats", this::stats);
+    }
+
+    public static void main(String[] args) {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int queueCapacity = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_QUEUE_CAPACITY;
+        try {
+            TeamAggregator aggregator = new TeamAggregator(port, queueCapacity);
+            aggregator.start();
+            Log.info("Aggregating team sessions on port " + port + ", totals at /stats.");
+        } catch (IOException e) {
+            Log.warn("Could not start aggregator on port " + port, e);
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private interface Parser {
+        Batch parse(JSONObject body);
+    }
+
+    private void ingest(HttpExchange exchange, Parser parser) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Use POST");
+                return;
+            }
+
+            Batch batch;
+            try {
+                batch = parser.parse(new JSONObject(readBody(exchange.getRequestBody())));
+            } catch (RuntimeException e) {
+                respond(exchange, 400, "Malformed batch: " + e.getMessage());
+                return;
+            }
+
+            boolean queued;
+            try {
+                queued = queue.offer(batch, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+            if (!queued) {
+                REJECTED.increment();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 503, "Busy, retry later");
+                return;
+            }
+            respond(exchange, 202, "");
+        }
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            throw new IllegalArgumentException("batch larger than " + MAX_BODY_BYTES + " bytes");
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static SessionBatch parseSessions(JSONObject body) {
+        String user = body.getString("user");
+        JSONArray events = body.getJSONArray("events");
+        long[] timestamps = new long[events.length()];
+        byte[] types = new byte[events.length()];
+        String[] labels = new String[events.length()];
+        for (int i = 0; i < events.length(); i++) {
+            JSONObject event = events.getJSONObject(i);
+            timestamps[i] = event.getLong("t");
+            types[i] = (byte) event.getInt("type");
+            labels[i] = event.optString("label", "");
+        }
+        return new SessionBatch(user, body.optString("stream", null), body.optLong("seq", -1), timestamps, types, labels);
+    }
+
+    private static RollupBatch parseRollups(JSONObject body) {
+        JSONObject labels = body.getJSONObject("labels");
+        Map<String, Long> actualMinutes = new HashMap<>();
+        for (String label : labels.keySet()) {
+            actualMinutes.put(label, labels.getLong(label));
+        }
+        return new RollupBatch(body.getString("user"), body.optLong("at", 0), LocalDate.parse(body.getString("day")), actualMinutes);
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                Batch batch = queue.take();
+                long applyStart = System.nanoTime();
+                switch (batch) {
+                    case SessionBatch sessions -> apply(sessions);
+                    case RollupBatch rollups -> apply(rollups);
+                }
+                BATCHES.increment();
+                APPLY_TIME.recordSince(applyStart);
+            }
+        } catch (InterruptedException e) {
+            // Shutting down
+        }
+    }
+
+    private void apply(SessionBatch batch) {
+        if (!firstApplication(batch)) {
+            return;
+        }
+        Totals user = byUser.computeIfAbsent(batch.user, k -> new Totals());
+        ConcurrentHashMap<String, Totals> userLabels = byUserAndLabel.computeIfAbsent(batch.user, k -> new ConcurrentHashMap<>());
+        RecentTicks ticks = recentTicks.computeIfAbsent(batch.user + '\n' + batch.stream, k -> new RecentTicks());
+        synchronized (ticks) {
+            for (int i = 0; i < batch.types.length; i++) {
+                String label = batch.labels[i];
+                switch (batch.types[i]) {
+                    case SessionLog.TICK -> {
+                        if (!label.isEmpty()) {
+                            addTracked(user, userLabels, label, 1);
+                            ticks.add(batch.timestamps[i], label);
+                        }
+                    }
+                    case SessionLog.START -> user.transitions.increment();
+                    // Minutes between the last input and noticing the absence weren't spent on the block
+                    case SessionLog.IDLE_START -> ticks.takeBackSince(batch.timestamps[i],
+                            (timestamp, tickLabel) -> addTracked(user, userLabels, tickLabel, -1));
+                    default -> {
+                        // Stops and idle ends don't change the totals
+                    }
+                }
+            }
+        }
+        EVENTS.add(batch.types.length);
+    }
+
+    private void addTracked(Totals user, ConcurrentHashMap<String, Totals> userLabels, String label, long minutes) {
+        user.trackedMinutes.add(minutes);
+        byLabel.computeIfAbsent(label, k -> new Totals()).trackedMinutes.add(minutes);
+        userLabels.computeIfAbsent(label, k -> new Totals()).trackedMinutes.add(minutes);
+    }
+
+    // False if the batch was applied before, e.g. sent again after the client timed out waiting for the answer
+    private boolean firstApplication(SessionBatch batch) {
+        if (batch.stream == null || batch.sequence < 0) {
+            return true;
+        }
+        Set<Long> applied = appliedBatches.computeIfAbsent(batch.user + '\n' + batch.stream, k -> ConcurrentHashMap.newKeySet());
+        if (!applied.add(batch.sequence)) {
+            return false;
+        }
+        if (applied.size() > SEQUENCE_WINDOW) {
+            applied.removeIf(sequence -> sequence <= batch.sequence - SEQUENCE_WINDOW);
+        }
+        return true;
+    }
+
+    private void apply(RollupBatch batch) {
+        Totals user = byUser.computeIfAbsent(batch.user, k -> new Totals());
+        ConcurrentHashMap<String, Totals> userLabels = byUserAndLabel.computeIfAbsent(batch.user, k -> new ConcurrentHashMap<>());
+        for (Map.Entry<String, Long> entry : batch.actualMinutes.entrySet()) {
+            String label = entry.getKey();
+            long[] delta = new long[1];
+            lastRollups.compute(batch.user + '\n' + batch.day + '\n' + label, (key, stored) -> {
+                if (stored != null && stored.takenAt >= batch.takenAt) {
+                    return stored; // A newer rollup was applied already
+                }
+                delta[0] = entry.getValue() - ((stored != null) ? stored.minutes : 0);
+                return new Reported(entry.getValue(), batch.takenAt);
+            });
+            if (delta[0] != 0) {
+                user.rollupMinutes.add(delta[0]);
+                byLabel.computeIfAbsent(label, k -> new Totals()).rollupMinutes.add(delta[0]);
+                userLabels.computeIfAbsent(label, k -> new Totals()).rollupMinutes.add(delta[0]);
+            }
+        }
+    }
+
+    private void stats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            JSONObject users = new JSONObject();
+            byUser.forEach((name, totals) -> {
+                JSONObject user = totals.toJson();
+                JSONObject labels = new JSONObject();
+                byUserAndLabel.getOrDefault(name, new ConcurrentHashMap<>()).forEach((label, t) -> labels.put(label, t.toJson()));
+                user.put("labels", labels);
+                users.put(name, user);
+            });
+            JSONObject labels = new JSONObject();
+            byLabel.forEach((label, totals) -> labels.put(label, totals.toJson()));
+
+            JSONObject stats = new JSONObject();
+            stats.put("users", users);
+            stats.put("labels", labels);
+            stats.put("batches", BATCHES.sum());
+            stats.put("events", EVENTS.sum());
+            stats.put("rejected", REJECTED.sum());
+            stats.put("queued", queue.size());
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            respond(exchange, 200, stats.toString(2));
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, (bytes.length == 0) ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+        requestThreads.shutdownNow();
+    }
+}
@@ -0,0 +1,161 @@
+package utils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+// Sends this overlay's session events and today's rollups to a TeamAggregator in batches.
+// Only runs when -Dtimetracker.aggregator.url is set. Appends just queue the event; a daemon thread uploads.
+// When the aggregator is away or pushing back, the batch is kept and retried, and new events beyond the
+// queue's capacity are dropped rather than slowing down recording. Session batches are numbered per launch, so
+// the aggregator can ignore one it already applied when a retry follows a timed-out but accepted upload.
+// Rollups carry the time they were taken, so an older one never replaces a newer one.
+public class TeamUploader implements SessionLog.RecordVisitor, AutoCloseable {
+    private static final long UPLOAD_INTERVAL_SECONDS = 30;
+    private static final int QUEUE_CAPACITY = 50_000;
+    private static final int MAX_BATCH_EVENTS = 5_000;
+
+    private static final LongAdder DROPPED = Metrics.counter("uploader.dropped");
+
+    private record Event(long timestamp, byte type, String label) {
+    }
+
+    private final String user;
+    private final URI sessionsUri;
+    private final URI rollupsUri;
+    private final RollupStore rollups;
+    private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ScheduledExecutorService uploader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "team-uploader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // A batch the aggregator didn't accept yet, sent again before anything newer
+    private String pendingSessions;
+    // Identifies this launch's batches; only touched on the uploader thread
+    private final String stream = UUID.randomUUID().toString();
+    private long nextSequence;
+
+    public TeamUploader(String url, String user, RollupStore rollups) {
+        this.user = user;
+        this.sessionsUri = URI.create(url + "/sessions");
+        this.rollupsUri = URI.create(url + "/rollups");
+        this.rollups = rollups;
+        uploader.scheduleWithFixedDelay(this::upload, UPLOAD_INTERVAL_SECONDS, UPLOAD_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // Null unless an aggregator is configured
+    public static TeamUploader startIfConfigured(SessionRecorder recorder) {
+        String url = System.getProperty("timetracker.aggregator.url");
+        if (url == null || url.isBlank()) {
+            return null;
+        }
+        TeamUploader teamUploader = new TeamUploader(url.trim(), System.getProperty("user.name"), recorder.getRollups());
+        recorder.getLog().addListener(teamUploader);
+        Log.info("Uploading sessions to " + url.trim());
+        return teamUploader;
+    }
+
+    // Session log append listener
+    @Override
+    public void visit(long timestamp, byte type, String label) {
+        if (!queue.offer(new Event(timestamp, type, label))) {
+            DROPPED.increment();
+        }
+    }
+
+    private void upload() {
+        try {
+            if (pendingSessions == null) {
+                pendingSessions = nextSessionBatch();
+            }
+            while (pendingSessions != null && send(sessionsUri, pendingSessions)) {
+                pendingSessions = nextSessionBatch();
+            }
+            send(rollupsUri, todaysRollup());
+        } catch (RuntimeException e) {
+            Log.warn("Team upload failed: " + e.getMessage());
+        }
+    }
+
+    private String nextSessionBatch() {
+        List<Event> drained = new ArrayList<>();
+        queue.drainTo(drained, MAX_BATCH_EVENTS);
+        if (drained.isEmpty()) {
+            return null;
+        }
+
+        JSONArray events = new JSONArray();
+        for (Event event : drained) {
+            JSONObject obj = new JSONObject();
+            obj.put("t", event.timestamp);
+            obj.put("type", event.type);
+            obj.put("label", event.label);
+            events.put(obj);
+        }
+        JSONObject batch = new JSONObject();
+        batch.put("user", user);
+        batch.put("stream", stream);
+        batch.put("seq", nextSequence++);
+        batch.put("events", events);
+        return batch.toString();
+    }
+
+    private String todaysRollup() {
+        LocalDate today = LocalDate.now();
+        JSONObject labels = new JSONObject();
+        for (Map.Entry<String, long[]> entry : rollups.day(today).entrySet()) {
+            labels.put(entry.getKey(), entry.getValue()[0]);
+        }
+        JSONObject batch = new JSONObject();
+        batch.put("user", user);
+        batch.put("at", System.currentTimeMillis());
+        batch.put("day", today.toString());
+        batch.put("labels", labels);
+        return batch.toString();
+    }
+
+    // True once the aggregator is done with the batch. Refused ones (4xx) count too, they'd never be accepted.
+    private boolean send(URI uri, String body) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status / 100 == 4) {
+                Log.warn("Aggregator refused a batch with status " + status);
+            }
+            return status < 500;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        uploader.shutdownNow();
+    }
+}
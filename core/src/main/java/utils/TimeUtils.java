@@ -0,0 +1,144 @@
+package utils;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import model.TimeBlock;
+
+public class TimeUtils {
+    private static final String TIMEBLOCKS_FILE = "timeblocks.json";
+    private static final Metrics.Histogram LOAD_TIME = Metrics.histogram("schedule.load");
+    private static final Metrics.Histogram SAVE_TIME = Metrics.histogram("schedule.save");
+
+    public static List<TimeBlock> getDefaultSchedule() {
+        File file = new File(TIMEBLOCKS_FILE);
+
+        // If the file is missing OR empty OR corrupt, regenerate defaults
+        if (!file.exists() || file.length() == 0 || isJsonCorrupt()) {
+            Log.info("Creating default schedule...");
+            List<TimeBlock> schedule = createDefaultSchedule();
+            saveScheduleToJson(schedule);
+            return schedule;
+        }
+
+        // If the file is valid, load it
+        return loadScheduleFromJson();
+    }
+
+    // Check if JSON file is corrupt
+    private static boolean isJsonCorrupt() {
+        try {
+            String json = new String(Files.readAllBytes(Paths.get(TIMEBLOCKS_FILE))).trim();
+            if (json.isEmpty() || json.equals("null") || json.equals("{}")) {
+                return true;
+            }
+            new JSONArray(json); // If parsing fails, the file is corrupt
+            return false;
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    // Create default schedule without saving
+    private static List<TimeBlock> createDefaultSchedule() {
+        List<TimeBlock> schedule = new ArrayList<>();
+        schedule.add(defaultBlock(LocalTime.of(6, 0), LocalTime.of(9, 0), "Leetcode & DSA"));
+        schedule.add(defaultBlock(LocalTime.of(9, 0), LocalTime.of(12, 0), "Real-World Project"));
+        schedule.add(defaultBlock(LocalTime.of(12, 0), LocalTime.of(15, 0), "Classwork & Study"));
+        schedule.add(defaultBlock(LocalTime.of(15, 0), LocalTime.of(17, 0), "Family & Workout"));
+        schedule.add(defaultBlock(LocalTime.of(17, 0), LocalTime.of(20, 0), "Portfolio & Open Source"));
+        schedule.add(defaultBlock(LocalTime.of(20, 0), LocalTime.of(22, 0), "Networking & Job Apps"));
+        schedule.add(defaultBlock(LocalTime.of(22, 0), LocalTime.of(23, 59), "Wind Down & Sleep"));
+        return schedule;
+    }
+
+    // Defaults get content-derived ids, so two devices starting fresh don't end up with every block twice
+    private static TimeBlock defaultBlock(LocalTime start, LocalTime end, String label) {
+        return new TimeBlock(TimeBlock.legacyId(start, end, label), start, end, label);
+    }
+
+    // Load Schedule from JSON File
+    private static List<TimeBlock> loadScheduleFromJson() {
+        long loadStart = System.nanoTime();
+        List<TimeBlock> schedule = new ArrayList<>();
+
+        try {
+            String json = new String(Files.readAllBytes(Paths.get(TIMEBLOCKS_FILE))).trim();
+            schedule = parseSchedule(json);
+        } catch (IOException e) {
+            Log.warn("Error loading schedule from JSON, using defaults.", e);
+            schedule = createDefaultSchedule();
+        } catch (Exception e) {
+            Log.warn("Corrupt JSON detected. Resetting to default.", e);
+            schedule = createDefaultSchedule();
+        }
+
+        LOAD_TIME.recordSince(loadStart);
+        Metrics.gauge("schedule.blocks").set(schedule.size());
+        return schedule;
+    }
+
+    // Blocks from a JSON array in the timeblocks.json format. Throws on malformed input.
+    public static List<TimeBlock> parseSchedule(String json) {
+        return blocksFromJson(new JSONArray(json));
+    }
+
+    // Reads blocks and, recursively, their children
+    public static List<TimeBlock> blocksFromJson(JSONArray jsonArray) {
+        List<TimeBlock> blocks = new ArrayList<>();
+        for (int i = 0; i < jsonArray.length(); i++) {
+            JSONObject obj = jsonArray.getJSONObject(i);
+            LocalTime start = LocalTime.parse(obj.getString("start"));
+            LocalTime end = LocalTime.parse(obj.getString("end"));
+            String label = obj.getString("label");
+            String id = obj.optString("id", null);
+
+            TimeBlock block = new TimeBlock((id != null) ? id : TimeBlock.legacyId(start, end, label), start, end, label);
+            JSONArray children = obj.optJSONArray("children");
+            if (children != null) {
+                block.children.addAll(blocksFromJson(children));
+            }
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
+    // Children are only written for blocks that have some, so flat schedules keep their old format
+    public static JSONArray blocksToJson(List<TimeBlock> blocks) {
+        JSONArray jsonArray = new JSONArray();
+        for (TimeBlock block : blocks) {
+            JSONObject obj = new JSONObject();
+            obj.put("id", block.id);
+            obj.put("start", block.start.toString());
+            obj.put("end", block.end.toString());
+            obj.put("label", block.label);
+            if (!block.children.isEmpty()) {
+                obj.put("children", blocksToJson(block.children));
+            }
+            jsonArray.put(obj);
+        }
+        return jsonArray;
+    }
+
+    // Save Schedule to JSON File
+    private static void saveScheduleToJson(List<TimeBlock> schedule) {
+        long saveStart = System.nanoTime();
+        JSONArray jsonArray = blocksToJson(schedule);
+
+        try (FileWriter file = new FileWriter(TIMEBLOCKS_FILE, false)) {
+            file.write(jsonArray.toString(4));
+            file.flush();
+        } catch (IOException e) {
+            Log.error("Could not save " + TIMEBLOCKS_FILE, e);
+        }
+        SAVE_TIME.recordSince(saveStart);
+    }
+}
@@ -0,0 +1,92 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.TimeBlock;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class IcsImporterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private List<String> importDay(String date, String... events) throws IOException {
+        StringBuilder calendar = new StringBuilder("BEGIN:VCALENDAR\r\n");
+        for (String event : events) {
+            calendar.append("BEGIN:VEVENT\r\n").append(event.replace("\n", "\r\n")).append("\r\nEND:VEVENT\r\n");
+        }
+        calendar.append("END:VCALENDAR\r\n");
+        Path file = folder.newFile().toPath();
+        Files.writeString(file, calendar, StandardCharsets.UTF_8);
+
+        List<String> blocks = new ArrayList<>();
+        for (TimeBlock block : IcsImporter.importDay(file, LocalDate.parse(date), IcsImporter.OverlapPolicy.SPLIT)) {
+            blocks.add(block.start + "-" + block.end + " " + block.label);
+        }
+        return blocks;
+    }
+
+    @Test
+    public void untilIsInclusive() throws IOException {
+        String event = "UID:a\nDTSTART:20260105T090000\nDTEND:20260105T100000\nRRULE:FREQ=DAILY;UNTIL=20260107T090000\nSUMMARY:Standup";
+        assertEquals(List.of("09:00-10:00 Standup"), importDay("2026-01-07", event));
+        assertEquals(List.of(), importDay("2026-01-08", event));
+
+        String dateOnly = "UID:b\nDTSTART:20260105T090000\nDTEND:20260105T100000\nRRULE:FREQ=DAILY;UNTIL=20260107\nSUMMARY:Standup";
+        assertEquals(List.of("09:00-10:00 Standup"), importDay("2026-01-07", dateOnly));
+    }
+
+    @Test
+    public void countLimitsWeeklyOccurrences() throws IOException {
+        // Monday, Wednesday, Friday starting on Monday the 5th: the third occurrence is Friday the 9th
+        String event = "UID:c\nDTSTART:20260105T170000\nDTEND:20260105T180000\nRRULE:FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=3\nSUMMARY:Gym";
+        assertEquals(List.of("17:00-18:00 Gym"), importDay("2026-01-09", event));
+        assertEquals(List.of(), importDay("2026-01-12", event));
+    }
+
+    @Test
+    public void keepsBothSpillOverAndSameDayOccurrence() throws IOException {
+        String event = "UID:d\nDTSTART:20260105T230000\nDTEND:20260106T010000\nRRULE:FREQ=DAILY\nSUMMARY:Night";
+        assertEquals(List.of("00:00-01:00 Night", "23:00-23:59 Night"), importDay("2026-01-06", event));
+    }
+
+    @Test
+    public void honoursExdateAndRecurrenceId() throws IOException {
+        String master = "UID:e\nDTSTART:20260105T090000\nDTEND:20260105T093000\nRRULE:FREQ=DAILY\nEXDATE:20260106T090000\nSUMMARY:Standup";
+        String moved = "UID:e\nRECURRENCE-ID:20260107T090000\nDTSTART:20260107T140000\nDTEND:20260107T143000\nSUMMARY:Standup moved";
+        assertEquals(List.of(), importDay("2026-01-06", master, moved));
+        assertEquals(List.of("14:00-14:30 Standup moved"), importDay("2026-01-07", moved, master));
+        assertEquals(List.of("09:00-09:30 Standup"), importDay("2026-01-08", master, moved));
+    }
+
+    @Test
+    public void unsupportedRuleKeepsFirstOccurrence() throws IOException {
+        String event = "UID:f\nDTSTART:20260107T150000\nDTEND:20260107T160000\nRRULE:FREQ=YEARLY;BYMONTH=1;BYDAY=1WE\nSUMMARY:Review";
+        assertEquals(List.of("15:00-16:00 Review"), importDay("2026-01-07", event));
+    }
+
+    @Test
+    public void monthlyRepeatsOnTheSameDay() throws IOException {
+        String event = "UID:g\nDTSTART:20260131T120000\nDTEND:20260131T130000\nRRULE:FREQ=MONTHLY;COUNT=2\nSUMMARY:Report";
+        // February has no 31st, so the second occurrence is in March
+        assertEquals(List.of(), importDay("2026-02-28", event));
+        assertEquals(List.of("12:00-13:00 Report"), importDay("2026-03-31", event));
+        assertEquals(List.of(), importDay("2026-05-31", event));
+    }
+
+    @Test
+    public void splitsOverlapsWithJoinedLabels() throws IOException {
+        String first = "UID:h\nDTSTART:20260105T090000\nDTEND:20260105T110000\nSUMMARY:A";
+        String second = "UID:i\nDTSTART:20260105T100000\nDTEND:20260105T120000\nSUMMARY:B";
+        assertEquals(List.of("09:00-10:00 A", "10:00-11:00 A / B", "11:00-12:00 B"), importDay("2026-01-05", first, second));
+    }
+}
@@ -0,0 +1,102 @@
+package utils;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.TimeBlock;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ScheduleValidatorTest {
+    private static final LocalTime START_OF_DAY = LocalTime.of(6, 0);
+
+    private static TimeBlock block(String start, String end, String label) {
+        return new TimeBlock(LocalTime.parse(start), LocalTime.parse(end), label);
+    }
+
+    private static List<TimeBlock> others(List<ScheduleValidator.Conflict> conflicts, ScheduleValidator.Kind kind) {
+        List<TimeBlock> others = new ArrayList<>();
+        for (ScheduleValidator.Conflict conflict : conflicts) {
+            if (conflict.kind() == kind) {
+                others.add(conflict.other());
+            }
+        }
+        return others;
+    }
+
+    @Test
+    public void rejectsOnlyEmptyRanges() {
+        ScheduleValidator validator = new ScheduleValidator(List.of(), START_OF_DAY);
+
+        List<ScheduleValidator.Conflict> empty = validator.check(LocalTime.of(9, 0), LocalTime.of(9, 0), null);
+        assertEquals(1, empty.size());
+        assertTrue(empty.get(0).isError());
+
+        // Past midnight is a valid range, not an inverted one
+        assertTrue(validator.check(LocalTime.of(22, 0), LocalTime.of(2, 0), null).isEmpty());
+    }
+
+    @Test
+    public void findsOverlapWithBlockPastMidnight() {
+        TimeBlock night = block("22:00", "02:00", "Night");
+        ScheduleValidator validator = new ScheduleValidator(List.of(night), START_OF_DAY);
+
+        assertEquals(List.of(night), others(validator.check(LocalTime.of(1, 0), LocalTime.of(3, 0), null), ScheduleValidator.Kind.OVERLAP));
+        assertEquals(List.of(night), others(validator.check(LocalTime.of(21, 0), LocalTime.of(23, 0), null), ScheduleValidator.Kind.OVERLAP));
+    }
+
+    @Test
+    public void findsOverlapWithBlockWrappingTheStartOfDay() {
+        TimeBlock early = block("05:00", "07:00", "Early");
+        ScheduleValidator validator = new ScheduleValidator(List.of(early), START_OF_DAY);
+
+        assertEquals(List.of(early), others(validator.check(LocalTime.of(6, 30), LocalTime.of(6, 45), null), ScheduleValidator.Kind.OVERLAP));
+        assertEquals(List.of(early), others(validator.check(LocalTime.of(4, 0), LocalTime.of(5, 30), null), ScheduleValidator.Kind.OVERLAP));
+    }
+
+    @Test
+    public void findsBlockInsideLongEarlierBlock() {
+        TimeBlock work = block("08:00", "18:00", "Work");
+        TimeBlock meeting = block("09:00", "09:30", "Meeting");
+        ScheduleValidator validator = new ScheduleValidator(List.of(work, meeting), START_OF_DAY);
+
+        List<ScheduleValidator.Conflict> conflicts = validator.check(LocalTime.of(9, 30), LocalTime.of(10, 0), null);
+        assertEquals(List.of(work), others(conflicts, ScheduleValidator.Kind.OVERLAP));
+        // Inside another block there is no gap on either side
+        assertTrue(others(conflicts, ScheduleValidator.Kind.GAP).isEmpty());
+    }
+
+    @Test
+    public void measuresGapsFromTheLatestEndingBlock() {
+        TimeBlock longer = block("08:00", "12:00", "Longer");
+        TimeBlock shorter = block("09:00", "10:00", "Shorter");
+        TimeBlock afternoon = block("14:00", "15:00", "Afternoon");
+        ScheduleValidator validator = new ScheduleValidator(List.of(longer, shorter, afternoon), START_OF_DAY);
+
+        List<ScheduleValidator.Conflict> conflicts = validator.check(LocalTime.of(12, 30), LocalTime.of(13, 0), null);
+        assertEquals(2, conflicts.size());
+        assertSame(longer, conflicts.get(0).other());
+        assertEquals("Gap of 30 min after \"Longer\".", conflicts.get(0).message());
+        assertSame(afternoon, conflicts.get(1).other());
+        assertEquals("Gap of 60 min before \"Afternoon\".", conflicts.get(1).message());
+    }
+
+    @Test
+    public void ignoresTheEditedBlockAndFollowsUpdates() {
+        TimeBlock morning = block("09:00", "10:00", "Morning");
+        TimeBlock noon = block("12:00", "13:00", "Noon");
+        ScheduleValidator validator = new ScheduleValidator(List.of(morning, noon), START_OF_DAY);
+
+        assertTrue(others(validator.check(LocalTime.of(9, 30), LocalTime.of(10, 0), morning), ScheduleValidator.Kind.OVERLAP).isEmpty());
+
+        morning.start = LocalTime.of(11, 0);
+        morning.end = LocalTime.of(12, 30);
+        validator.update(morning);
+        assertEquals(List.of(morning, noon), others(validator.check(LocalTime.of(11, 30), LocalTime.of(12, 15), null), ScheduleValidator.Kind.OVERLAP));
+
+        validator.remove(noon);
+        assertEquals(List.of(morning), others(validator.check(LocalTime.of(11, 30), LocalTime.of(12, 15), null), ScheduleValidator.Kind.OVERLAP));
+    }
+}
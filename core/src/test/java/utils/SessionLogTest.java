@@ -0,0 +1,106 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class SessionLogTest {
+    // Header, then per record: length, CRC, timestamp, type, label length and a one-byte label
+    private static final int HEADER_SIZE = 24;
+    private static final int RECORD_SIZE = 4 + 4 + 8 + 1 + 2 + 1;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<Long> timestamps(SessionLog log) {
+        List<Long> timestamps = new ArrayList<>();
+        log.scan(0, Long.MAX_VALUE, (timestamp, type, label) -> timestamps.add(timestamp));
+        return timestamps;
+    }
+
+    private static void overwrite(Path file, long offset, byte... bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), offset);
+        }
+    }
+
+    @Test
+    public void recordsSurviveReopening() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        try (SessionLog log = new SessionLog(directory)) {
+            for (long minute = 1; minute <= 3; minute++) {
+                log.append(minute * 60_000, SessionLog.TICK, "w");
+            }
+        }
+        try (SessionLog log = new SessionLog(directory)) {
+            assertEquals(List.of(60_000L, 120_000L, 180_000L), timestamps(log));
+            log.append(240_000, SessionLog.TICK, "w");
+            assertEquals(4, timestamps(log).size());
+        }
+    }
+
+    @Test
+    public void recoveryStopsAtTheFirstBadChecksum() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        try (SessionLog log = new SessionLog(directory)) {
+            for (long minute = 1; minute <= 5; minute++) {
+                log.append(minute * 60_000, SessionLog.TICK, "w");
+            }
+        }
+        // Flip the label of the third record; its length still looks valid
+        overwrite(directory.resolve("segment-00000000.log"), HEADER_SIZE + 2 * RECORD_SIZE + 19, (byte) 'x');
+
+        try (SessionLog log = new SessionLog(directory)) {
+            assertEquals(List.of(60_000L, 120_000L), timestamps(log));
+            // Appends continue after the last good record, and the intact records after the bad one stay gone
+            log.append(600_000, SessionLog.TICK, "w");
+        }
+        try (SessionLog log = new SessionLog(directory)) {
+            assertEquals(List.of(60_000L, 120_000L, 600_000L), timestamps(log));
+        }
+    }
+
+    @Test
+    public void tornRecordReadsAsTheEnd() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        try (SessionLog log = new SessionLog(directory)) {
+            log.append(60_000, SessionLog.TICK, "w");
+            log.append(120_000, SessionLog.TICK, "w");
+        }
+        // A crash before the length was published leaves it zero
+        overwrite(directory.resolve("segment-00000000.log"), HEADER_SIZE + RECORD_SIZE, new byte[4]);
+
+        try (SessionLog log = new SessionLog(directory)) {
+            assertEquals(List.of(60_000L), timestamps(log));
+        }
+    }
+
+    @Test
+    public void scanActiveLeavesOutTicksTakenBackByIdleMarker() throws IOException {
+        try (SessionLog log = new SessionLog(folder.newFolder().toPath())) {
+            for (long minute = 1; minute <= 10; minute++) {
+                log.append(minute * 60_000, SessionLog.TICK, "w");
+            }
+            // Noticed after ten minutes, but the last input was just before the sixth tick
+            log.append(6 * 60_000 - 1, SessionLog.IDLE_START, "w");
+
+            List<Long> ticks = new ArrayList<>();
+            log.scanActive(0, Long.MAX_VALUE, (timestamp, type, label) -> {
+                if (type == SessionLog.TICK) {
+                    ticks.add(timestamp);
+                }
+            });
+            assertEquals(List.of(60_000L, 120_000L, 180_000L, 240_000L, 300_000L), ticks);
+        }
+    }
+}
@@ -11,4 +11,4 @@ plugins {
 }
 
 rootProject.name = "time-tracker-app"
-include("app")
+include("core", "ui")
@@ -0,0 +1,30 @@
+plugins {
+    id("application")
+    id("java")
+}
+
+dependencies {
+    implementation(project(":core"))
+}
+
+application {
+    mainClass.set("Main")
+}
+
+// Data files are read relative to the working directory, which used to be the project root
+tasks.named<JavaExec>("run") {
+    workingDir = rootDir
+}
+
+tasks.jar {
+    manifest {
+        attributes["Main-Class"] = "Main"
+    }
+
+    // Include all dependencies inside the JAR (Fat JAR)
+    from ({
+        configurations.runtimeClasspath.get().map { if (it.isDirectory) it else zipTree(it) }
+    })
+
+    duplicatesStrategy = DuplicatesStrategy.EXCLUDE
+}
@@ -0,0 +1,63 @@
+import javax.swing.SwingUtilities;
+import java.util.Arrays;
+import ui.BatchRenderer;
+import ui.EdtWatchdog;
+import ui.TimeTrackerFrame;
+import utils.AggregatorLoadGenerator;
+import utils.Log;
+import utils.Metrics;
+import utils.SingleInstance;
+import utils.StartupManager;
+import utils.TeamAggregator;
+
+public class Main {
+    public static void main(String[] args) {
+        // Uncaught exceptions end up in logs/, with the events leading up to them
+        Log.installCrashHandler();
+
+        // Day bar snapshots to PNG; needs no display, so it skips the overlay and the single-instance lock
+        if (args.length > 0 && args[0].equalsIgnoreCase("render")) {
+            System.setProperty("java.awt.headless", "true");
+            BatchRenderer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // Team dashboard backend and its load generator; also headless, and several may run on one machine
+        if (args.length > 0 && args[0].equalsIgnoreCase("aggregate")) {
+            TeamAggregator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equalsIgnoreCase("loadgen")) {
+            try {
+                AggregatorLoadGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            } catch (Exception e) {
+                Log.error("Load generator failed: " + e.getMessage(), e);
+            }
+            return;
+        }
+
+        // Hand the action over to an already running overlay, before any AWT class is touched
+        if (!SingleInstance.acquire()) {
+            if (!SingleInstance.forward(args)) {
+                Log.warn("Another instance is already running but did not respond.");
+            }
+            return;
+        }
+        // Accept forwarded actions right away; they wait in a queue until the overlay exists
+        SingleInstance.listen();
+
+        Metrics.register();
+
+        // Startup Logic before launching UI
+        StartupManager.checkAndHandleStartup();
+
+        // Log stack traces whenever the UI thread stops responding, including during startup
+        new EdtWatchdog(500).start();
+
+        TimeTrackerFrame frame = new TimeTrackerFrame();
+        if (args.length > 0) {
+            SwingUtilities.invokeLater(() -> frame.handleCommand(args));
+        }
+        SingleInstance.handleWith(command -> SwingUtilities.invokeLater(() -> frame.handleCommand(command)));
+    }
+}
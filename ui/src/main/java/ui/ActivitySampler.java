@@ -0,0 +1,144 @@
+package ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.AWTEventListener;
+import utils.Metrics;
+import utils.SessionRecorder;
+
+// Notices when the user is away, so idle stretches show up in the session log instead of as tracked time.
+//
+// Input inside the app's own windows is seen through a global AWTEventListener, which only sets a flag. The
+// pointer moving anywhere else on screen is caught by polling MouseInfo every few seconds. Per minute only one
+// bit is kept, "was there any input", in a ring covering the last day, so nothing is allocated per event and
+// the sampler costs a few microseconds every SAMPLE_MILLIS. The user counts as away once the ring has no input
+// for the last idleMinutes, and the idle stretch is logged from the end of the last minute with input.
+public class ActivitySampler implements AWTEventListener {
+    private static final int SAMPLE_MILLIS = 5000;
+    private static final int RING_MINUTES = 1440;
+    private static final long INPUT_EVENTS = AWTEvent.KEY_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK
+            | AWTEvent.MOUSE_MOTION_EVENT_MASK | AWTEvent.MOUSE_WHEEL_EVENT_MASK;
+
+    private static final Metrics.Histogram SAMPLE_TIME = Metrics.histogram("activity.sample");
+
+    private final SessionRecorder recorder;
+    private final Timer sampleTimer;
+    private int idleMinutes;
+
+    // One bit per minute since the epoch, modulo RING_MINUTES
+    private final long[] activeBits = new long[RING_MINUTES / 64 + 1];
+    private long currentMinute;
+    private boolean idle;
+
+    // Only touched on the EDT, where AWT listeners and Swing timers run
+    private boolean inputSeen;
+    private int lastPointerX = Integer.MIN_VALUE;
+    private int lastPointerY = Integer.MIN_VALUE;
+
+    public ActivitySampler(SessionRecorder recorder, int idleMinutes) {
+        this.recorder = recorder;
+        setIdleMinutes(idleMinutes);
+        currentMinute = System.currentTimeMillis() / 60_000;
+        // Launching counts as input, so the first idle stretch can't start before it
+        markActive(currentMinute);
+        sampleTimer = new Timer(SAMPLE_MILLIS, e -> sample());
+    }
+
+    public void start() {
+        Toolkit.getDefaultToolkit().addAWTEventListener(this, INPUT_EVENTS);
+        sampleTimer.start();
+    }
+
+    public void stop() {
+        sampleTimer.stop();
+        Toolkit.getDefaultToolkit().removeAWTEventListener(this);
+    }
+
+    // Minutes without any input before the user counts as away
+    public void setIdleMinutes(int idleMinutes) {
+        this.idleMinutes = Math.max(1, idleMinutes);
+    }
+
+    @Override
+    public void eventDispatched(AWTEvent event) {
+        inputSeen = true;
+    }
+
+    // Whether there was input during the given minute since the epoch, for minutes within the last day
+    private boolean wasActive(long epochMinute) {
+        if (epochMinute > currentMinute || epochMinute <= currentMinute - RING_MINUTES) {
+            return false;
+        }
+        int slot = (int) (epochMinute % RING_MINUTES);
+        return (activeBits[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    private void markActive(long epochMinute) {
+        int slot = (int) (epochMinute % RING_MINUTES);
+        activeBits[slot >>> 6] |= 1L << slot;
+    }
+
+    // The latest minute with input, or the oldest minute the ring still covers if there was none
+    private long lastActiveMinute() {
+        long minute = currentMinute;
+        while (minute > currentMinute - RING_MINUTES + 1 && !wasActive(minute)) {
+            minute--;
+        }
+        return minute;
+    }
+
+    private void sample() {
+        long sampleStart = System.nanoTime();
+        long now = System.currentTimeMillis();
+        long minute = now / 60_000;
+        if (minute != currentMinute) {
+            advanceTo(minute);
+        }
+
+        // Null without a mouse or on platforms that don't report it; then only our own windows count
+        PointerInfo pointer = MouseInfo.getPointerInfo();
+        if (pointer != null) {
+            Point location = pointer.getLocation();
+            if (location.x != lastPointerX || location.y != lastPointerY) {
+                // The very first sample only sets the starting position
+                inputSeen |= lastPointerX != Integer.MIN_VALUE;
+                lastPointerX = location.x;
+                lastPointerY = location.y;
+            }
+        }
+
+        if (inputSeen) {
+            inputSeen = false;
+            markActive(minute);
+            if (idle) {
+                idle = false;
+                recorder.idleEnded(now);
+            }
+        } else if (!idle && !activeWithin(minute, idleMinutes)) {
+            idle = true;
+            // Backdated to when input stopped; readers take back the minutes counted since
+            recorder.idleStarted((lastActiveMinute() + 1) * 60_000);
+        }
+        SAMPLE_TIME.recordSince(sampleStart);
+    }
+
+    // Whether this minute or any of the ones before it, the given number of minutes in all, had input
+    private boolean activeWithin(long minute, int minutes) {
+        for (long m = minute; m > minute - minutes; m--) {
+            if (wasActive(m)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Clears the bits of minutes the ring is about to reuse, at most one full turn
+    private void advanceTo(long minute) {
+        long from = Math.max(currentMinute + 1, minute - RING_MINUTES + 1);
+        for (long m = from; m <= minute; m++) {
+            int slot = (int) (m % RING_MINUTES);
+            activeBits[slot >>> 6] &= ~(1L << slot);
+        }
+        currentMinute = minute;
+    }
+}
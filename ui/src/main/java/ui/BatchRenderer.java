@@ -0,0 +1,186 @@
+package ui;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.*;
+import model.TimeBlock;
+import utils.Log;
+import utils.Metrics;
+import utils.RecurrenceEngine;
+import utils.ScheduleProfiles;
+import utils.TimeUtils;
+
+
+// Renders each day's bar to a PNG without a display, using ProgressBar's own painting code.
+// Every worker thread keeps one bar, one image buffer and one PNG writer, and reuses them for all its days.
+//
+// Usage: render <from yyyy-mm-dd> <to yyyy-mm-dd> <output dir> [width height]
+public class BatchRenderer {
+    private static final String SETTINGS_FILE = "settings.properties";
+    // The overlay's button row takes this much of the frame height
+    private static final int BUTTON_PANEL_HEIGHT = 40;
+
+    private static final Metrics.Histogram RENDER_TIME = Metrics.histogram("batchRenderer.day");
+
+    // One worker thread's reusable state
+    private static final class Worker {
+        final ProgressBar bar;
+        final BufferedImage image;
+        final ImageWriter writer;
+
+        Worker(Properties settings, int width, int height) {
+            bar = new ProgressBar(new ArrayList<>(),
+                    LocalTime.parse(settings.getProperty("startOfDay", "06:00")),
+                    color(settings, "progressBarColor", new Color(18, 97, 150, 170)),
+                    color(settings, "timelineColor", new Color(140, 0, 0, 255)),
+                    color(settings, "currentTimeColor", new Color(255, 0, 0, 255)),
+                    color(settings, "blockColor", new Color(255, 255, 255, 128)),
+                    color(settings, "blockHoverColor", new Color(34, 34, 139, 200)),
+                    color(settings, "blockBorderColor", Color.BLACK));
+            bar.stopRefreshing();
+            bar.setSize(width, height);
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            writer = ImageIO.getImageWritersByFormatName("png").next();
+        }
+
+        void render(List<TimeBlock> plan, LocalTime shownTime, Path file) throws IOException {
+            bar.setTimeBlocks(plan);
+            bar.setShownTime(shownTime);
+
+            Graphics2D g = image.createGraphics();
+            try {
+                g.setComposite(AlphaComposite.Clear);
+                g.fillRect(0, 0, image.getWidth(), image.getHeight());
+                g.setComposite(AlphaComposite.SrcOver);
+                bar.paintComponent(g);
+            } finally {
+                g.dispose();
+            }
+
+            // Encoded straight into the file, without an intermediate byte array
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+                 MemoryCacheImageOutputStream imageOut = new MemoryCacheImageOutputStream(out)) {
+                writer.setOutput(imageOut);
+                writer.write(image);
+            } finally {
+                writer.reset();
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: render <from yyyy-mm-dd> <to yyyy-mm-dd> <output dir> [width height]");
+            return;
+        }
+
+        try {
+            LocalDate from = LocalDate.parse(args[0]);
+            LocalDate to = LocalDate.parse(args[1]);
+            Path outputDirectory = Paths.get(args[2]);
+            Properties settings = loadSettings();
+            int width = (args.length >= 5) ? Integer.parseInt(args[3]) : Integer.parseInt(settings.getProperty("frameWidth", "1200"));
+            int height = (args.length >= 5) ? Integer.parseInt(args[4])
+                    : Integer.parseInt(settings.getProperty("frameHeight", "200")) - BUTTON_PANEL_HEIGHT;
+
+            // The everyday schedule of the profile the overlay last used
+            String profile = settings.getProperty("activeProfile", ScheduleProfiles.DEFAULT_PROFILE);
+            List<TimeBlock> everyday = profile.equals(ScheduleProfiles.DEFAULT_PROFILE)
+                    ? TimeUtils.getDefaultSchedule() : new ScheduleProfiles().load(profile);
+            RecurrenceEngine recurrence = RecurrenceEngine.load(everyday);
+            long start = System.nanoTime();
+            int rendered = render(recurrence, from, to, outputDirectory, settings, width, height);
+            System.out.printf("Rendered %d day(s) to %s in %d ms.%n", rendered, outputDirectory, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            Log.warn("Rendering failed: " + e.getMessage(), e);
+        }
+    }
+
+    // Renders the inclusive date range on a bounded pool. Returns the number of images written.
+    public static int render(RecurrenceEngine recurrence, LocalDate from, LocalDate to, Path outputDirectory,
+                             Properties settings, int width, int height) throws IOException, InterruptedException {
+        Files.createDirectories(outputDirectory);
+        int threads = Runtime.getRuntime().availableProcessors();
+        Queue<Worker> allWorkers = new ConcurrentLinkedQueue<>();
+        ThreadLocal<Worker> workers = ThreadLocal.withInitial(() -> {
+            Worker worker = new Worker(settings, width, height);
+            allWorkers.add(worker);
+            return worker;
+        });
+
+        // A short queue keeps pending days from piling up; when it's full the submitting thread renders too
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        List<Future<?>> results = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        LocalTime startOfDay = LocalTime.parse(settings.getProperty("startOfDay", "06:00"));
+
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            // Plans are resolved here, so the recurrence cache is only used from one thread
+            List<TimeBlock> plan = recurrence.planSnapshot(date);
+            LocalTime shownTime = date.isBefore(today) ? startOfDay.minusMinutes(1)
+                    : date.isAfter(today) ? startOfDay : LocalTime.now();
+            Path file = outputDirectory.resolve("day-" + date + ".png");
+            results.add(pool.submit(() -> {
+                long renderStart = System.nanoTime();
+                try {
+                    workers.get().render(plan, shownTime, file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                RENDER_TIME.recordSince(renderStart);
+            }));
+        }
+
+        pool.shutdown();
+        int rendered = 0;
+        try {
+            for (Future<?> result : results) {
+                try {
+                    result.get();
+                    rendered++;
+                } catch (ExecutionException e) {
+                    Log.warn("Could not render a day: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            for (Worker worker : allWorkers) {
+                worker.writer.dispose();
+            }
+        }
+        return rendered;
+    }
+
+    // Same keys and defaults as the overlay's settings
+    private static Properties loadSettings() {
+        Properties settings = new Properties();
+        try (FileInputStream input = new FileInputStream(SETTINGS_FILE)) {
+            settings.load(input);
+        } catch (IOException e) {
+            Log.info("No previous settings found, using defaults.");
+        }
+        return settings;
+    }
+
+    private static Color color(Properties settings, String key, Color fallback) {
+        return new Color(Integer.parseInt(settings.getProperty(key, String.valueOf(fallback.getRGB()))), true);
+    }
+}
@@ -0,0 +1,128 @@
+package ui;
+
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import utils.Log;
+import utils.Metrics;
+
+
+// Heartbeats the Event Dispatch Thread and logs a stack trace whenever it stops responding
+public class EdtWatchdog {
+    private static final String LOG_FILE = "edt-stalls.log";
+    private static final long MAX_LOG_BYTES = 1024 * 1024;
+    private static final long HEARTBEAT_INTERVAL_MS = 250;
+
+    private static final Metrics.Histogram HEARTBEAT_DELAY = Metrics.histogram("edt.heartbeatDelay");
+
+    private final long thresholdNanos;
+
+    // Written by the heartbeat on the EDT, read by the watchdog thread
+    private volatile Thread edtThread;
+    private volatile boolean heartbeatPending;
+    private volatile long heartbeatPostedNanos;
+    private volatile long heartbeatCompletedNanos;
+
+    private StackTraceElement[] stallStack;
+    private LocalDateTime stallStartedAt;
+    private Thread watchdogThread;
+
+    public EdtWatchdog(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    public synchronized void start() {
+        if (watchdogThread != null) {
+            return;
+        }
+        watchdogThread = new Thread(this::runLoop, "edt-watchdog");
+        watchdogThread.setDaemon(true);
+        watchdogThread.start();
+    }
+
+    public synchronized void stop() {
+        if (watchdogThread != null) {
+            watchdogThread.interrupt();
+            watchdogThread = null;
+        }
+    }
+
+    private void runLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            if (!heartbeatPending) {
+                if (stallStack != null) {
+                    // The EDT caught up, log the stall now that its full duration is known
+                    recordStall(heartbeatCompletedNanos - heartbeatPostedNanos);
+                    stallStack = null;
+                }
+                postHeartbeat();
+            } else if (stallStack == null && System.nanoTime() - heartbeatPostedNanos > thresholdNanos) {
+                // Capture while the EDT is still stuck, so the trace shows what's blocking it
+                Thread edt = (edtThread != null) ? edtThread : findEdt();
+                stallStack = (edt != null) ? edt.getStackTrace() : new StackTraceElement[0];
+                stallStartedAt = LocalDateTime.now().minusNanos(System.nanoTime() - heartbeatPostedNanos);
+            }
+
+            try {
+                Thread.sleep(HEARTBEAT_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // Before the first heartbeat ran the EDT is only known by its name, e.g. when startup stalls it
+    private static Thread findEdt() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("AWT-EventQueue")) {
+                return thread;
+            }
+        }
+        return null;
+    }
+
+    private void postHeartbeat() {
+        heartbeatPending = true;
+        heartbeatPostedNanos = System.nanoTime();
+        SwingUtilities.invokeLater(() -> {
+            edtThread = Thread.currentThread();
+            heartbeatCompletedNanos = System.nanoTime();
+            HEARTBEAT_DELAY.record(heartbeatCompletedNanos - heartbeatPostedNanos);
+            heartbeatPending = false;
+        });
+    }
+
+    private void recordStall(long durationNanos) {
+        Metrics.counter("edt.stalls").increment();
+        Log.warn("EDT stalled for " + TimeUnit.NANOSECONDS.toMillis(durationNanos) + " ms, stack trace in " + LOG_FILE);
+
+        File logFile = new File(LOG_FILE);
+        if (logFile.length() > MAX_LOG_BYTES) {
+            // Keep a single previous generation so the log can't grow forever
+            File previous = new File(LOG_FILE + ".1");
+            if (previous.exists() && !previous.delete()) {
+                Log.warn("Could not rotate " + LOG_FILE);
+            }
+            if (!logFile.renameTo(previous)) {
+                Log.warn("Could not rotate " + LOG_FILE);
+            }
+        }
+
+        try (PrintWriter out = new PrintWriter(new FileWriter(logFile, true))) {
+            out.println(stallStartedAt + " EDT stalled for " + TimeUnit.NANOSECONDS.toMillis(durationNanos) + " ms");
+            if (stallStack.length == 0) {
+                out.println("\t(the EDT could not be found to capture its stack)");
+            }
+            for (StackTraceElement element : stallStack) {
+                out.println("\tat " + element);
+            }
+            out.println();
+        } catch (IOException e) {
+            Log.warn("Could not write " + LOG_FILE, e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.AWTEventListener;
+import java.awt.event.MouseEvent;
+import java.util.function.Consumer;
+
+// Lets the undecorated overlay be resized by dragging its edges and corners.
+// Mouse events are observed for the whole window, since the bar and button row cover every edge. While a drag
+// is under way the bar only stretches a snapshot of its last frame; once the pointer rests for IDLE_MILLIS the
+// bar re-renders at full quality and onResized gets the new size.
+public class FrameResizer implements AWTEventListener {
+    private static final int EDGE = 6;
+    private static final int IDLE_MILLIS = 150;
+
+    private static final int WEST = 1;
+    private static final int EAST = 2;
+    private static final int NORTH = 4;
+    private static final int SOUTH = 8;
+
+    private final JFrame frame;
+    private final ProgressBar bar;
+    private final Dimension minimumSize;
+    private final Consumer<Dimension> onResized;
+    private final Timer idleTimer;
+
+    private int dragEdges;
+    private Point dragStart;
+    private Rectangle startBounds;
+    private int cursorType = Cursor.DEFAULT_CURSOR;
+
+    public FrameResizer(JFrame frame, ProgressBar bar, Dimension minimumSize, Consumer<Dimension> onResized) {
+        this.frame = frame;
+        this.bar = bar;
+        this.minimumSize = minimumSize;
+        this.onResized = onResized;
+        idleTimer = new Timer(IDLE_MILLIS, e -> settle());
+        idleTimer.setRepeats(false);
+    }
+
+    public void install() {
+        Toolkit.getDefaultToolkit().addAWTEventListener(this, AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_MOTION_EVENT_MASK);
+    }
+
+    // True while an edge is being dragged, so moving the window by dragging stays out of the way
+    public boolean isResizing() {
+        return dragEdges != 0;
+    }
+
+    @Override
+    public void eventDispatched(AWTEvent event) {
+        if (!(event instanceof MouseEvent e) || !(e.getSource() instanceof Component source)
+                || SwingUtilities.getWindowAncestor(source) != frame && source != frame) {
+            return;
+        }
+
+        switch (e.getID()) {
+            case MouseEvent.MOUSE_MOVED -> updateCursor(edgesAt(e.getLocationOnScreen()));
+            case MouseEvent.MOUSE_PRESSED -> {
+                int edges = edgesAt(e.getLocationOnScreen());
+                if (edges != 0 && SwingUtilities.isLeftMouseButton(e)) {
+                    dragEdges = edges;
+                    dragStart = e.getLocationOnScreen();
+                    startBounds = frame.getBounds();
+                    e.consume();
+                }
+            }
+            case MouseEvent.MOUSE_DRAGGED -> {
+                if (dragEdges != 0) {
+                    resizeTo(e.getLocationOnScreen());
+                    e.consume();
+                }
+            }
+            case MouseEvent.MOUSE_RELEASED -> {
+                if (dragEdges != 0) {
+                    dragEdges = 0;
+                    idleTimer.stop();
+                    settle();
+                    e.consume();
+                }
+            }
+            case MouseEvent.MOUSE_EXITED -> {
+                if (dragEdges == 0 && e.getSource() == frame) {
+                    updateCursor(0);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void resizeTo(Point pointer) {
+        int dx = pointer.x - dragStart.x;
+        int dy = pointer.y - dragStart.y;
+        Rectangle bounds = new Rectangle(startBounds);
+
+        if ((dragEdges & EAST) != 0) {
+            bounds.width = Math.max(minimumSize.width, startBounds.width + dx);
+        }
+        if ((dragEdges & SOUTH) != 0) {
+            bounds.height = Math.max(minimumSize.height, startBounds.height + dy);
+        }
+        // Dragging the west or north edge keeps the opposite edge in place
+        if ((dragEdges & WEST) != 0) {
+            bounds.width = Math.max(minimumSize.width, startBounds.width - dx);
+            bounds.x = startBounds.x + startBounds.width - bounds.width;
+        }
+        if ((dragEdges & NORTH) != 0) {
+            bounds.height = Math.max(minimumSize.height, startBounds.height - dy);
+            bounds.y = startBounds.y + startBounds.height - bounds.height;
+        }
+
+        if (!bounds.equals(frame.getBounds())) {
+            bar.beginLiveResize();
+            frame.setBounds(bounds);
+            frame.validate();
+            idleTimer.restart();
+        }
+    }
+
+    private void settle() {
+        bar.endLiveResize();
+        onResized.accept(frame.getSize());
+    }
+
+    private int edgesAt(Point onScreen) {
+        Rectangle bounds = frame.getBounds();
+        int x = onScreen.x - bounds.x;
+        int y = onScreen.y - bounds.y;
+        int edges = 0;
+        if (x < EDGE) {
+            edges |= WEST;
+        } else if (x >= bounds.width - EDGE) {
+            edges |= EAST;
+        }
+        if (y < EDGE) {
+            edges |= NORTH;
+        } else if (y >= bounds.height - EDGE) {
+            edges |= SOUTH;
+        }
+        return edges;
+    }
+
+    private void updateCursor(int edges) {
+        int type = switch (edges) {
+            case WEST -> Cursor.W_RESIZE_CURSOR;
+            case EAST -> Cursor.E_RESIZE_CURSOR;
+            case NORTH -> Cursor.N_RESIZE_CURSOR;
+            case SOUTH -> Cursor.S_RESIZE_CURSOR;
+            case NORTH | WEST -> Cursor.NW_RESIZE_CURSOR;
+            case NORTH | EAST -> Cursor.NE_RESIZE_CURSOR;
+            case SOUTH | WEST -> Cursor.SW_RESIZE_CURSOR;
+            case SOUTH | EAST -> Cursor.SE_RESIZE_CURSOR;
+            default -> Cursor.DEFAULT_CURSOR;
+        };
+        if (type != cursorType) {
+            cursorType = type;
+            frame.setCursor(Cursor.getPredefinedCursor(type));
+        }
+    }
+}
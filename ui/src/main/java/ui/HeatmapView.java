@@ -0,0 +1,385 @@
+package ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import utils.Metrics;
+import utils.SessionLog;
+
+
+// Calendar heatmap of recorded history: one row per day (newest on top), one column per slice of the day,
+// colored by the tracked label. Fixed-size tiles are rendered on a worker pool into an LRU cache;
+// painting on the EDT only draws finished tiles and placeholders, so scrolling never waits on rendering.
+public class HeatmapView extends JComponent implements Scrollable {
+    private static final int TILE_SIZE = 256;
+    private static final int MAX_CACHED_TILES = 192;
+    private static final int MINUTES_PER_DAY = 1440;
+    // Zoom levels: pixels per day row, and the width of a whole day in pixels
+    private static final int[] ROW_HEIGHTS = {2, 4, 8, 14, 20};
+    private static final int[] DAY_WIDTHS = {360, 720, 1440, 2880, 5760};
+    private static final short NO_LABEL = -1;
+    private static final Color PLACEHOLDER = new Color(235, 235, 235);
+    private static final Color EMPTY = new Color(250, 250, 250);
+
+    private static final Metrics.Histogram TILE_RENDER_TIME = Metrics.histogram("heatmap.tileRender");
+    private static final Metrics.Histogram PAINT_TIME = Metrics.histogram("heatmap.paint");
+
+    private record TileKey(int zoom, int column, int row) {
+    }
+
+    // Day of the top row and number of rows; replaced as a whole when the date changes, so workers see both at once
+    private record Rows(LocalDate newestDay, int dayCount) {
+        long dayToEpoch(int dayIndex) {
+            return newestDay.toEpochDay() - dayIndex;
+        }
+    }
+
+    private final SessionLog log;
+    private final SessionLog.RecordVisitor appendListener;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private volatile Rows rows;
+    private final ExecutorService renderPool;
+
+    // Label of every minute, per epoch day. Loaded by workers, dropped when the day's data changes.
+    private final Map<Long, short[]> minutesByDay = new ConcurrentHashMap<>();
+    // Number of changes per epoch day. A load only stores a day if it didn't change while the load was scanning,
+    // so a record appended mid-scan can't be overwritten by the stale result.
+    private final Map<Long, Long> dayChanges = new ConcurrentHashMap<>();
+    private final Map<String, Short> labelIds = new ConcurrentHashMap<>();
+    private final List<String> labels = new CopyOnWriteArrayList<>();
+
+    // Touched only on the EDT
+    private final LinkedHashMap<TileKey, BufferedImage> tiles = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TileKey, BufferedImage> eldest) {
+            return size() > MAX_CACHED_TILES;
+        }
+    };
+    // Tile -> stamp of the render in flight; a finished render is kept only if its stamp is still current
+    private final Map<TileKey, Long> pending = new ConcurrentHashMap<>();
+    private final AtomicLong renderStamps = new AtomicLong();
+    private volatile Rectangle visibleArea = new Rectangle();
+    // Written on the EDT, read by workers to skip tiles of a zoom level no longer shown
+    private volatile int zoom = 1;
+
+    public HeatmapView(SessionLog log) {
+        this.log = log;
+        LocalDate newestDay = LocalDate.now(zone);
+        long oldest = log.firstTimestamp();
+        LocalDate oldestDay = (oldest == 0) ? newestDay : Instant.ofEpochMilli(oldest).atZone(zone).toLocalDate();
+        this.rows = new Rows(newestDay, (int) (newestDay.toEpochDay() - oldestDay.toEpochDay()) + 1);
+
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        renderPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "heatmap-render");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // New records only invalidate the tiles showing their day, and a record for a new day adds its row
+        appendListener = (timestamp, type, label) -> {
+            long epochDay = Instant.ofEpochMilli(timestamp - 60_000).atZone(zone).toLocalDate().toEpochDay();
+            dayChanges.compute(epochDay, (day, changes) -> {
+                minutesByDay.remove(day);
+                return (changes == null) ? 1 : changes + 1;
+            });
+            SwingUtilities.invokeLater(() -> {
+                extendTo(LocalDate.ofEpochDay(epochDay));
+                invalidateDay(epochDay);
+            });
+        };
+        log.addListener(appendListener);
+
+        setToolTipText("");
+        setOpaque(true);
+        addMouseWheelListener(this::zoomWithWheel);
+    }
+
+    // Stops rendering and detaches from the log, e.g. when the window closes
+    public void dispose() {
+        log.removeListener(appendListener);
+        renderPool.shutdownNow();
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(DAY_WIDTHS[zoom], rows.dayCount() * ROW_HEIGHTS[zoom]);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long paintStart = System.nanoTime();
+        // Left open past midnight without anything being recorded
+        extendTo(LocalDate.now(zone));
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(getSize());
+        }
+        visibleArea = getVisibleRect();
+
+        int firstColumn = clip.x / TILE_SIZE;
+        int lastColumn = (clip.x + clip.width - 1) / TILE_SIZE;
+        int firstRow = clip.y / TILE_SIZE;
+        int lastRow = (clip.y + clip.height - 1) / TILE_SIZE;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                TileKey key = new TileKey(zoom, column, row);
+                BufferedImage tile = tiles.get(key);
+                if (tile != null) {
+                    g.drawImage(tile, column * TILE_SIZE, row * TILE_SIZE, null);
+                } else {
+                    g.setColor(PLACEHOLDER);
+                    g.fillRect(column * TILE_SIZE, row * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+                    requestTile(key);
+                }
+            }
+        }
+        PAINT_TIME.recordSince(paintStart);
+    }
+
+    private void requestTile(TileKey key) {
+        if (pending.containsKey(key)) {
+            return;
+        }
+        long stamp = renderStamps.incrementAndGet();
+        pending.put(key, stamp);
+        try {
+            renderPool.execute(() -> {
+                // Scrolled away before a worker got to it; it gets requested again if it comes back into view
+                Rectangle area = new Rectangle(key.column * TILE_SIZE, key.row * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+                if (key.zoom != zoom || !area.intersects(visibleArea)) {
+                    pending.remove(key, stamp);
+                    return;
+                }
+                BufferedImage image = renderTile(key, rows);
+                SwingUtilities.invokeLater(() -> {
+                    if (pending.remove(key, stamp)) {
+                        tiles.put(key, image);
+                        repaint(area);
+                    }
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key, stamp); // Disposed
+        }
+    }
+
+    private BufferedImage renderTile(TileKey key, Rows rows) {
+        long renderStart = System.nanoTime();
+        int rowHeight = ROW_HEIGHTS[key.zoom];
+        int dayWidth = DAY_WIDTHS[key.zoom];
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = new int[TILE_SIZE];
+
+        int firstDayIndex = key.row * TILE_SIZE / rowHeight;
+        int lastDayIndex = Math.min(rows.dayCount() - 1, ((key.row + 1) * TILE_SIZE - 1) / rowHeight);
+        loadDays(rows, firstDayIndex, lastDayIndex);
+
+        for (int y = 0; y < TILE_SIZE; y++) {
+            int dayIndex = (key.row * TILE_SIZE + y) / rowHeight;
+            boolean separator = (key.row * TILE_SIZE + y) % rowHeight == rowHeight - 1 && rowHeight > 4;
+            short[] minutes = (dayIndex < rows.dayCount()) ? minutesByDay.get(rows.dayToEpoch(dayIndex)) : null;
+            for (int x = 0; x < TILE_SIZE; x++) {
+                int pixelX = key.column * TILE_SIZE + x;
+                if (minutes == null || pixelX >= dayWidth || separator) {
+                    pixels[x] = EMPTY.getRGB();
+                    continue;
+                }
+                int minute = (int) ((long) pixelX * MINUTES_PER_DAY / dayWidth);
+                short label = minutes[minute];
+                pixels[x] = (label == NO_LABEL) ? EMPTY.getRGB() : colorFor(label);
+            }
+            image.setRGB(0, y, TILE_SIZE, 1, pixels, 0, TILE_SIZE);
+        }
+        TILE_RENDER_TIME.recordSince(renderStart);
+        return image;
+    }
+
+    // Fills in the minute arrays for the given rows with one range scan over the missing days
+    private void loadDays(Rows rows, int firstDayIndex, int lastDayIndex) {
+        long newestMissing = Long.MIN_VALUE;
+        long oldestMissing = Long.MAX_VALUE;
+        for (int index = firstDayIndex; index <= lastDayIndex; index++) {
+            long epochDay = rows.dayToEpoch(index);
+            if (!minutesByDay.containsKey(epochDay)) {
+                newestMissing = Math.max(newestMissing, epochDay);
+                oldestMissing = Math.min(oldestMissing, epochDay);
+            }
+        }
+        if (newestMissing == Long.MIN_VALUE) {
+            return;
+        }
+
+        int days = (int) (newestMissing - oldestMissing) + 1;
+        long[] changesBefore = new long[days];
+        for (int i = 0; i < days; i++) {
+            changesBefore[i] = dayChanges.getOrDefault(oldestMissing + i, 0L);
+        }
+        short[][] loaded = new short[days][MINUTES_PER_DAY];
+        // Start of every loaded day plus the end of the last, so ticks map to a day without time zone math
+        long[] dayStarts = new long[days + 1];
+        for (int i = 0; i <= days; i++) {
+            dayStarts[i] = LocalDate.ofEpochDay(oldestMissing + i).atStartOfDay(zone).toInstant().toEpochMilli();
+            if (i < days) {
+                Arrays.fill(loaded[i], NO_LABEL);
+            }
+        }
+        log.scanActive(dayStarts[0] + 1, dayStarts[days], (timestamp, type, label) -> {
+            if (type != SessionLog.TICK || label.isEmpty()) {
+                return;
+            }
+            // A tick closes the minute before it
+            long minuteStart = timestamp - 60_000;
+            int day = Arrays.binarySearch(dayStarts, minuteStart);
+            day = (day < 0) ? -day - 2 : day;
+            if (day >= 0 && day < days) {
+                int minute = (int) Math.min(MINUTES_PER_DAY - 1, (minuteStart - dayStarts[day]) / 60_000);
+                loaded[day][minute] = idFor(label);
+            }
+        });
+        for (int i = 0; i < days; i++) {
+            short[] dayMinutes = loaded[i];
+            long expected = changesBefore[i];
+            // A day that changed meanwhile is left out; its invalidation has the tile loaded again
+            dayChanges.compute(oldestMissing + i, (day, changes) -> {
+                long current = (changes == null) ? 0 : changes;
+                if (current == expected) {
+                    minutesByDay.put(day, dayMinutes);
+                }
+                return changes;
+            });
+        }
+    }
+
+    private short idFor(String label) {
+        return labelIds.computeIfAbsent(label, key -> {
+            synchronized (labels) {
+                labels.add(key);
+                return (short) (labels.size() - 1);
+            }
+        });
+    }
+
+    // Stable color per label, spread around the hue circle
+    private int colorFor(short label) {
+        float hue = (labels.get(label).hashCode() & 0xFFFF) / 65536f;
+        return Color.HSBtoRGB(hue, 0.55f, 0.85f);
+    }
+
+    // Adds rows on top once the date moved past the newest row. Every row moves down, so all tiles are dropped.
+    private void extendTo(LocalDate day) {
+        Rows current = rows;
+        if (!day.isAfter(current.newestDay())) {
+            return;
+        }
+        int added = (int) (day.toEpochDay() - current.newestDay().toEpochDay());
+        rows = new Rows(day, current.dayCount() + added);
+        tiles.clear();
+        pending.clear();
+        revalidate();
+        repaint();
+    }
+
+    // Drops the cached tiles that show the day, at every zoom level and column
+    private void invalidateDay(long epochDay) {
+        Rows rows = this.rows;
+        int dayIndex = (int) (rows.newestDay().toEpochDay() - epochDay);
+        if (dayIndex < 0 || dayIndex >= rows.dayCount()) {
+            return;
+        }
+        Iterator<TileKey> keys = tiles.keySet().iterator();
+        while (keys.hasNext()) {
+            TileKey key = keys.next();
+            int rowHeight = ROW_HEIGHTS[key.zoom];
+            // At some zoom levels a day's row straddles two tiles
+            int top = dayIndex * rowHeight;
+            if (key.row * TILE_SIZE < top + rowHeight && (key.row + 1) * TILE_SIZE > top) {
+                keys.remove();
+                pending.remove(key);
+            }
+        }
+        repaint(0, dayIndex * ROW_HEIGHTS[zoom], getWidth(), ROW_HEIGHTS[zoom]);
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        Rows rows = this.rows;
+        int dayIndex = event.getY() / ROW_HEIGHTS[zoom];
+        if (dayIndex >= rows.dayCount() || event.getX() >= DAY_WIDTHS[zoom]) {
+            return null;
+        }
+        LocalDate day = LocalDate.ofEpochDay(rows.dayToEpoch(dayIndex));
+        int minute = (int) ((long) event.getX() * MINUTES_PER_DAY / DAY_WIDTHS[zoom]);
+        String time = String.format("%02d:%02d", minute / 60, minute % 60);
+        short[] minutes = minutesByDay.get(day.toEpochDay());
+        if (minutes == null || minutes[minute] == NO_LABEL) {
+            return day + " " + time;
+        }
+        return day + " " + time + " - " + labels.get(minutes[minute]);
+    }
+
+    // Ctrl + wheel zooms around the pointer; the plain wheel scrolls
+    private void zoomWithWheel(MouseWheelEvent event) {
+        if (!event.isControlDown()) {
+            getParent().dispatchEvent(SwingUtilities.convertMouseEvent(this, event, getParent()));
+            return;
+        }
+        int newZoom = Math.max(0, Math.min(ROW_HEIGHTS.length - 1, zoom - event.getWheelRotation()));
+        if (newZoom == zoom) {
+            return;
+        }
+
+        double dayAtPointer = event.getY() / (double) ROW_HEIGHTS[zoom];
+        double fractionAtPointer = event.getX() / (double) DAY_WIDTHS[zoom];
+        Rectangle view = getVisibleRect();
+        zoom = newZoom;
+        pending.clear();
+        revalidate();
+
+        // Keep the same day and time under the pointer
+        int pointerOffsetX = event.getX() - view.x;
+        int pointerOffsetY = event.getY() - view.y;
+        Rectangle target = new Rectangle(
+                (int) (fractionAtPointer * DAY_WIDTHS[zoom]) - pointerOffsetX,
+                (int) (dayAtPointer * ROW_HEIGHTS[zoom]) - pointerOffsetY,
+                view.width, view.height);
+        SwingUtilities.invokeLater(() -> {
+            scrollRectToVisible(target);
+            repaint();
+        });
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return new Dimension(Math.min(DAY_WIDTHS[zoom], 1000), 500);
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return (orientation == SwingConstants.VERTICAL) ? ROW_HEIGHTS[zoom] * 7 : DAY_WIDTHS[zoom] / 24;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return (orientation == SwingConstants.VERTICAL) ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
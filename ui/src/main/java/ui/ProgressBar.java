@@ -0,0 +1,704 @@
+package ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import model.TimeBlock;
+import utils.Metrics;
+import utils.NestedBlockIndex;
+
+
+public class ProgressBar extends JPanel {
+    private static final int TOTAL_MINUTES = 1440;
+    // Latest end a dragged block can get, one minute before the day wraps around
+    private static final int LAST_MINUTE = TOTAL_MINUTES - 1;
+    // Pixels on either side of a block edge that grab the edge instead of the whole block
+    private static final int EDGE_GRAB = 5;
+    // Sub-blocks are drawn one by one only when every sibling gets at least this many pixels, otherwise the
+    // level is drawn as a single strip. Painting then scales with what is visible, not with how deep blocks nest.
+    private static final int MIN_CHILD_PIXELS = 6;
+    // Levels shorter than this are not split any further
+    private static final int MIN_LEVEL_HEIGHT = 8;
+
+    // Decides which blocks may be dragged, and gets the new times once a drag ends
+    public interface BlockEditor {
+        boolean canEdit(TimeBlock block);
+
+        void blockEdited(TimeBlock block, LocalTime newStart, LocalTime newEnd);
+    }
+
+    private enum DragMode { MOVE, START, END }
+
+    private List<TimeBlock> timeBlocks;
+    private LocalTime startOfDay;
+    private Color progressFillColor;
+    private Color timelineColor;
+    private Color currentTimeColor;
+    private Color blockColor;
+    private Color blockHoverColor;
+    private Color blockBorderColor;
+    private TimeBlock hoveredBlock = null;
+    // Deepest visible sub-block under the pointer inside hoveredBlock, if any
+    private TimeBlock hoveredChild = null;
+    // Time the progress fill and indicator are drawn at; null means the live clock
+    private LocalTime shownTime;
+    private final Timer refreshTimer;
+    // Last full frame, stretched instead of repainted while the window is being resized
+    private BufferedImage resizeSnapshot;
+    // Truncated and wrapped block labels by width, since measuring text dominates a cold paint
+    private final Map<String, List<String>> labelLines = new HashMap<>();
+    private int labelLinesWidth = -1;
+    // Interval index per top-level block with sub-blocks, rebuilt when the block changes
+    private final Map<TimeBlock, NestedBlockIndex.Node> nestedIndex = new IdentityHashMap<>();
+
+    private BlockEditor blockEditor;
+    private int snapMinutes = 5;
+    // Drag state. Times are minutes after startOfDay; the other blocks are painted once into dragBackground.
+    private TimeBlock draggedBlock;
+    private DragMode dragMode;
+    private int dragStartX;
+    private int originalStart;
+    private int originalEnd;
+    private int previewStart;
+    private int previewEnd;
+    private BufferedImage dragBackground;
+    private Rectangle previewBounds;
+
+    private final Font timelineFont = new Font("Arial", Font.BOLD, 14);
+    private final Font blockFont = new Font("Arial", Font.BOLD, 14);
+
+    private static final int PADDING = 30;
+    private static final int VERTICAL_PADDING = 20;
+
+    private static final Metrics.Histogram PAINT_TIME = Metrics.histogram("progressBar.paint");
+    private static final Metrics.Histogram HIT_TEST_TIME = Metrics.histogram("progressBar.hitTest");
+
+    public ProgressBar(List<TimeBlock> timeBlocks,
+                       LocalTime startOfDay,
+                       Color progressFillColor,
+                       Color timelineColor,
+                       Color currentTimeColor,
+                       Color blockColor,
+                       Color blockHoverColor,
+                       Color blockBorderColor) {
+        this.timeBlocks = timeBlocks;
+        this.startOfDay = startOfDay;
+        //        this.fontColor = fontColor; may not be needed
+        this.progressFillColor = progressFillColor;
+        this.timelineColor = timelineColor;
+        this.currentTimeColor = currentTimeColor;
+        this.blockColor = (blockColor != null) ? blockColor : Color.LIGHT_GRAY;
+        this.blockHoverColor = blockHoverColor;
+        this.blockBorderColor = blockBorderColor;
+
+        // Refresh every minute to update the progress fill and current time indicator.
+        // Timer jitter is measured on the frame's minute timer, which runs alongside this one.
+        refreshTimer = new Timer(60000, e -> repaint());
+        refreshTimer.start();
+
+        // Mouse listener to detect when the mouse hovers over a time block.
+        MouseAdapter mouseAdapter = new MouseAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                long hitTestStart = System.nanoTime();
+                TimeBlock newHover = findBlockAt(e.getX());
+                TimeBlock newChild = findChildAt(newHover, e.getX());
+                HIT_TEST_TIME.recordSince(hitTestStart);
+                if (newHover != hoveredBlock || newChild != hoveredChild) {
+                    hoveredBlock = newHover;
+                    hoveredChild = newChild;
+                    repaint();
+                }
+                updateDragCursor(newHover, e.getX());
+            }
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if (!e.isConsumed() && SwingUtilities.isLeftMouseButton(e)) {
+                    startDrag(e.getX());
+                }
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (draggedBlock != null) {
+                    updateDrag(e.getX());
+                }
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (draggedBlock != null) {
+                    finishDrag();
+                }
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                hoveredBlock = null;
+                hoveredChild = null;
+                repaint();
+            }
+        };
+        addMouseListener(mouseAdapter);
+        addMouseMotionListener(mouseAdapter);
+    }
+
+    // Helper method to calculate the x-coordinate for a given time (in minutes) relative to the current startOfDay.
+    private int getXForTime(LocalTime time) {
+        long minutesFromStart = ChronoUnit.MINUTES.between(startOfDay, time);
+        if (minutesFromStart < 0) {
+            minutesFromStart += TOTAL_MINUTES;
+        }
+        return (int) ((minutesFromStart / (double) TOTAL_MINUTES) * (getWidth() - 2 * PADDING));
+    }
+
+    // Finds which time block (if any) the given x coordinate falls within.
+    private TimeBlock findBlockAt(int mouseX) {
+        int width = getWidth();
+        for (TimeBlock block : timeBlocks) {
+            int xStart = PADDING + getXForTime(block.start);
+            int xEnd = PADDING + getXForTime(block.end);
+
+            // If a block spans midnight, xEnd may be less than xStart.
+            if (xEnd < xStart) {
+                xEnd += width;
+            }
+            if (mouseX >= xStart && mouseX <= xEnd) {
+                return block;
+            }
+        }
+        return null;
+    }
+
+    // The deepest sub-block of the block at x that is wide enough to be drawn on its own, or null
+    private TimeBlock findChildAt(TimeBlock block, int mouseX) {
+        if (block == null || block.children.isEmpty()) {
+            return null;
+        }
+        NestedBlockIndex.Node node = nodeFor(block);
+        int minute = (int) ((mouseX - PADDING) / pixelsPerMinute());
+        if (minute < node.start) {
+            minute += TOTAL_MINUTES; // Past the end of the bar, in a block that wraps around
+        }
+        NestedBlockIndex.Node deepest = node.deepestAt(minute, (int) Math.ceil(MIN_CHILD_PIXELS / pixelsPerMinute()));
+        return (deepest == node) ? null : deepest.block;
+    }
+
+    private NestedBlockIndex.Node nodeFor(TimeBlock block) {
+        NestedBlockIndex.Node node = nestedIndex.get(block);
+        if (node == null || !node.matches(block)) {
+            node = NestedBlockIndex.build(block, startOfDay);
+            nestedIndex.put(block, node);
+        }
+        return node;
+    }
+
+    private double pixelsPerMinute() {
+        return (getWidth() - 2 * PADDING) / (double) TOTAL_MINUTES;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long paintStart = System.nanoTime();
+        if (resizeSnapshot != null) {
+            g.drawImage(resizeSnapshot, 0, 0, getWidth(), getHeight(), null);
+            PAINT_TIME.recordSince(paintStart);
+            return;
+        }
+        if (dragBackground != null) {
+            // Only the dirty area around the dragged block gets here, so this is a small blit plus one block
+            g.drawImage(dragBackground, 0, 0, null);
+            paintDragPreview(g);
+            PAINT_TIME.recordSince(paintStart);
+            return;
+        }
+        super.paintComponent(g);
+        if (labelLinesWidth != getWidth()) {
+            labelLines.clear();
+            labelLinesWidth = getWidth();
+        }
+        int panelWidth = getWidth() - 2 * PADDING;
+        int panelHeight = getHeight() - 2 * VERTICAL_PADDING;
+        int timelineHeight = 20;  // Bottom area for the timeline
+        int barHeight = panelHeight - timelineHeight;
+
+        // Draw the progress fill (background from startOfDay to current time)
+        LocalTime now = (shownTime != null) ? shownTime : LocalTime.now();
+        int currentX = PADDING + getXForTime(now);
+        g.setColor(progressFillColor);
+        g.fillRect(PADDING, VERTICAL_PADDING, currentX - PADDING, barHeight);
+
+        // Draw the timeline
+        g.setColor(timelineColor);
+        g.setFont(timelineFont);
+        for (int hour = 0; hour <= 24; hour++) {
+            LocalTime tickTime = startOfDay.plusHours(hour);
+            int x = PADDING + (int) ((hour / 24.0) * (getWidth() - 2 * PADDING));
+            g.drawLine(x, barHeight + VERTICAL_PADDING - 3, x, barHeight + VERTICAL_PADDING + 7);
+            String tickLabel = tickTime.format(java.time.format.DateTimeFormatter.ofPattern("ha"));
+            g.drawString(tickLabel, x - 10, panelHeight + VERTICAL_PADDING + 3);
+        }
+
+        // Draw the time blocks (skip hovered block)
+        g.setFont(blockFont);
+        for (TimeBlock block : timeBlocks) {
+            if (block.equals(hoveredBlock) || block == draggedBlock) {
+                continue;
+            }
+
+            int xStart = PADDING + getXForTime(block.start);
+            int xEnd = PADDING + getXForTime(block.end);
+            xEnd = Math.min(xEnd, getWidth() - PADDING);
+
+            int blockWidth = xEnd - xStart;
+            if (blockWidth < 0) {
+                blockWidth = panelWidth - xStart + xEnd;
+            }
+            // If a block is hovered, make other blocks more transparent
+            Color fadedBlockColor = (hoveredBlock != null && !block.equals(hoveredBlock))
+                    ? new Color(blockColor.getRed(), blockColor.getGreen(), blockColor.getBlue(), 100)
+                    : blockColor;
+
+            Color fadedTextColor = (hoveredBlock != null && !block.equals(hoveredBlock))
+                    ? new Color(0, 0, 0, 100)
+                    : Color.BLACK;
+
+            // Make the hovered block have exact color (34, 34, 139, 128)
+            if (block.equals(hoveredBlock)) {
+                fadedBlockColor = new Color(34, 34, 139, 128);
+            }
+
+
+            // Draw the transparent block
+            g.setColor(fadedBlockColor);
+            g.fillRect(xStart, VERTICAL_PADDING, blockWidth, barHeight);
+
+            // Draw the block border
+            g.setColor(blockBorderColor);
+            g.drawRect(xStart, VERTICAL_PADDING, blockWidth, barHeight);
+
+            // Sub-blocks take the lower half, the label moves up into the upper half
+            int labelCenter = PADDING + (barHeight / 2);
+            if (!block.children.isEmpty()) {
+                int childHeight = barHeight / 2;
+                paintChildren(g, nodeFor(block), VERTICAL_PADDING + barHeight - childHeight, childHeight,
+                        xStart + blockWidth, fadedBlockColor.getAlpha());
+                labelCenter = PADDING + (barHeight / 4);
+            }
+
+            // Draw text inside the time blocks
+            if (blockWidth > 30) {
+                g.setColor(fadedTextColor);
+                int maxTextWidth = blockWidth - 10;
+                List<String> wrappedLines = labelLines.computeIfAbsent(maxTextWidth + "\n" + block.label,
+                        key -> layoutLabel(g, block.label, maxTextWidth));
+                int lineHeight = g.getFontMetrics().getHeight();
+                int yPosition = labelCenter - (wrappedLines.size() * lineHeight / 2);
+
+                for (String line : wrappedLines) {
+                    g.drawString(line, xStart + 5, yPosition);
+                    yPosition += lineHeight;
+                }
+            }
+        }
+
+        // Draw the current time indicator (the red vertical line)
+        g.setColor(currentTimeColor);
+        g.fillRect(currentX - 1, VERTICAL_PADDING, 2, panelHeight);  // (x-position, y-position, thickness, height)
+
+
+        // Draw the hovered block LAST so it's on top
+        if (hoveredBlock != null) {
+            int xStart = PADDING + getXForTime(hoveredBlock.start);
+            int xEnd = PADDING + getXForTime(hoveredBlock.end);
+            xEnd = Math.min(xEnd, getWidth() - PADDING);
+            int blockWidth = xEnd - xStart;
+            if (blockWidth < 0) {
+                blockWidth = panelWidth - xStart + xEnd;
+            }
+
+            // Shadow Effect (Draw first so it appears underneath)
+            g.setColor(new Color(100, 100, 100, 150)); // Semi-transparent gray shadow
+            g.fillRect(xStart, 20, blockWidth, barHeight); // Shadow 5px below the block
+
+            // Pop-out effect (Draw the actual hovered block)
+            g.setColor(blockHoverColor);
+            g.fillRect(xStart + 5, 10, blockWidth, barHeight);
+
+            g.setColor(blockBorderColor);
+            g.drawRect(xStart + 5, 10, blockWidth, barHeight - 1);
+
+            // Draw highlight behind text
+            String fullLabel = (hoveredChild != null) ? hoveredBlock.label + " \u203a " + hoveredChild.label : hoveredBlock.label;
+            int textWidth = g.getFontMetrics().stringWidth(fullLabel);
+            int textHeight = g.getFontMetrics().getHeight();
+            Color highlight = new Color(20, 20, 20, 255);
+            g.setColor(highlight);
+            g.fillRect(xStart + 10, barHeight / 2 - textHeight, textWidth + 5, textHeight + 10);
+
+            // Draw text AFTER highlight so it appears on top
+            g.setColor(Color.WHITE);
+            g.drawString(fullLabel, xStart + 10, barHeight / 2);
+        }
+
+        PAINT_TIME.recordSince(paintStart);
+    }
+
+    // Draws a node's sub-blocks in the given band, each one's own sub-blocks in its lower half, down to the level
+    // of detail the bar's width allows. Sub-blocks too narrow to tell apart are drawn as one strip per run of
+    // neighbours, so they don't hide the wide ones next to them. Nothing is drawn past maxX, where the parent was clipped.
+    private void paintChildren(Graphics g, NestedBlockIndex.Node node, int y, int height, int maxX, int alpha) {
+        if (node.children.isEmpty()) {
+            return;
+        }
+        Color childColor = blockColor.darker();
+        Color fill = new Color(childColor.getRed(), childColor.getGreen(), childColor.getBlue(), alpha);
+        double pixelsPerMinute = pixelsPerMinute();
+
+        // The run of narrow sub-blocks waiting to be drawn as a strip
+        int runStart = -1;
+        int runEnd = -1;
+        int runCovered = 0;
+        int runBlocks = 0;
+        for (NestedBlockIndex.Node child : node.children) {
+            if (xForMinutes(child.start) >= maxX) {
+                break;
+            }
+            boolean narrow = (child.end - child.start) * pixelsPerMinute < MIN_CHILD_PIXELS;
+            // A run ends at a wide sub-block or at a space wide enough to show
+            if (runBlocks > 0 && (!narrow || (child.start - runEnd) * pixelsPerMinute >= MIN_CHILD_PIXELS)) {
+                paintChildStrip(g, runStart, runEnd, runCovered, runBlocks, y, height, maxX, alpha);
+                runBlocks = 0;
+            }
+            if (narrow) {
+                if (runBlocks == 0) {
+                    runStart = child.start;
+                    runEnd = child.start;
+                    runCovered = 0;
+                }
+                // Sub-blocks may overlap, so only count minutes past what the run covered so far
+                runCovered += Math.max(0, child.end - Math.max(child.start, runEnd));
+                runEnd = Math.max(runEnd, child.end);
+                runBlocks += 1 + child.descendants;
+                continue;
+            }
+
+            int xStart = xForMinutes(child.start);
+            int width = Math.min(xForMinutes(child.end), maxX) - xStart;
+            g.setColor(fill);
+            g.fillRect(xStart, y, width, height);
+            g.setColor(blockBorderColor);
+            g.drawRect(xStart, y, width, height);
+
+            if (height / 2 >= MIN_LEVEL_HEIGHT && !child.children.isEmpty()) {
+                paintChildren(g, child, y + height - height / 2, height / 2, maxX, alpha);
+            }
+            if (width > 30 && height >= g.getFontMetrics().getAscent()) {
+                int maxTextWidth = width - 10;
+                List<String> lines = labelLines.computeIfAbsent(maxTextWidth + "\n" + child.block.label,
+                        key -> layoutLabel(g, child.block.label, maxTextWidth));
+                if (!lines.isEmpty()) {
+                    g.setColor(new Color(0, 0, 0, alpha));
+                    g.drawString(lines.get(0), xStart + 5, y + g.getFontMetrics().getAscent());
+                }
+            }
+        }
+        if (runBlocks > 0) {
+            paintChildStrip(g, runStart, runEnd, runCovered, runBlocks, y, height, maxX, alpha);
+        }
+    }
+
+    // One strip for a run of sub-blocks too narrow to draw alone, shaded by how much of it they cover
+    private void paintChildStrip(Graphics g, int start, int end, int covered, int blocks, int y, int height, int maxX, int alpha) {
+        Color childColor = blockColor.darker();
+        int xStart = xForMinutes(start);
+        int width = Math.max(1, Math.min(xForMinutes(end), maxX) - xStart);
+        double coverage = covered / (double) (end - start);
+        g.setColor(new Color(childColor.getRed(), childColor.getGreen(), childColor.getBlue(),
+                (int) (alpha * (0.3 + 0.5 * coverage))));
+        g.fillRect(xStart, y, width, height);
+
+        String summary = blocks + " sub-blocks";
+        if (height >= g.getFontMetrics().getAscent() && g.getFontMetrics().stringWidth(summary) < width - 10) {
+            g.setColor(new Color(0, 0, 0, alpha));
+            g.drawString(summary, xStart + 5, y + (height + g.getFontMetrics().getAscent()) / 2);
+        }
+    }
+
+    private int minutesFromStart(LocalTime time) {
+        long minutes = ChronoUnit.MINUTES.between(startOfDay, time);
+        return (int) ((minutes < 0) ? minutes + TOTAL_MINUTES : minutes);
+    }
+
+    private int xForMinutes(int minutes) {
+        return PADDING + (int) ((minutes / (double) TOTAL_MINUTES) * (getWidth() - 2 * PADDING));
+    }
+
+    private int snap(double minutes) {
+        return (int) Math.round(minutes / snapMinutes) * snapMinutes;
+    }
+
+    private DragMode dragModeAt(TimeBlock block, int x) {
+        int xStart = xForMinutes(minutesFromStart(block.start));
+        int xEnd = xForMinutes(minutesFromStart(block.end));
+        // Narrow blocks keep a middle third for moving
+        int grab = Math.min(EDGE_GRAB, (xEnd - xStart) / 3);
+        if (Math.abs(x - xStart) <= grab) {
+            return DragMode.START;
+        }
+        if (Math.abs(x - xEnd) <= grab) {
+            return DragMode.END;
+        }
+        return DragMode.MOVE;
+    }
+
+    // Blocks that wrap past the end of the bar can't be dragged
+    private boolean isDraggable(TimeBlock block) {
+        return blockEditor != null && minutesFromStart(block.end) > minutesFromStart(block.start) && blockEditor.canEdit(block);
+    }
+
+    private void updateDragCursor(TimeBlock block, int x) {
+        if (block == null || !isDraggable(block)) {
+            setCursor(null);
+            return;
+        }
+        setCursor(Cursor.getPredefinedCursor(dragModeAt(block, x) == DragMode.MOVE ? Cursor.MOVE_CURSOR : Cursor.E_RESIZE_CURSOR));
+    }
+
+    private void startDrag(int x) {
+        TimeBlock block = findBlockAt(x);
+        if (block == null || !isDraggable(block)) {
+            return;
+        }
+        dragMode = dragModeAt(block, x);
+        dragStartX = x;
+        originalStart = previewStart = minutesFromStart(block.start);
+        originalEnd = previewEnd = minutesFromStart(block.end);
+        hoveredBlock = null;
+
+        // Everything except the dragged block, painted once for the whole drag
+        draggedBlock = block;
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        BufferedImage background = (config != null)
+                ? config.createCompatibleImage(getWidth(), getHeight())
+                : new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = background.createGraphics();
+        try {
+            paintComponent(g);
+        } finally {
+            g.dispose();
+        }
+        dragBackground = background;
+        previewBounds = previewBounds();
+        repaint();
+    }
+
+    private void updateDrag(int x) {
+        double minutesPerPixel = TOTAL_MINUTES / (double) (getWidth() - 2 * PADDING);
+        switch (dragMode) {
+            case MOVE -> {
+                int duration = originalEnd - originalStart;
+                int start = snap(originalStart + (x - dragStartX) * minutesPerPixel);
+                previewStart = Math.max(0, Math.min(start, LAST_MINUTE - duration));
+                previewEnd = previewStart + duration;
+            }
+            case START -> previewStart = Math.max(0, Math.min(snap((x - PADDING) * minutesPerPixel), previewEnd - snapMinutes));
+            case END -> previewEnd = Math.min(LAST_MINUTE, Math.max(snap((x - PADDING) * minutesPerPixel), previewStart + snapMinutes));
+        }
+
+        Rectangle next = previewBounds();
+        if (!next.equals(previewBounds)) {
+            repaint(next.union(previewBounds));
+            previewBounds = next;
+        }
+    }
+
+    private void finishDrag() {
+        TimeBlock block = draggedBlock;
+        boolean changed = previewStart != originalStart || previewEnd != originalEnd;
+        cancelDrag();
+        if (changed) {
+            blockEditor.blockEdited(block, startOfDay.plusMinutes(previewStart), startOfDay.plusMinutes(previewEnd));
+        }
+    }
+
+    private void cancelDrag() {
+        draggedBlock = null;
+        dragBackground = null;
+        previewBounds = null;
+        repaint();
+    }
+
+    // Area the preview covers, including the time range drawn at its top left
+    private Rectangle previewBounds() {
+        int xStart = xForMinutes(previewStart);
+        int xEnd = xForMinutes(previewEnd);
+        int textWidth = getFontMetrics(blockFont).stringWidth("00:00 - 00:00") + 10;
+        return new Rectangle(xStart - 1, 0, Math.max(xEnd - xStart, textWidth) + 2, getHeight());
+    }
+
+    private void paintDragPreview(Graphics g) {
+        int barHeight = getHeight() - 2 * VERTICAL_PADDING - 20;
+        int xStart = xForMinutes(previewStart);
+        int blockWidth = xForMinutes(previewEnd) - xStart;
+
+        g.setColor(blockHoverColor);
+        g.fillRect(xStart, VERTICAL_PADDING, blockWidth, barHeight);
+        g.setColor(blockBorderColor);
+        g.drawRect(xStart, VERTICAL_PADDING, blockWidth, barHeight);
+
+        // Text stays inside the preview bounds, so the next repaint of those bounds wipes it
+        Graphics text = g.create();
+        try {
+            text.clipRect(previewBounds.x, previewBounds.y, previewBounds.width, previewBounds.height);
+            text.setFont(blockFont);
+            text.setColor(Color.WHITE);
+            String range = startOfDay.plusMinutes(previewStart) + " - " + startOfDay.plusMinutes(previewEnd);
+            text.drawString(range, xStart + 5, VERTICAL_PADDING + text.getFontMetrics().getAscent() + 2);
+            text.drawString(draggedBlock.label, xStart + 5, VERTICAL_PADDING + 2 * text.getFontMetrics().getHeight() + 2);
+        } finally {
+            text.dispose();
+        }
+    }
+
+    // Truncates the label to fit and wraps it into lines
+    private List<String> layoutLabel(Graphics g, String label, int maxTextWidth) {
+        if (g.getFontMetrics().stringWidth(label) > maxTextWidth) {
+            while (g.getFontMetrics().stringWidth(label + "...") > maxTextWidth && !label.isEmpty()) {
+                label = label.substring(0, label.length() - 1);
+            }
+            label += "...";
+        }
+        return wrapText(g, label, maxTextWidth);
+    }
+
+    // Wrap text within a given width
+    private List<String> wrapText(Graphics g, String text, int maxWidth) {
+        List<String> lines = new ArrayList<>();
+        StringBuilder currentLine = new StringBuilder();
+        String[] words = text.split(" ");
+
+        for (String word : words) {
+            String testLine = currentLine.isEmpty() ? word : currentLine + " " + word;
+            if (g.getFontMetrics().stringWidth(testLine) > maxWidth) {
+                lines.add(currentLine.toString());
+                currentLine = new StringBuilder(word);
+            } else {
+                currentLine.append(currentLine.isEmpty() ? "" : " ").append(word);
+            }
+        }
+        if (!currentLine.isEmpty()) {
+            lines.add(currentLine.toString());
+        }
+        return lines;
+    }
+
+    // Used for determining the current time block
+    protected TimeBlock getCurrentTimeBlock() {
+        LocalTime now = LocalTime.now();
+        for (TimeBlock block : timeBlocks) {
+            if (!now.isBefore(block.start) && now.isBefore(block.end)) {
+                return block; // The current time is within this block
+            }
+        }
+        return null; // No active time block
+    }
+
+    protected String getTimeRemaining(TimeBlock block) {
+        if (block == null) return "No active block";
+
+        LocalTime now = LocalTime.now();
+        long minutesRemaining = ChronoUnit.MINUTES.between(now, block.end);
+
+        long hours = minutesRemaining / 60;
+        long minutes = minutesRemaining % 60;
+
+        return (hours > 0) ? String.format("%d hr %d min left", hours, minutes) : String.format("%d min left", minutes);
+    }
+
+
+    // Draws the bar as of a fixed time instead of now, e.g. for snapshots of other days
+    public void setShownTime(LocalTime shownTime) {
+        this.shownTime = shownTime;
+        repaint();
+    }
+
+    // Freezes the current frame, so paints during a window resize only stretch it
+    public void beginLiveResize() {
+        if (resizeSnapshot != null || getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
+        // Opaque and in the screen's format, so stretching it is a plain blit
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        BufferedImage snapshot = (config != null)
+                ? config.createCompatibleImage(getWidth(), getHeight())
+                : new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = snapshot.createGraphics();
+        try {
+            paintComponent(g);
+        } finally {
+            g.dispose();
+        }
+        resizeSnapshot = snapshot;
+    }
+
+    // Back to full-quality painting at the new size
+    public void endLiveResize() {
+        if (resizeSnapshot != null) {
+            resizeSnapshot = null;
+            repaint();
+        }
+    }
+
+    public void setBlockEditor(BlockEditor blockEditor) {
+        this.blockEditor = blockEditor;
+    }
+
+    // Dragged times land on multiples of this many minutes
+    public void setSnapMinutes(int snapMinutes) {
+        this.snapMinutes = Math.max(1, snapMinutes);
+    }
+
+    // For bars that are only painted offscreen and never shown
+    public void stopRefreshing() {
+        refreshTimer.stop();
+    }
+
+    // Swaps in a new schedule, e.g. after it was reloaded from disk
+    public void setTimeBlocks(List<TimeBlock> timeBlocks) {
+        this.timeBlocks = timeBlocks;
+        hoveredBlock = null;
+        hoveredChild = null;
+        labelLines.clear();
+        nestedIndex.clear();
+        if (draggedBlock != null) {
+            cancelDrag();
+        }
+        repaint();
+    }
+
+    public void updateSettings(Color fontColor, Color progressFillColor, Color timelineColor,
+                               Color currentTimeColor, LocalTime startOfDay,
+                               Color blockColor, Color blockHoverColor, Color blockBorderColor) {
+        this.progressFillColor = progressFillColor;
+        this.timelineColor = timelineColor;
+        this.currentTimeColor = currentTimeColor;
+        this.startOfDay = startOfDay;
+        this.blockColor = blockColor;
+        this.blockHoverColor = blockHoverColor;
+        this.blockBorderColor = blockBorderColor;
+        nestedIndex.clear();
+        repaint();
+    }
+
+}
@@ -0,0 +1,144 @@
+package ui;
+
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import model.TimeBlock;
+import utils.LabelSearchIndex;
+
+
+// Table model that reads straight from the live schedule, so opening the dialog copies nothing.
+// The frame keeps the schedule in TimeBlock.BY_TIME order and search results use the same order, so rows line up
+// with or without a filter. The frame also keeps the label index current and reports every change here.
+public class ScheduleTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {"Start", "End", "Label"};
+
+    private List<TimeBlock> schedule;
+    private LabelSearchIndex searchIndex;
+    private String filter = "";
+    // Rows matching the current filter, or null when every block is shown
+    private List<TimeBlock> filteredRows;
+
+    public ScheduleTableModel(List<TimeBlock> schedule, LabelSearchIndex searchIndex) {
+        this.schedule = schedule;
+        this.searchIndex = searchIndex;
+    }
+
+    @Override
+    public int getRowCount() {
+        return (filteredRows != null) ? filteredRows.size() : schedule.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return (column == 2) ? String.class : LocalTime.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        TimeBlock block = getBlockAt(row);
+        return switch (column) {
+            case 0 -> block.start;
+            case 1 -> block.end;
+            default -> block.label;
+        };
+    }
+
+    public TimeBlock getBlockAt(int row) {
+        return (filteredRows != null) ? filteredRows.get(row) : schedule.get(row);
+    }
+
+    public void setFilter(String text) {
+        String newFilter = (text == null) ? "" : text.trim();
+        if (newFilter.equals(filter)) {
+            return;
+        }
+
+        if (newFilter.isEmpty()) {
+            filteredRows = null;
+        } else if (filteredRows != null && newFilter.toLowerCase().contains(filter.toLowerCase())) {
+            // Typing more characters can only narrow the result, so filter the current rows in place
+            filteredRows.removeIf(block -> !LabelSearchIndex.matches(block, newFilter));
+        } else {
+            filteredRows = search(newFilter);
+        }
+        filter = newFilter;
+        fireTableDataChanged();
+    }
+
+    // Called after the frame inserted a block into the schedule at the given index
+    public void blockInserted(TimeBlock block, int index) {
+        if (filteredRows == null) {
+            fireTableRowsInserted(index, index);
+        } else if (LabelSearchIndex.matches(block, filter)) {
+            int row = insertionPoint(filteredRows, block);
+            filteredRows.add(row, block);
+            fireTableRowsInserted(row, row);
+        }
+    }
+
+    // Called after the frame removed a block that was at the given index of the schedule
+    public void blockRemoved(TimeBlock block, int index) {
+        if (filteredRows == null) {
+            fireTableRowsDeleted(index, index);
+            return;
+        }
+        for (int row = 0; row < filteredRows.size(); row++) {
+            if (filteredRows.get(row) == block) {
+                filteredRows.remove(row);
+                fireTableRowsDeleted(row, row);
+                return;
+            }
+        }
+    }
+
+    // Called after a block's times or label changed, which may have moved its row
+    public void blockChanged(TimeBlock block) {
+        if (filteredRows != null) {
+            filteredRows = search(filter);
+        }
+        fireTableDataChanged();
+    }
+
+    // Called after the schedule was swapped or changed in bulk, e.g. by a reload, an import or a sync merge
+    public void scheduleReplaced(List<TimeBlock> schedule, LabelSearchIndex searchIndex) {
+        this.schedule = schedule;
+        this.searchIndex = searchIndex;
+        if (filteredRows != null) {
+            filteredRows = search(filter);
+        }
+        fireTableDataChanged();
+    }
+
+    // Index after every block that sorts before or equal to the given one, in a list in TimeBlock.BY_TIME order
+    public static int insertionPoint(List<TimeBlock> blocks, TimeBlock block) {
+        int low = 0;
+        int high = blocks.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (TimeBlock.BY_TIME.compare(blocks.get(middle), block) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private List<TimeBlock> search(String text) {
+        List<TimeBlock> rows = new ArrayList<>(searchIndex.search(text));
+        rows.sort(TimeBlock.BY_TIME);
+        return rows;
+    }
+}
@@ -0,0 +1,1862 @@
+package ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import model.TimeBlock;
+import utils.AnalyticsEngine;
+import utils.BlockEventEngine;
+import utils.Exporter;
+import utils.IcsImporter;
+import utils.LabelSearchIndex;
+import utils.Log;
+import utils.Metrics;
+import utils.RecurrenceEngine;
+import utils.ScheduleProfiles;
+import utils.ScheduleSources;
+import utils.ScheduleSync;
+import utils.ScheduleValidator;
+import utils.SessionLog;
+import utils.SessionRecorder;
+import utils.TimeUtils;
+import utils.StartupManager;
+import utils.TeamUploader;
+
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.nio.file.*;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.FileWriter;
+import java.io.File;
+import org.json.JSONArray;
+
+public class TimeTrackerFrame extends JFrame {
+    private Point initialClick;
+    private List<TimeBlock> schedule;
+    private final ProgressBar progressBar;
+    private Color fontColor;
+    private Color progressBarColor;
+    private Color timelineColor;
+    private Color currentTimeColor;
+    private Color blockColor;
+    private Color blockHoverColor;
+    private Color blockBorderColor;
+    private LocalTime startOfDay;
+    private int frameWidth;
+    private int frameHeight;
+    // Dragged block times snap to multiples of this
+    private int snapMinutes;
+    private int idleMinutes;
+
+
+    private static final String SETTINGS_FILE = "settings.properties";
+
+    private static final Metrics.Histogram SETTINGS_LOAD_TIME = Metrics.histogram("settings.load");
+    private static final Metrics.Histogram SETTINGS_SAVE_TIME = Metrics.histogram("settings.save");
+    private static final Metrics.Histogram SCHEDULE_LOAD_TIME = Metrics.histogram("schedule.load");
+    private static final Metrics.Histogram SCHEDULE_SAVE_TIME = Metrics.histogram("schedule.save");
+    private static final Metrics.Histogram TIMER_JITTER = Metrics.histogram("timer.jitter");
+    private long lastTickNanos = System.nanoTime();
+
+    private final JLabel blockLabel;
+    private final JLabel timeLeftLabel;
+    private final BlockEventEngine blockEvents;
+    private final RecurrenceEngine recurrence;
+    // Calendar files, scripts and other plug-in sources, merged into the shown plan
+    private final ScheduleSources scheduleSources;
+    // Null if the session log couldn't be opened; the overlay still works without recording
+    private SessionRecorder recorder;
+    private ActivitySampler activitySampler;
+    // Null if the sync directory couldn't be opened; edits then stay local
+    private ScheduleSync scheduleSync;
+    // The date whose plan the overlay currently shows
+    private LocalDate shownDate;
+    // Built the first time the schedule manager opens, then kept up to date by every edit
+    private LabelSearchIndex labelIndex;
+    // Sorted view of the schedule for conflict checks, built and maintained like the label index
+    private ScheduleValidator scheduleValidator;
+    // Model of the schedule manager while it's open, so edits made elsewhere show up in its table
+    private ScheduleTableModel openTableModel;
+    // Named everyday schedules; the active one is what the schedule manager edits and saves
+    private final ScheduleProfiles profiles = new ScheduleProfiles();
+    private String activeProfile;
+    // Profile the user last picked, which may still be loading; a load finishing for any other one is dropped
+    private String requestedProfile;
+    private TrayIcon trayIcon;
+    private FrameResizer frameResizer;
+    // Size changes are written to settings once they stop coming, not on every step of a drag
+    private final Timer saveSizeTimer = new Timer(1000, e -> saveSettings());
+
+
+    public TimeTrackerFrame() {
+        // Load settings and schedule.
+        loadSettings();
+        loadTimeBlocks();
+        openScheduleSync();
+        recurrence = RecurrenceEngine.load(schedule);
+        scheduleSources = ScheduleSources.load();
+        shownDate = LocalDate.now();
+        List<TimeBlock> todayPlan = scheduleSources.planFor(shownDate, recurrence.planFor(shownDate));
+
+        setTitle("Time Tracker Overlay");
+        setSize(frameWidth, frameHeight);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setUndecorated(true);
+        setAlwaysOnTop(false);
+        setLayout(new BorderLayout());
+
+        // Buttons panel
+        JPanel buttonPanel = new JPanel(new BorderLayout());
+        buttonPanel.setBackground(Color.DARK_GRAY);
+        buttonPanel.setPreferredSize(new Dimension(getWidth(), 40));
+
+        // Left panel for Menu Button
+        JPanel leftPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        leftPanel.setOpaque(false);
+
+        // Menu button properties
+        JButton menuButton = new JButton("☰ Menu");
+        menuButton.setFont(new Font("SansSerif", Font.BOLD, 14));
+        menuButton.setFocusPainted(false);
+        menuButton.setBorderPainted(false);
+        menuButton.setBackground(Color.GRAY);
+        menuButton.setOpaque(true);
+        menuButton.setPreferredSize(new Dimension(100, 30));
+        menuButton.addActionListener(e -> showMenu(menuButton));
+        leftPanel.add(menuButton);
+
+        /// Center panel for Time Label, Current Block Label, and Time Left
+        JPanel centerPanel = new JPanel(new GridBagLayout());
+        centerPanel.setOpaque(false);
+        GridBagConstraints gbc = new GridBagConstraints();
+
+// Time label (Left-aligned)
+        gbc.gridx = 0;
+        gbc.gridy = 0;
+        gbc.weightx = 1.0; // Allows stretching
+        gbc.anchor = GridBagConstraints.WEST; // Left-align
+        JLabel timeLabel = new JLabel();
+        timeLabel.setForeground(Color.WHITE);
+        timeLabel.setFont(new Font("Arial", Font.BOLD, 28));
+        centerPanel.add(timeLabel, gbc);
+
+// Current block label (Center-aligned)
+        gbc.gridx = 1;
+        gbc.anchor = GridBagConstraints.CENTER; // Center-align
+        blockLabel = new JLabel("No active block");
+        blockLabel.setForeground(Color.WHITE);
+        blockLabel.setFont(new Font("Arial", Font.BOLD, 28));
+        centerPanel.add(blockLabel, gbc);
+
+// Time Left label (Right-aligned)
+        gbc.gridx = 2;
+        gbc.anchor = GridBagConstraints.EAST; // Right-align
+        timeLeftLabel = new JLabel("");
+        timeLeftLabel.setForeground(Color.WHITE);
+        timeLeftLabel.setFont(new Font("Arial", Font.BOLD, 28));
+        centerPanel.add(timeLeftLabel, gbc);
+
+
+
+        // Right panel for Pin, Minimize, and Close Buttons
+        JPanel rightPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 5));
+        rightPanel.setOpaque(false);
+
+        // Declare pinButton & set properties
+        JButton pinButton = new JButton("Pin");
+        pinButton.setPreferredSize(new Dimension(80, 30));
+        pinButton.setBackground(Color.LIGHT_GRAY);
+
+        // Add action listener for pinButton
+        pinButton.addActionListener(e -> {
+            boolean isPinned = !isAlwaysOnTop();
+            setAlwaysOnTop(isPinned);
+            pinButton.setText(isPinned ? "Unpin" : "Pin");
+        });
+
+        JButton minimizeButton = createButton("-", 50, 30, Color.GRAY, e -> setState(JFrame.ICONIFIED));
+        JButton closeButton = createButton("Close", 80, 30, Color.RED, e -> {
+            // A size change still waiting to be saved
+            if (saveSizeTimer.isRunning()) {
+                saveSizeTimer.stop();
+                saveSettings();
+            }
+            System.exit(0);
+        });
+        rightPanel.add(pinButton);
+        rightPanel.add(minimizeButton);
+        rightPanel.add(closeButton);
+
+        // Add panels to buttonPanel
+        buttonPanel.add(leftPanel, BorderLayout.WEST);
+        buttonPanel.add(centerPanel, BorderLayout.CENTER);
+        buttonPanel.add(rightPanel, BorderLayout.EAST);
+        add(buttonPanel, BorderLayout.NORTH);
+
+
+        // Create the ProgressBar
+        progressBar = new ProgressBar(
+                todayPlan,
+                startOfDay,
+                progressBarColor,
+                timelineColor,
+                currentTimeColor,
+                blockColor,
+                blockHoverColor,
+                blockBorderColor
+        );
+        add(progressBar, BorderLayout.CENTER);
+
+        // Blocks of the everyday schedule can be moved and resized right on the bar
+        progressBar.setSnapMinutes(snapMinutes);
+        progressBar.setBlockEditor(new ProgressBar.BlockEditor() {
+            @Override
+            public boolean canEdit(TimeBlock block) {
+                return showsEverydaySchedule() && indexOfBlock(schedule, block) >= 0;
+            }
+
+            @Override
+            public void blockEdited(TimeBlock block, LocalTime newStart, LocalTime newEnd) {
+                applyBlockDrag(block, newStart, newEnd);
+            }
+        });
+
+        // Automatically update the title, block label, and eta every minute.
+        Timer timer = new Timer(60000, e -> {
+            long tick = System.nanoTime();
+            TIMER_JITTER.record(Math.abs(tick - lastTickNanos - 60_000_000_000L));
+            lastTickNanos = tick;
+            if (!LocalDate.now().equals(shownDate)) {
+                showDay(LocalDate.now());
+            }
+            updateTimeLabel(timeLabel);
+            updateCurrentBlockInfo();
+            if (recorder != null) {
+                recorder.tick(progressBar.getCurrentTimeBlock());
+            }
+        });
+        timer.start();
+        updateTimeLabel(timeLabel);
+        updateCurrentBlockInfo();
+
+        // Fire block start/end transitions exactly on time instead of waiting for the minute tick
+        blockEvents = new BlockEventEngine(todayPlan);
+        blockEvents.addListener(event -> SwingUtilities.invokeLater(() -> {
+            updateCurrentBlockInfo();
+            progressBar.repaint();
+        }));
+        blockEvents.addListener(event -> Log.info("Block transition: " + event));
+        blockEvents.addListener(event -> SwingUtilities.invokeLater(() -> showTransitionNotification(event)));
+        blockEvents.start();
+
+        // Record what actually happens, next to the plan
+        try {
+            recorder = new SessionRecorder(new SessionLog());
+            recorder.getRollups().setPlanned(shownDate, todayPlan);
+            blockEvents.addListener(recorder::transition);
+            recorder.start(progressBar.getCurrentTimeBlock());
+            TeamUploader.startIfConfigured(recorder);
+            activitySampler = new ActivitySampler(recorder, idleMinutes);
+            activitySampler.start();
+        } catch (IOException e) {
+            Log.warn("Could not open session log, actual time won't be recorded.", e);
+        }
+
+        // Pick up edits from other instances and devices as soon as their delta files change
+        if (scheduleSync != null) {
+            try {
+                scheduleSync.watch(() -> SwingUtilities.invokeLater(this::applySyncedEdits));
+            } catch (IOException e) {
+                Log.warn("Could not watch sync directory, remote edits will show after a restart.", e);
+            }
+        }
+
+        // Sources load in the background; their blocks show up once they arrive. The refresh queued by the first
+        // plan may have finished before the listener was set, so the day is shown once more from the cache.
+        scheduleSources.setOnChange(() -> SwingUtilities.invokeLater(() -> showDay(shownDate)));
+        showDay(shownDate);
+
+        enableDragging();
+        saveSizeTimer.setRepeats(false);
+        frameResizer = new FrameResizer(this, progressBar, new Dimension(300, 100), size -> {
+            frameWidth = size.width;
+            frameHeight = size.height;
+            saveSizeTimer.restart();
+        });
+        frameResizer.install();
+        setVisible(true);
+    }
+
+    private void showMenu(JButton menuButton) {
+        JPopupMenu menu = new JPopupMenu();
+
+        // First entry in menu
+        JMenuItem schedule = new JMenuItem("Edit Schedule");
+        schedule.addActionListener(e -> openScheduleDialog());
+
+        // Second entry in menu
+        JMenuItem changeSize = new JMenuItem("Change Size");
+        changeSize.addActionListener(e -> openSizeDialog());
+
+        // Third entry in menu
+        JMenuItem settings = new JMenuItem("Settings");
+        settings.addActionListener(e -> openSettingsDialog());
+
+        JMenuItem templates = new JMenuItem("Weekly Templates");
+        templates.addActionListener(e -> openTemplatesDialog());
+
+        JMenuItem reports = new JMenuItem("Reports");
+        reports.addActionListener(e -> openReportsDialog());
+
+        JMenuItem heatmap = new JMenuItem("History Heatmap");
+        heatmap.addActionListener(e -> openHeatmapDialog());
+        heatmap.setEnabled(recorder != null);
+
+        JMenuItem export = new JMenuItem("Export...");
+        export.addActionListener(e -> openExportDialog());
+
+        JMenuItem importCalendar = new JMenuItem("Import Calendar...");
+        importCalendar.addActionListener(e -> openImportDialog());
+
+        menu.add(createProfileMenu());
+        menu.add(schedule);
+        menu.add(templates);
+        menu.add(reports);
+        menu.add(heatmap);
+        menu.add(export);
+        menu.add(importCalendar);
+        menu.add(changeSize);
+        menu.add(settings);
+
+        // Show below the Menu button
+        menu.show(menuButton, 0, menuButton.getHeight());
+    }
+
+    private JMenu createProfileMenu() {
+        JMenu profileMenu = new JMenu("Profile: " + activeProfile);
+        ButtonGroup group = new ButtonGroup();
+        for (String name : profiles.names()) {
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(name, name.equals(activeProfile));
+            item.addActionListener(e -> switchProfile(name));
+            group.add(item);
+            profileMenu.add(item);
+        }
+        profileMenu.addSeparator();
+
+        JMenuItem newProfile = new JMenuItem("New Profile...");
+        newProfile.addActionListener(e -> createProfile());
+        profileMenu.add(newProfile);
+        return profileMenu;
+    }
+
+    // Starts a new profile as a copy of the current schedule
+    private void createProfile() {
+        String name = JOptionPane.showInputDialog(this, "Profile name:", "New Profile", JOptionPane.PLAIN_MESSAGE);
+        if (name == null) {
+            return;
+        }
+        name = name.trim();
+        if (!ScheduleProfiles.isValidName(name)) {
+            JOptionPane.showMessageDialog(this, "Use letters, digits, spaces, - and _ only.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (profiles.names().contains(name)) {
+            JOptionPane.showMessageDialog(this, "A profile named " + name + " already exists.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        List<TimeBlock> copy = new ArrayList<>();
+        for (TimeBlock block : schedule) {
+            copy.add(block.copy());
+        }
+        applyProfile(name, copy);
+        saveTimeBlocks();
+    }
+
+    // Profiles in memory switch at once; others are parsed on a worker thread first
+    private void switchProfile(String name) {
+        requestedProfile = name;
+        if (name.equals(activeProfile)) {
+            return;
+        }
+        List<TimeBlock> cached = profiles.cached(name);
+        if (cached != null) {
+            applyProfile(name, cached);
+            return;
+        }
+
+        new SwingWorker<List<TimeBlock>, Void>() {
+            @Override
+            protected List<TimeBlock> doInBackground() throws Exception {
+                return profiles.load(name);
+            }
+
+            @Override
+            protected void done() {
+                if (!name.equals(requestedProfile)) {
+                    return;
+                }
+                try {
+                    applyProfile(name, get());
+                } catch (Exception ex) {
+                    Log.warn("Could not load profile " + name, ex);
+                    JOptionPane.showMessageDialog(TimeTrackerFrame.this, "Could not load profile " + name + ".",
+                            "Profile Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    private void applyProfile(String name, List<TimeBlock> blocks) {
+        activeProfile = name;
+        requestedProfile = name;
+        schedule = new ArrayList<>(blocks);
+        if (usesDefaultProfile() && scheduleSync != null) {
+            syncDefaultProfile();
+        }
+        scheduleReplaced();
+        showDay(shownDate);
+        progressBar.repaint();
+        saveSettings();
+    }
+
+    // Only the default profile is shared through the sync directory
+    private boolean usesDefaultProfile() {
+        return activeProfile.equals(ScheduleProfiles.DEFAULT_PROFILE);
+    }
+
+    // Handles an action forwarded from a second launch: show, reload, or add HH:mm HH:mm label
+    public void handleCommand(String[] args) {
+        if (args.length == 0) {
+            return;
+        }
+
+        switch (args[0].toLowerCase()) {
+            case "show" -> {
+                setState(JFrame.NORMAL);
+                setVisible(true);
+                toFront();
+            }
+            case "reload" -> {
+                loadTimeBlocks();
+                if (scheduleSync != null && usesDefaultProfile()) {
+                    scheduleSync.commit(schedule);
+                }
+                scheduleReplaced();
+                showDay(shownDate);
+            }
+            case "add" -> {
+                if (args.length < 4) {
+                    Log.warn("Usage: add HH:mm HH:mm label");
+                    return;
+                }
+                try {
+                    LocalTime start = LocalTime.parse(args[1].trim());
+                    LocalTime end = LocalTime.parse(args[2].trim());
+                    String label = String.join(" ", java.util.Arrays.copyOfRange(args, 3, args.length)).trim();
+                    if (end.equals(start)) {
+                        Log.warn("End time must differ from start time.");
+                        return;
+                    }
+
+                    insertBlock(new TimeBlock(start, end, label));
+                    saveTimeBlocks();
+                    progressBar.repaint();
+                    updateCurrentBlockInfo();
+                } catch (Exception e) {
+                    Log.warn("Invalid time format in add command! Use HH:mm.");
+                }
+            }
+            default -> Log.warn("Unknown command: " + args[0]);
+        }
+    }
+
+    // Shows a desktop notification for a block transition, where the platform has a system tray
+    private void showTransitionNotification(BlockEventEngine.TransitionEvent event) {
+        if (!SystemTray.isSupported()) {
+            return;
+        }
+
+        try {
+            if (trayIcon == null) {
+                java.awt.image.BufferedImage image = new java.awt.image.BufferedImage(16, 16, java.awt.image.BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g = image.createGraphics();
+                g.setColor(progressBarColor);
+                g.fillRect(0, 0, 16, 16);
+                g.dispose();
+
+                trayIcon = new TrayIcon(image, "Time Tracker");
+                trayIcon.setImageAutoSize(true);
+                trayIcon.addActionListener(e -> handleCommand(new String[]{"show"}));
+                SystemTray.getSystemTray().add(trayIcon);
+            }
+
+            String caption = (event.type == BlockEventEngine.TransitionType.START) ? "Starting now" : "Block ended";
+            trayIcon.displayMessage(caption, event.block.label, TrayIcon.MessageType.INFO);
+        } catch (AWTException e) {
+            Log.info("System tray unavailable, skipping notification.");
+        }
+    }
+
+    // Merges what other replicas wrote while this one wasn't running, and publishes our schedule on first use
+    private void openScheduleSync() {
+        try {
+            scheduleSync = new ScheduleSync();
+        } catch (IOException e) {
+            Log.warn("Could not open sync directory, schedule edits won't be shared.", e);
+            return;
+        }
+
+        if (usesDefaultProfile()) {
+            syncDefaultProfile();
+        } else {
+            scheduleSync.mergeRemote();
+        }
+    }
+
+    // Brings the default profile up to date with the sync directory, e.g. at startup or when switching back to it
+    private void syncDefaultProfile() {
+        scheduleSync.mergeRemote();
+        if (!scheduleSync.hasOwnDeltas()) {
+            scheduleSync.commit(schedule);
+        }
+        schedule = scheduleSync.snapshot();
+        schedule.sort(TimeBlock.BY_TIME);
+        saveTimeBlocks();
+    }
+
+    // Runs on the EDT after another replica's delta file changed
+    private void applySyncedEdits() {
+        // Under another profile the merged edits wait in memory until the default profile is back
+        if (!scheduleSync.mergeRemote() || !usesDefaultProfile()) {
+            return;
+        }
+        // Merged into the live list by id, so blocks an open schedule manager holds stay the ones that get saved
+        Map<String, TimeBlock> merged = new HashMap<>();
+        for (TimeBlock block : scheduleSync.snapshot()) {
+            merged.put(block.id, block);
+        }
+        for (TimeBlock block : new ArrayList<>(schedule)) {
+            if (!merged.containsKey(block.id)) {
+                removeBlock(block);
+            }
+        }
+        Map<String, TimeBlock> current = new HashMap<>();
+        for (TimeBlock block : schedule) {
+            current.put(block.id, block);
+        }
+        for (TimeBlock remote : merged.values()) {
+            TimeBlock block = current.get(remote.id);
+            if (block == null) {
+                insertBlock(remote);
+            } else if (!sameContents(block, remote)) {
+                block.start = remote.start;
+                block.end = remote.end;
+                block.label = remote.label;
+                block.children.clear();
+                block.children.addAll(remote.children);
+                blockEdited(block);
+            }
+        }
+        saveTimeBlocks();
+        showDay(shownDate);
+        progressBar.repaint();
+    }
+
+    private static boolean sameContents(TimeBlock a, TimeBlock b) {
+        return a.start.equals(b.start) && a.end.equals(b.end) && a.label.equals(b.label)
+                && TimeUtils.blocksToJson(a.children).toString().equals(TimeUtils.blocksToJson(b.children).toString());
+    }
+
+    // Switches the overlay to the plan for the given date, e.g. after midnight
+    private void showDay(LocalDate date) {
+        shownDate = date;
+        List<TimeBlock> plan = scheduleSources.planFor(date, recurrence.planFor(date));
+        progressBar.setTimeBlocks(plan);
+        blockEvents.reset(plan);
+        if (recorder != null) {
+            recorder.getRollups().setPlanned(date, plan);
+        }
+        updateCurrentBlockInfo();
+    }
+
+    // Edits in the schedule manager only show on the bar when no weekly template or override applies today
+    private boolean showsEverydaySchedule() {
+        return recurrence.usesEverydaySchedule(shownDate);
+    }
+
+    private void updateCurrentBlockInfo() {
+        TimeBlock currentBlock = progressBar.getCurrentTimeBlock();
+
+        if (currentBlock != null) {
+            blockLabel.setText("" + currentBlock.label);
+            timeLeftLabel.setText(progressBar.getTimeRemaining(currentBlock));
+
+            // Pre-aggregated, so this is a lookup rather than a scan of today's history
+            if (recorder != null) {
+                long minutesToday = recorder.getRollups().actualMinutes(LocalDate.now(), currentBlock.label);
+                String todaySoFar = String.format("Today so far: %d hr %d min", minutesToday / 60, minutesToday % 60);
+                blockLabel.setToolTipText(todaySoFar);
+                timeLeftLabel.setToolTipText(todaySoFar);
+            }
+        } else {
+            blockLabel.setText("No active block");
+            timeLeftLabel.setText("");
+        }
+    }
+
+
+    // Loads settings from file
+    private void loadSettings() {
+        long loadStart = System.nanoTime();
+        Properties properties = new Properties();
+        try (FileInputStream input = new FileInputStream(SETTINGS_FILE)) {
+            properties.load(input);
+
+            fontColor = new Color(Integer.parseInt(properties.getProperty("fontColor", String.valueOf(Color.BLACK.getRGB()))), true);
+            progressBarColor = new Color(Integer.parseInt(properties.getProperty("progressBarColor", String.valueOf(new Color(18, 97, 150, 170).getRGB()))), true);
+            timelineColor = new Color(Integer.parseInt(properties.getProperty("timelineColor", String.valueOf(new Color(140, 0, 0, 255).getRGB()))), true);
+            currentTimeColor = new Color(Integer.parseInt(properties.getProperty("currentTimeColor", String.valueOf(new Color(255, 0, 0, 255).getRGB()))), true);
+
+            // Formatting for startOfDay
+            startOfDay = LocalTime.parse(properties.getProperty("startOfDay", "06:00"));
+
+            // Default frame width and height
+            frameWidth = Integer.parseInt(properties.getProperty("frameWidth", "1200"));
+            frameHeight = Integer.parseInt(properties.getProperty("frameHeight", "200"));
+
+            blockColor = new Color(Integer.parseInt(properties.getProperty("blockColor", String.valueOf(new Color(255, 255, 255, 128).getRGB()))), true);
+            blockHoverColor = new Color(Integer.parseInt(properties.getProperty("blockHoverColor", String.valueOf(new Color(34, 34, 139, 200).getRGB()))), true);
+            blockBorderColor = new Color(Integer.parseInt(properties.getProperty("blockBorderColor", String.valueOf(Color.BLACK.getRGB()))), true);
+
+            snapMinutes = Integer.parseInt(properties.getProperty("snapMinutes", "5"));
+            idleMinutes = Integer.parseInt(properties.getProperty("idleMinutes", "5"));
+            activeProfile = properties.getProperty("activeProfile", ScheduleProfiles.DEFAULT_PROFILE);
+            if (!ScheduleProfiles.isValidName(activeProfile)) {
+                activeProfile = ScheduleProfiles.DEFAULT_PROFILE;
+            }
+
+        } catch (IOException e) {
+            Log.info("No previous settings found, using defaults.");
+
+            // Set default colors with correct transparency
+            fontColor = Color.BLACK;
+            progressBarColor = new Color(18, 97, 150, 170);
+            timelineColor = new Color(140, 0, 0, 255);
+            currentTimeColor = new Color(255, 0, 0, 255);
+
+            startOfDay = LocalTime.of(6, 0);
+            frameWidth = 1200;
+            frameHeight = 200;
+
+            blockColor = new Color(255, 255, 255, 128);
+            blockHoverColor = new Color(34, 34, 139, 200);
+            blockBorderColor = Color.BLACK;
+            snapMinutes = 5;
+            idleMinutes = 5;
+            activeProfile = ScheduleProfiles.DEFAULT_PROFILE;
+        }
+        SETTINGS_LOAD_TIME.recordSince(loadStart);
+    }
+
+    // Saves settings to file
+    private void saveSettings() {
+        long saveStart = System.nanoTime();
+        Properties properties = new Properties();
+        properties.setProperty("fontColor", String.valueOf(fontColor.getRGB()));
+        properties.setProperty("progressBarColor", String.valueOf(progressBarColor.getRGB()));
+        properties.setProperty("timelineColor", String.valueOf(timelineColor.getRGB()));
+        properties.setProperty("currentTimeColor", String.valueOf(currentTimeColor.getRGB()));
+
+        // Save startOfDay Correctly
+        properties.setProperty("startOfDay", startOfDay.format(java.time.format.DateTimeFormatter.ofPattern("HH:mm")));
+
+        // Save frame dimensions
+        properties.setProperty("frameWidth", String.valueOf(frameWidth));
+        properties.setProperty("frameHeight", String.valueOf(frameHeight));
+
+        // Save colors
+        properties.setProperty("blockColor", String.valueOf(blockColor.getRGB()));
+        properties.setProperty("blockHoverColor", String.valueOf(blockHoverColor.getRGB()));
+        properties.setProperty("blockBorderColor", String.valueOf(blockBorderColor.getRGB()));
+        properties.setProperty("snapMinutes", String.valueOf(snapMinutes));
+        properties.setProperty("idleMinutes", String.valueOf(idleMinutes));
+        properties.setProperty("activeProfile", activeProfile);
+
+        try (FileOutputStream output = new FileOutputStream(SETTINGS_FILE)) {
+            properties.store(output, "User Settings");
+        } catch (IOException e) {
+            Log.error("Could not save " + SETTINGS_FILE, e);
+        }
+        SETTINGS_SAVE_TIME.recordSince(saveStart);
+    }
+
+    private void addNewTimeBlock() {
+        JTextField startTimeField = new JTextField(5);
+        JTextField endTimeField = new JTextField(5);
+        JTextField labelField = new JTextField(10);
+
+        JPanel panel = new JPanel(new GridLayout(3, 2));
+        panel.add(new JLabel("Start Time (HH:mm):"));
+        panel.add(startTimeField);
+        panel.add(new JLabel("End Time (HH:mm):"));
+        panel.add(endTimeField);
+        panel.add(new JLabel("Label:"));
+        panel.add(labelField);
+
+        JPanel dialogPanel = new JPanel(new BorderLayout(0, 5));
+        dialogPanel.add(panel, BorderLayout.CENTER);
+        dialogPanel.add(createConflictLabel(startTimeField, endTimeField, null), BorderLayout.SOUTH);
+
+        int result = JOptionPane.showConfirmDialog(null, dialogPanel, "Add Time Block", JOptionPane.OK_CANCEL_OPTION);
+        if (result == JOptionPane.OK_OPTION) {
+            try {
+                LocalTime start = LocalTime.parse(startTimeField.getText().trim());
+                LocalTime end = LocalTime.parse(endTimeField.getText().trim());
+                String label = labelField.getText().trim();
+
+                if (label.isEmpty()) {
+                    JOptionPane.showMessageDialog(null, "Label cannot be empty.", "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+
+                if (!confirmConflicts(start, end, null)) {
+                    return;
+                }
+
+                insertBlock(new TimeBlock(start, end, label));
+                saveTimeBlocks();
+                progressBar.repaint();
+            } catch (Exception e) {
+                JOptionPane.showMessageDialog(null, "Invalid time format! Use HH:mm.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+
+    private void openScheduleDialog() {
+        setAlwaysOnTop(false);
+
+        JFrame scheduleFrame = new JFrame("Manage Schedule");
+        scheduleFrame.setSize(450, 450);
+        scheduleFrame.setLayout(new BorderLayout());
+        scheduleFrame.setAlwaysOnTop(true);
+        scheduleFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+
+        // Table reading straight from the schedule. Fixed row height lets JTable render only the visible rows.
+        ScheduleTableModel tableModel = new ScheduleTableModel(schedule, getLabelIndex());
+        openTableModel = tableModel;
+        JTable timeBlockTable = new JTable(tableModel);
+        timeBlockTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        timeBlockTable.setRowHeight(20);
+        timeBlockTable.setFillsViewportHeight(true);
+        timeBlockTable.getTableHeader().setReorderingAllowed(false);
+        timeBlockTable.getColumnModel().getColumn(0).setMaxWidth(80);
+        timeBlockTable.getColumnModel().getColumn(1).setMaxWidth(80);
+
+        JScrollPane scrollPane = new JScrollPane(timeBlockTable);
+        scheduleFrame.add(scrollPane, BorderLayout.CENTER);
+
+        // Search field filters the table by label as the user types
+        JTextField searchField = new JTextField();
+        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                tableModel.setFilter(searchField.getText());
+            }
+
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                tableModel.setFilter(searchField.getText());
+            }
+
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                tableModel.setFilter(searchField.getText());
+            }
+        });
+        JPanel searchPanel = new JPanel(new BorderLayout(5, 0));
+        searchPanel.add(new JLabel("Search:"), BorderLayout.WEST);
+        searchPanel.add(searchField, BorderLayout.CENTER);
+        scheduleFrame.add(searchPanel, BorderLayout.NORTH);
+
+        // Buttons for Adding and Deleting
+        JButton addButton = new JButton("Add Time Block");
+        JButton editButton = new JButton("Edit");
+        JButton deleteButton = new JButton("Delete Selected");
+        JButton subBlockButton = new JButton("Add Sub-block");
+        JButton saveButton = new JButton("Save");
+
+        // Add new time block
+        addButton.addActionListener(e -> addNewTimeBlock());
+
+        // Edit selected time block
+        editButton.addActionListener(e -> {
+            int selectedRow = timeBlockTable.getSelectedRow();
+            if (selectedRow >= 0) {
+                editTimeBlock(tableModel.getBlockAt(selectedRow));
+            } else {
+                JOptionPane.showMessageDialog(scheduleFrame, "Please select a time block to edit.", "No Selection", JOptionPane.WARNING_MESSAGE);
+            }
+        });
+
+        // Nest a sub-block inside the selected time block
+        subBlockButton.addActionListener(e -> {
+            int selectedRow = timeBlockTable.getSelectedRow();
+            if (selectedRow >= 0) {
+                addSubBlock(tableModel.getBlockAt(selectedRow));
+            } else {
+                JOptionPane.showMessageDialog(scheduleFrame, "Please select a time block to add a sub-block to.", "No Selection", JOptionPane.WARNING_MESSAGE);
+            }
+        });
+
+        // Delete selected time block
+        deleteButton.addActionListener(e -> {
+            int selectedRow = timeBlockTable.getSelectedRow();
+            if (selectedRow >= 0) {
+                removeBlock(tableModel.getBlockAt(selectedRow));
+                saveTimeBlocks();
+                progressBar.repaint();
+            }
+        });
+
+        saveButton.addActionListener(e -> {
+            saveTimeBlocks();
+            progressBar.repaint();
+            JOptionPane.showMessageDialog(scheduleFrame, "Schedule saved successfully.", "Saved", JOptionPane.INFORMATION_MESSAGE);
+            scheduleFrame.dispose();
+        });
+
+
+
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(addButton);
+        buttonPanel.add(editButton);
+        buttonPanel.add(deleteButton);
+        buttonPanel.add(subBlockButton);
+        buttonPanel.add(saveButton);
+
+        scheduleFrame.add(buttonPanel, BorderLayout.SOUTH);
+
+        // Restore "Always on Top" when closed
+        scheduleFrame.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent e) {
+                if (openTableModel == tableModel) {
+                    openTableModel = null;
+                }
+                setAlwaysOnTop(true);
+            }
+        });
+
+        scheduleFrame.setVisible(true);
+    }
+
+    // Every change to the schedule goes through these, so the list stays in TimeBlock.BY_TIME order and the label
+    // index, conflict checks, bar events and an open schedule manager all see it
+    private void insertBlock(TimeBlock block) {
+        int index = ScheduleTableModel.insertionPoint(schedule, block);
+        schedule.add(index, block);
+        if (labelIndex != null) {
+            labelIndex.add(block);
+        }
+        if (scheduleValidator != null) {
+            scheduleValidator.add(block);
+        }
+        recurrence.everydayEdited();
+        if (showsEverydaySchedule()) {
+            blockEvents.blockAdded(block);
+            refreshMergedPlan();
+        }
+        if (openTableModel != null) {
+            openTableModel.blockInserted(block, index);
+        }
+        updateBlockCount();
+    }
+
+    private void removeBlock(TimeBlock block) {
+        int index = indexOfBlock(schedule, block);
+        if (index < 0) {
+            return;
+        }
+        schedule.remove(index);
+        if (labelIndex != null) {
+            labelIndex.remove(block);
+        }
+        if (scheduleValidator != null) {
+            scheduleValidator.remove(block);
+        }
+        recurrence.everydayEdited();
+        if (showsEverydaySchedule()) {
+            blockEvents.blockRemoved(block);
+            refreshMergedPlan();
+        }
+        if (openTableModel != null) {
+            openTableModel.blockRemoved(block, index);
+        }
+        updateBlockCount();
+    }
+
+    // Call after changing a block's times or label in place
+    private void blockEdited(TimeBlock block) {
+        int index = indexOfBlock(schedule, block);
+        if (index >= 0) {
+            schedule.remove(index);
+            schedule.add(ScheduleTableModel.insertionPoint(schedule, block), block);
+        }
+        if (labelIndex != null) {
+            labelIndex.update(block);
+        }
+        if (scheduleValidator != null) {
+            scheduleValidator.update(block);
+        }
+        recurrence.everydayEdited();
+        if (showsEverydaySchedule()) {
+            blockEvents.blockChanged(block);
+            refreshMergedPlan();
+        }
+        if (openTableModel != null) {
+            openTableModel.blockChanged(block);
+        }
+    }
+
+    // With sources configured the bar shows a merged copy of the plan, which has to be rebuilt after local edits
+    private void refreshMergedPlan() {
+        if (scheduleSources.hasSources()) {
+            showDay(shownDate);
+        }
+    }
+
+    // Call after the schedule list was swapped or changed in bulk
+    private void scheduleReplaced() {
+        schedule.sort(TimeBlock.BY_TIME);
+        recurrence.setEverydaySchedule(schedule);
+        labelIndex = null;
+        scheduleValidator = null;
+        updateBlockCount();
+        if (openTableModel != null) {
+            openTableModel.scheduleReplaced(schedule, getLabelIndex());
+        }
+        updateCurrentBlockInfo();
+    }
+
+    private ScheduleValidator getScheduleValidator() {
+        if (scheduleValidator == null) {
+            scheduleValidator = new ScheduleValidator(schedule, startOfDay);
+        }
+        return scheduleValidator;
+    }
+
+    // Label under the time fields that lists conflicts with neighbouring blocks as the user types
+    private JLabel createConflictLabel(JTextField startField, JTextField endField, TimeBlock editing) {
+        JLabel conflictLabel = new JLabel(" ");
+        Runnable refresh = () -> {
+            LocalTime start;
+            LocalTime end;
+            try {
+                start = LocalTime.parse(startField.getText().trim());
+                end = LocalTime.parse(endField.getText().trim());
+            } catch (Exception e) {
+                conflictLabel.setText(" "); // Not a complete time yet
+                return;
+            }
+
+            List<ScheduleValidator.Conflict> conflicts = getScheduleValidator().check(start, end, editing);
+            if (conflicts.isEmpty()) {
+                conflictLabel.setText(" ");
+                return;
+            }
+            StringBuilder text = new StringBuilder("<html>");
+            for (ScheduleValidator.Conflict conflict : conflicts) {
+                String color = conflict.isError() ? "red" : (conflict.kind() == ScheduleValidator.Kind.OVERLAP ? "#c06000" : "gray");
+                text.append("<font color='").append(color).append("'>").append(conflict.message()).append("</font><br>");
+            }
+            conflictLabel.setText(text.append("</html>").toString());
+        };
+
+        javax.swing.event.DocumentListener listener = new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                refresh.run();
+            }
+
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                refresh.run();
+            }
+
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                refresh.run();
+            }
+        };
+        startField.getDocument().addDocumentListener(listener);
+        endField.getDocument().addDocumentListener(listener);
+        refresh.run();
+        return conflictLabel;
+    }
+
+    // Rejects empty ranges and asks before saving a block that overlaps another
+    private boolean confirmConflicts(LocalTime start, LocalTime end, TimeBlock editing) {
+        List<ScheduleValidator.Conflict> conflicts = getScheduleValidator().check(start, end, editing);
+        for (ScheduleValidator.Conflict conflict : conflicts) {
+            if (conflict.isError()) {
+                JOptionPane.showMessageDialog(null, conflict.message(), "Error", JOptionPane.ERROR_MESSAGE);
+                return false;
+            }
+        }
+        List<String> overlaps = new ArrayList<>();
+        for (ScheduleValidator.Conflict conflict : conflicts) {
+            if (conflict.kind() == ScheduleValidator.Kind.OVERLAP) {
+                overlaps.add(conflict.message());
+            }
+        }
+        if (overlaps.isEmpty()) {
+            return true;
+        }
+        int choice = JOptionPane.showConfirmDialog(null, String.join("\n", overlaps) + "\nSave anyway?",
+                "Overlapping Blocks", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+        return choice == JOptionPane.YES_OPTION;
+    }
+
+    private LabelSearchIndex getLabelIndex() {
+        if (labelIndex == null) {
+            labelIndex = new LabelSearchIndex(schedule);
+        }
+        return labelIndex;
+    }
+
+    // Lists weekly templates, and saves the current schedule as a template for chosen weekdays
+    private void openTemplatesDialog() {
+        setAlwaysOnTop(false);
+
+        JFrame templatesFrame = new JFrame("Weekly Templates");
+        templatesFrame.setSize(400, 300);
+        templatesFrame.setLayout(new BorderLayout());
+        templatesFrame.setAlwaysOnTop(true);
+        templatesFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+
+        DefaultListModel<RecurrenceEngine.Rule> ruleModel = new DefaultListModel<>();
+        ruleModel.addAll(recurrence.getRules());
+        JList<RecurrenceEngine.Rule> ruleList = new JList<>(ruleModel);
+        ruleList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        templatesFrame.add(new JScrollPane(ruleList), BorderLayout.CENTER);
+
+        JButton addButton = new JButton("Save Current Schedule As...");
+        addButton.addActionListener(e -> {
+            JTextField nameField = new JTextField(10);
+            JPanel panel = new JPanel(new GridLayout(0, 2));
+            panel.add(new JLabel("Template name:"));
+            panel.add(nameField);
+            List<JCheckBox> dayBoxes = new ArrayList<>();
+            for (DayOfWeek day : DayOfWeek.values()) {
+                JCheckBox dayBox = new JCheckBox(day.getDisplayName(java.time.format.TextStyle.FULL, java.util.Locale.getDefault()));
+                dayBoxes.add(dayBox);
+                panel.add(dayBox);
+            }
+
+            int result = JOptionPane.showConfirmDialog(templatesFrame, panel, "New Weekly Template", JOptionPane.OK_CANCEL_OPTION);
+            if (result != JOptionPane.OK_OPTION) {
+                return;
+            }
+            String name = nameField.getText().trim();
+            java.util.Set<DayOfWeek> days = java.util.EnumSet.noneOf(DayOfWeek.class);
+            for (int i = 0; i < dayBoxes.size(); i++) {
+                if (dayBoxes.get(i).isSelected()) {
+                    days.add(DayOfWeek.of(i + 1));
+                }
+            }
+            if (name.isEmpty() || days.isEmpty()) {
+                JOptionPane.showMessageDialog(templatesFrame, "Enter a name and pick at least one day.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            recurrence.putRule(new RecurrenceEngine.Rule(name, days, null, null, schedule));
+            ruleModel.clear();
+            ruleModel.addAll(recurrence.getRules());
+            showDay(shownDate);
+        });
+
+        JButton removeButton = new JButton("Remove");
+        removeButton.addActionListener(e -> {
+            RecurrenceEngine.Rule selectedRule = ruleList.getSelectedValue();
+            if (selectedRule != null) {
+                recurrence.removeRule(selectedRule.name);
+                ruleModel.removeElement(selectedRule);
+                showDay(shownDate);
+            }
+        });
+
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(addButton);
+        buttonPanel.add(removeButton);
+        templatesFrame.add(buttonPanel, BorderLayout.SOUTH);
+
+        templatesFrame.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent e) {
+                setAlwaysOnTop(true);
+            }
+        });
+
+        templatesFrame.setVisible(true);
+    }
+
+    // Shows planned vs actual minutes, adherence and streaks per label over a chosen range
+    private void openReportsDialog() {
+        if (recorder == null) {
+            JOptionPane.showMessageDialog(null, "No recorded history available.", "Reports", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        setAlwaysOnTop(false);
+
+        JFrame reportsFrame = new JFrame("Reports");
+        reportsFrame.setSize(600, 400);
+        reportsFrame.setLayout(new BorderLayout());
+        reportsFrame.setAlwaysOnTop(true);
+        reportsFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+
+        String[] columns = {"Label", "Actual (h)", "Planned (h)", "Adherence", "Longest Streak", "Current Streak"};
+        javax.swing.table.DefaultTableModel reportModel = new javax.swing.table.DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        reportsFrame.add(new JScrollPane(new JTable(reportModel)), BorderLayout.CENTER);
+
+        JComboBox<String> rangeBox = new JComboBox<>(new String[]{"Last 7 days", "Last 30 days", "Last 365 days"});
+        JLabel summaryLabel = new JLabel(" ");
+        JPanel topPanel = new JPanel(new BorderLayout(10, 0));
+        topPanel.add(rangeBox, BorderLayout.WEST);
+        topPanel.add(summaryLabel, BorderLayout.CENTER);
+        reportsFrame.add(topPanel, BorderLayout.NORTH);
+
+        AnalyticsEngine analytics = new AnalyticsEngine(recorder.getLog(), recurrence, recorder.getRollups());
+        Runnable refresh = () -> {
+            int days = switch (rangeBox.getSelectedIndex()) {
+                case 0 -> 7;
+                case 1 -> 30;
+                default -> 365;
+            };
+            LocalDate to = LocalDate.now();
+            LocalDate from = to.minusDays(days - 1);
+            summaryLabel.setText("Calculating...");
+
+            // Scanning history can take a moment, keep it off the EDT
+            new SwingWorker<AnalyticsEngine.Report, Void>() {
+                @Override
+                protected AnalyticsEngine.Report doInBackground() {
+                    return analytics.report(from, to);
+                }
+
+                @Override
+                protected void done() {
+                    try {
+                        AnalyticsEngine.Report report = get();
+                        reportModel.setRowCount(0);
+                        for (AnalyticsEngine.LabelStats stats : report.byLabel.values()) {
+                            reportModel.addRow(new Object[]{
+                                    stats.label,
+                                    String.format("%.1f", stats.actualMinutes / 60.0),
+                                    String.format("%.1f", stats.plannedMinutes / 60.0),
+                                    String.format("%.0f%%", stats.adherence() * 100),
+                                    stats.longestStreak + " days",
+                                    stats.currentStreak + " days"
+                            });
+                        }
+                        summaryLabel.setText(String.format("Tracked %.1f h of %.1f h planned (%.0f%%)",
+                                report.totalActualMinutes / 60.0, report.totalPlannedMinutes / 60.0, report.adherence() * 100));
+                    } catch (Exception e) {
+                        Log.warn("Could not compute analytics.", e);
+                        summaryLabel.setText("Could not build report.");
+                    }
+                }
+            }.execute();
+        };
+        rangeBox.addActionListener(e -> refresh.run());
+        refresh.run();
+
+        // Repair path, in case the rollups ever disagree with the raw history
+        JButton rebuildButton = new JButton("Rebuild From History");
+        rebuildButton.addActionListener(e -> {
+            rebuildButton.setEnabled(false);
+            summaryLabel.setText("Rebuilding...");
+            new SwingWorker<Void, Void>() {
+                @Override
+                protected Void doInBackground() {
+                    recorder.getRollups().rebuild(recorder.getLog(), recurrence);
+                    return null;
+                }
+
+                @Override
+                protected void done() {
+                    rebuildButton.setEnabled(true);
+                    refresh.run();
+                }
+            }.execute();
+        });
+        JPanel bottomPanel = new JPanel();
+        bottomPanel.add(rebuildButton);
+        reportsFrame.add(bottomPanel, BorderLayout.SOUTH);
+
+        reportsFrame.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent e) {
+                setAlwaysOnTop(true);
+            }
+        });
+
+        reportsFrame.setVisible(true);
+    }
+
+    // Months of recorded history at a glance; ctrl + wheel zooms
+    private void openHeatmapDialog() {
+        setAlwaysOnTop(false);
+
+        JFrame heatmapFrame = new JFrame("History Heatmap");
+        heatmapFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        HeatmapView heatmapView = new HeatmapView(recorder.getLog());
+        JScrollPane scrollPane = new JScrollPane(heatmapView);
+        scrollPane.getViewport().setScrollMode(JViewport.BLIT_SCROLL_MODE);
+        heatmapFrame.add(scrollPane, BorderLayout.CENTER);
+        heatmapFrame.add(new JLabel(" One row per day, newest on top. Ctrl + mouse wheel to zoom."), BorderLayout.SOUTH);
+
+        heatmapFrame.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent e) {
+                heatmapView.dispose();
+            }
+        });
+
+        heatmapFrame.pack();
+        heatmapFrame.setLocationRelativeTo(this);
+        heatmapFrame.setVisible(true);
+    }
+
+    // Exports the schedule or the recorded history to CSV or .ics in the background, with progress and cancel
+    private void openExportDialog() {
+        String[] choices = (recorder != null) ? new String[]{"Schedule", "History"} : new String[]{"Schedule"};
+        int choice = JOptionPane.showOptionDialog(null, "What would you like to export?", "Export",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, choices, choices[0]);
+        if (choice < 0) {
+            return;
+        }
+        boolean exportHistory = choice == 1;
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export " + choices[choice]);
+        chooser.setSelectedFile(new File(exportHistory ? "history.csv" : "schedule.csv"));
+        chooser.addChoosableFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("iCalendar (*.ics)", "ics"));
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV (*.csv)", "csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path target = chooser.getSelectedFile().toPath();
+
+        // Snapshot on the EDT, so the export never reads the schedule while it's being edited
+        List<TimeBlock> scheduleSnapshot = new ArrayList<>(schedule);
+        ProgressMonitor monitor = new ProgressMonitor(this, "Exporting " + target.getFileName(), null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        // The monitor is a Swing component, so its cancel button is read on the EDT and handed over through this
+        AtomicBoolean canceled = new AtomicBoolean();
+
+        SwingWorker<Void, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                Exporter.ProgressListener listener = (done, total) -> {
+                    setProgress((int) (done * 100 / Math.max(1, total)));
+                    return !canceled.get();
+                };
+                if (exportHistory) {
+                    Exporter.exportHistory(recorder.getLog(), target, listener);
+                } else {
+                    Exporter.exportSchedule(scheduleSnapshot, target, listener);
+                }
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    get();
+                } catch (java.util.concurrent.CancellationException | InterruptedException e) {
+                    deletePartialExport(target);
+                } catch (java.util.concurrent.ExecutionException e) {
+                    deletePartialExport(target);
+                    if (!(e.getCause() instanceof java.util.concurrent.CancellationException)) {
+                        Log.error("Export to " + target + " failed.", e.getCause());
+                        JOptionPane.showMessageDialog(null, "Export failed!", "Export Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            }
+        };
+        worker.addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) {
+                monitor.setProgress((Integer) event.getNewValue());
+                if (monitor.isCanceled()) {
+                    canceled.set(true);
+                }
+            }
+        });
+        worker.execute();
+    }
+
+    // Reads one date out of an .ics file in the background, then applies the blocks in a single swap
+    private void openImportDialog() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Calendar");
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("iCalendar (*.ics)", "ics"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path source = chooser.getSelectedFile().toPath();
+
+        JTextField dateField = new JTextField(LocalDate.now().toString(), 10);
+        JComboBox<IcsImporter.OverlapPolicy> policyBox = new JComboBox<>(IcsImporter.OverlapPolicy.values());
+        JCheckBox replaceEveryday = new JCheckBox("Replace the everyday schedule");
+
+        JPanel panel = new JPanel(new GridLayout(0, 2, 5, 5));
+        panel.add(new JLabel("Date (YYYY-MM-DD):"));
+        panel.add(dateField);
+        panel.add(new JLabel("Overlapping events:"));
+        panel.add(policyBox);
+        panel.add(replaceEveryday);
+
+        int result = JOptionPane.showConfirmDialog(null, panel, "Import " + source.getFileName(), JOptionPane.OK_CANCEL_OPTION);
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        LocalDate date;
+        try {
+            date = LocalDate.parse(dateField.getText().trim());
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(null, "Invalid date! Use YYYY-MM-DD.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        IcsImporter.OverlapPolicy policy = (IcsImporter.OverlapPolicy) policyBox.getSelectedItem();
+
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        new SwingWorker<List<TimeBlock>, Void>() {
+            @Override
+            protected List<TimeBlock> doInBackground() throws IOException {
+                return IcsImporter.importDay(source, date, policy);
+            }
+
+            @Override
+            protected void done() {
+                setCursor(Cursor.getDefaultCursor());
+                List<TimeBlock> imported;
+                try {
+                    imported = get();
+                } catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+                    Log.warn("Import failed.", e);
+                    JOptionPane.showMessageDialog(null, "Import failed!", "Import Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                if (imported.isEmpty()) {
+                    JOptionPane.showMessageDialog(null, "No timed events on " + date + ".", "Import", JOptionPane.INFORMATION_MESSAGE);
+                    return;
+                }
+                applyImport(imported, date, replaceEveryday.isSelected());
+            }
+        }.execute();
+    }
+
+    // Runs on the EDT, so nothing ever sees a half-replaced schedule
+    private void applyImport(List<TimeBlock> imported, LocalDate date, boolean replaceEveryday) {
+        if (replaceEveryday) {
+            schedule = new ArrayList<>(imported);
+            scheduleReplaced();
+            saveTimeBlocks();
+        } else {
+            recurrence.setOverride(date, imported);
+        }
+        if (date.equals(shownDate) || replaceEveryday) {
+            showDay(shownDate);
+        }
+        progressBar.repaint();
+    }
+
+    private void deletePartialExport(Path target) {
+        try {
+            Files.deleteIfExists(target);
+        } catch (IOException e) {
+            Log.warn("Could not delete partial export " + target, e);
+        }
+    }
+
+    // Open the Change Size Dialog
+    private void openSizeDialog() {
+        JTextField widthField = new JTextField(String.valueOf(frameWidth), 5);
+        JTextField heightField = new JTextField(String.valueOf(frameHeight), 5);
+
+        JPanel panel = new JPanel(new GridLayout(2, 2));
+        panel.add(new JLabel("Width:"));
+        panel.add(widthField);
+        panel.add(new JLabel("Height:"));
+        panel.add(heightField);
+
+        int result = JOptionPane.showConfirmDialog(null, panel, "Change Frame Size", JOptionPane.OK_CANCEL_OPTION);
+        if (result == JOptionPane.OK_OPTION) {
+            try {
+                int newWidth = Integer.parseInt(widthField.getText().trim());
+                int newHeight = Integer.parseInt(heightField.getText().trim());
+
+                if (newWidth > 0 && newHeight > 0) {
+                    frameWidth = newWidth;
+                    frameHeight = newHeight;
+                    setSize(frameWidth, frameHeight);
+                    validate();
+                    saveSizeTimer.restart();
+                } else {
+                    JOptionPane.showMessageDialog(null, "Width and Height must be positive numbers!", "Invalid Input", JOptionPane.ERROR_MESSAGE);
+                }
+            } catch (NumberFormatException e) {
+                JOptionPane.showMessageDialog(null, "Invalid input! Please enter valid numbers.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    // Blocks compare by identity, so two blocks with the same times and label stay apart
+    private static int indexOfBlock(List<TimeBlock> blocks, TimeBlock block) {
+        for (int i = 0; i < blocks.size(); i++) {
+            if (blocks.get(i) == block) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Saves a block dragged on the bar, through the same checks and save path as the edit dialog
+    private void applyBlockDrag(TimeBlock block, LocalTime newStart, LocalTime newEnd) {
+        if (!confirmConflicts(newStart, newEnd, block)) {
+            progressBar.repaint();
+            return;
+        }
+        setBlockTimes(block, newStart, newEnd);
+        blockEdited(block);
+
+        saveTimeBlocks();
+        updateCurrentBlockInfo();
+        progressBar.repaint();
+    }
+
+    // Moving a block takes its sub-blocks along; resizing trims them to the new range
+    private static void setBlockTimes(TimeBlock block, LocalTime newStart, LocalTime newEnd) {
+        long shift = ChronoUnit.MINUTES.between(block.start, newStart);
+        if (shift != 0 && ChronoUnit.MINUTES.between(block.end, newEnd) == shift) {
+            shiftChildren(block, shift);
+        }
+        block.start = newStart;
+        block.end = newEnd;
+        fitChildren(block);
+    }
+
+    // Clips sub-blocks to their parent and drops those left with nothing inside it, at every level
+    private static void fitChildren(TimeBlock parent) {
+        // Minutes into the parent, so parents that span midnight work too
+        long parentLength = Math.floorMod(ChronoUnit.MINUTES.between(parent.start, parent.end), 1440);
+        java.util.Iterator<TimeBlock> children = parent.children.iterator();
+        while (children.hasNext()) {
+            TimeBlock child = children.next();
+            long offset = Math.floorMod(ChronoUnit.MINUTES.between(parent.start, child.start), 1440);
+            long length = Math.floorMod(ChronoUnit.MINUTES.between(child.start, child.end), 1440);
+            // Closer to the parent's start from before than to its end from after: the child starts before it
+            if (offset > (parentLength + 1440) / 2) {
+                offset -= 1440;
+            }
+            long from = Math.max(0, offset);
+            long to = Math.min(parentLength, offset + length);
+            if (to <= from) {
+                children.remove();
+                continue;
+            }
+            child.start = parent.start.plusMinutes(from);
+            child.end = parent.start.plusMinutes(to);
+            fitChildren(child);
+        }
+    }
+
+    private static void shiftChildren(TimeBlock block, long minutes) {
+        for (TimeBlock child : block.children) {
+            child.start = child.start.plusMinutes(minutes);
+            child.end = child.end.plusMinutes(minutes);
+            shiftChildren(child, minutes);
+        }
+    }
+
+    // Sub-blocks only need to fit inside their parent; they don't count as conflicts with other blocks
+    private void addSubBlock(TimeBlock parent) {
+        JTextField startTimeField = new JTextField(parent.start.toString(), 5);
+        JTextField endTimeField = new JTextField(parent.end.toString(), 5);
+        JTextField labelField = new JTextField(10);
+
+        JPanel panel = new JPanel(new GridLayout(3, 2));
+        panel.add(new JLabel("Start Time (HH:mm):"));
+        panel.add(startTimeField);
+        panel.add(new JLabel("End Time (HH:mm):"));
+        panel.add(endTimeField);
+        panel.add(new JLabel("Label:"));
+        panel.add(labelField);
+
+        int result = JOptionPane.showConfirmDialog(null, panel, "Add Sub-block to " + parent.label, JOptionPane.OK_CANCEL_OPTION);
+        if (result == JOptionPane.OK_OPTION) {
+            try {
+                LocalTime start = LocalTime.parse(startTimeField.getText().trim());
+                LocalTime end = LocalTime.parse(endTimeField.getText().trim());
+                String label = labelField.getText().trim();
+
+                if (label.isEmpty()) {
+                    JOptionPane.showMessageDialog(null, "Label cannot be empty.", "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+
+                // Compare as minutes into the parent, so parents that span midnight work too
+                long parentLength = Math.floorMod(ChronoUnit.MINUTES.between(parent.start, parent.end), 1440);
+                long offset = Math.floorMod(ChronoUnit.MINUTES.between(parent.start, start), 1440);
+                long length = Math.floorMod(ChronoUnit.MINUTES.between(start, end), 1440);
+                if (length == 0 || offset + length > parentLength) {
+                    JOptionPane.showMessageDialog(null, "A sub-block must lie within " + parent.start + " - " + parent.end + ".", "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+
+                TimeBlock child = new TimeBlock(start, end, label);
+                int index = 0;
+                while (index < parent.children.size()
+                        && Math.floorMod(ChronoUnit.MINUTES.between(parent.start, parent.children.get(index).start), 1440) <= offset) {
+                    index++;
+                }
+                parent.children.add(index, child);
+                blockEdited(parent);
+
+                saveTimeBlocks();
+                progressBar.repaint();
+            } catch (Exception e) {
+                JOptionPane.showMessageDialog(null, "Invalid time format! Use HH:mm.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void editTimeBlock(TimeBlock block) {
+        JTextField startTimeField = new JTextField(block.start.toString(), 5);
+        JTextField endTimeField = new JTextField(block.end.toString(), 5);
+        JTextField labelField = new JTextField(block.label, 10);
+
+        JPanel panel = new JPanel(new GridLayout(3, 2));
+        panel.add(new JLabel("Start Time (HH:mm):"));
+        panel.add(startTimeField);
+        panel.add(new JLabel("End Time (HH:mm):"));
+        panel.add(endTimeField);
+        panel.add(new JLabel("Label:"));
+        panel.add(labelField);
+
+        JPanel dialogPanel = new JPanel(new BorderLayout(0, 5));
+        dialogPanel.add(panel, BorderLayout.CENTER);
+        dialogPanel.add(createConflictLabel(startTimeField, endTimeField, block), BorderLayout.SOUTH);
+
+        int result = JOptionPane.showConfirmDialog(null, dialogPanel, "Edit Time Block", JOptionPane.OK_CANCEL_OPTION);
+        if (result == JOptionPane.OK_OPTION) {
+            try {
+                LocalTime newStart = LocalTime.parse(startTimeField.getText().trim());
+                LocalTime newEnd = LocalTime.parse(endTimeField.getText().trim());
+                String newLabel = labelField.getText().trim();
+
+                if (newLabel.isEmpty()) {
+                    JOptionPane.showMessageDialog(null, "Label cannot be empty.", "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+
+                if (!confirmConflicts(newStart, newEnd, block)) {
+                    return;
+                }
+
+                // Update the block
+                setBlockTimes(block, newStart, newEnd);
+                block.label = newLabel;
+                blockEdited(block);
+
+                // Save updates
+                saveTimeBlocks();
+                progressBar.repaint();
+            } catch (Exception e) {
+                JOptionPane.showMessageDialog(null, "Invalid time format! Use HH:mm.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+
+    // Load time blocks from file
+    private void loadTimeBlocks() {
+        long loadStart = System.nanoTime();
+        try {
+            readTimeBlocks();
+            schedule.sort(TimeBlock.BY_TIME);
+            profiles.remember(activeProfile, schedule);
+        } finally {
+            SCHEDULE_LOAD_TIME.recordSince(loadStart);
+            updateBlockCount();
+        }
+    }
+
+    private void readTimeBlocks() {
+        schedule = new ArrayList<>();
+        File file = profiles.fileFor(activeProfile).toFile();
+
+        // If the file doesn't exist or is empty, create a default schedule
+        if (!file.exists() || file.length() == 0) {
+            Log.info("No valid time blocks found, creating defaults.");
+            schedule = TimeUtils.getDefaultSchedule();
+            return;
+        }
+
+        try {
+            String json = new String(Files.readAllBytes(file.toPath())).trim();
+
+            // Check if JSON is empty
+            if (json.isEmpty() || json.equals("null")) {
+                Log.info("Empty JSON file, creating default schedule.");
+                schedule = TimeUtils.getDefaultSchedule();
+                return;
+            }
+
+            schedule = TimeUtils.parseSchedule(json);
+        } catch (IOException e) {
+            Log.warn("Error reading " + file + ", using defaults.", e);
+            schedule = TimeUtils.getDefaultSchedule();
+        } catch (Exception e) {
+            Log.warn("Corrupt JSON detected. Resetting to default.", e);
+            schedule = TimeUtils.getDefaultSchedule();
+        }
+    }
+
+
+
+    private void updateBlockCount() {
+        Metrics.gauge("schedule.blocks").set(schedule.size());
+    }
+
+    private void saveTimeBlocks() {
+        long saveStart = System.nanoTime();
+        JSONArray jsonArray = TimeUtils.blocksToJson(schedule);
+
+        File target = profiles.fileFor(activeProfile).toFile();
+        if (target.getParentFile() != null) {
+            target.getParentFile().mkdirs();
+        }
+        try (FileWriter file = new FileWriter(target, false)) {
+            file.write(jsonArray.toString(4));
+            file.flush();
+        } catch (IOException e) {
+            Log.error("Could not save " + target, e);
+            JOptionPane.showMessageDialog(null, "Error saving schedule!", "Save Error", JOptionPane.ERROR_MESSAGE);
+        }
+        profiles.remember(activeProfile, schedule);
+        if (scheduleSync != null && usesDefaultProfile()) {
+            scheduleSync.commit(schedule);
+        }
+        SCHEDULE_SAVE_TIME.recordSince(saveStart);
+        updateBlockCount();
+    }
+
+
+    private JButton createButton(String text, int width, int height, Color color, ActionListener action) {
+        JButton button = new JButton(text);
+        button.setFont(new Font("Arial", Font.BOLD, 12));
+        button.setFocusPainted(false);
+        button.setBorderPainted(false);
+        button.setBackground(color);
+        button.setOpaque(true);
+        button.setPreferredSize(new Dimension(width, height));
+        button.addActionListener(action);
+        return button;
+    }
+    private void enableDragging() {
+        MouseAdapter dragListener = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                initialClick = e.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (frameResizer != null && frameResizer.isResizing()) {
+                    return;
+                }
+                int thisX = getLocation().x;
+                int thisY = getLocation().y;
+                int xMoved = e.getX() - initialClick.x;
+                int yMoved = e.getY() - initialClick.y;
+                setLocation(thisX + xMoved, thisY + yMoved);
+            }
+        };
+
+        addMouseListener(dragListener);
+        addMouseMotionListener(dragListener);
+    }
+
+    private void openSettingsDialog() {
+        // Prevent JFrame from staying on top of new dialog boxes
+        setAlwaysOnTop(false);
+
+        JFrame settingsFrame = new JFrame("Settings");
+        settingsFrame.setSize(400, 350);
+        settingsFrame.setLayout(new GridLayout(7, 2));
+        getContentPane().setBackground(new Color(211, 211, 211));
+        settingsFrame.setAlwaysOnTop(true);
+        settingsFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+
+        // Load current startup setting
+        boolean isStartupEnabled = StartupManager.loadStartupPreference();
+
+        // Create Startup Checkbox
+        JCheckBox startupCheckbox = new JCheckBox("Run on Startup", isStartupEnabled);
+        startupCheckbox.setSelected(isStartupEnabled);
+
+        // Color Pickers
+        JButton fontColorButton = new JButton("Font Color");
+        JButton progressBarColorButton = new JButton("Progress Bar Color");
+        JButton timelineColorButton = new JButton("Timeline Color");
+        JButton currentTimeColorButton = new JButton("Current Time Color");
+        JButton blockHoverColorButton = new JButton("Block Hover Color");
+
+        fontColorButton.addActionListener(e -> fontColor = JColorChooser.showDialog(null, "Choose Font Color", fontColor));
+        progressBarColorButton.addActionListener(e -> progressBarColor = JColorChooser.showDialog(null, "Choose Progress Bar Color", progressBarColor));
+        timelineColorButton.addActionListener(e -> timelineColor = JColorChooser.showDialog(null, "Choose Timeline Color", timelineColor));
+        currentTimeColorButton.addActionListener(e -> currentTimeColor = JColorChooser.showDialog(null, "Choose Current Time Color", currentTimeColor));
+        blockHoverColorButton.addActionListener(e -> blockHoverColor = JColorChooser.showDialog(null, "Choose Block Hover Color", blockHoverColor));
+
+        // Start of Day Selection
+        JComboBox<String> startOfDayBox = new JComboBox<>();
+        for (int hour = 0; hour < 24; hour++) {
+            startOfDayBox.addItem(String.format("%02d:00", hour));
+        }
+        startOfDayBox.setSelectedItem(startOfDay.toString());
+        startOfDayBox.addActionListener(e -> startOfDay = LocalTime.parse((String) Objects.requireNonNull(startOfDayBox.getSelectedItem())));
+
+        // Snapping for blocks dragged on the bar
+        JComboBox<Integer> snapBox = new JComboBox<>(new Integer[]{1, 5, 10, 15, 30});
+        snapBox.setSelectedItem(snapMinutes);
+
+        // How long without input before the time stops counting
+        JComboBox<Integer> idleBox = new JComboBox<>(new Integer[]{2, 5, 10, 15, 30});
+        idleBox.setSelectedItem(idleMinutes);
+
+        // Save & Apply Button
+        JButton applyButton = new JButton("Apply");
+        applyButton.addActionListener(e -> {
+            progressBar.updateSettings(fontColor, progressBarColor, timelineColor, currentTimeColor, startOfDay,
+                    blockColor, blockHoverColor, blockBorderColor);
+            scheduleValidator = null; // Indexed relative to the start of the day
+            snapMinutes = (Integer) Objects.requireNonNull(snapBox.getSelectedItem());
+            progressBar.setSnapMinutes(snapMinutes);
+            idleMinutes = (Integer) Objects.requireNonNull(idleBox.getSelectedItem());
+            if (activitySampler != null) {
+                activitySampler.setIdleMinutes(idleMinutes);
+            }
+            saveSettings();
+
+            // Save startup preference
+            boolean enableStartup = startupCheckbox.isSelected();
+            StartupManager.saveStartupPreference(enableStartup);
+
+            // Apply startup setting
+            if (enableStartup) {
+                StartupManager.addToStartup();
+            } else {
+                StartupManager.removeFromStartup();
+            }
+
+            settingsFrame.dispose();
+        });
+
+        // Reset Button (Deletes settings file and reloads defaults)
+        JButton resetButton = new JButton("Reset to Default");
+        resetButton.setBackground(Color.RED);
+        resetButton.setForeground(Color.WHITE);
+        resetButton.setOpaque(true);
+        resetButton.setFont(new Font("Arial", Font.BOLD, 12));
+
+        resetButton.addActionListener(e -> {
+            int confirm = JOptionPane.showConfirmDialog(null, "Are you sure you want to reset all settings to default?",
+                    "Reset Confirmation", JOptionPane.YES_NO_OPTION);
+            if (confirm == JOptionPane.YES_OPTION) {
+                resetSettings();
+                settingsFrame.dispose();
+            }
+        });
+
+        // Add components
+        settingsFrame.add(new JLabel("Select Start of Day:"));
+        settingsFrame.add(startOfDayBox);
+        settingsFrame.add(new JLabel("Snap Dragged Blocks To (min):"));
+        settingsFrame.add(snapBox);
+        settingsFrame.add(new JLabel("Count As Away After (min):"));
+        settingsFrame.add(idleBox);
+        settingsFrame.add(fontColorButton);
+        settingsFrame.add(progressBarColorButton);
+        settingsFrame.add(timelineColorButton);
+        settingsFrame.add(currentTimeColorButton);
+        settingsFrame.add(blockHoverColorButton);
+        settingsFrame.add(startupCheckbox);
+        settingsFrame.add(applyButton);
+        settingsFrame.add(resetButton);
+
+        // Re-enable Always on top when settings closes
+        settingsFrame.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent windowEvent) {
+                setAlwaysOnTop(true);
+            }
+        });
+
+        settingsFrame.setVisible(true);
+    }
+
+
+    private void resetSettings() {
+        // Delete the settings file
+        try {
+            Files.deleteIfExists(Paths.get(SETTINGS_FILE));
+            JOptionPane.showMessageDialog(null, "Settings reset to default. Restarting the application.",
+                    "Reset Successful", JOptionPane.INFORMATION_MESSAGE);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(null, "Failed to reset settings!", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        // Reload default settings
+        loadSettings();
+        progressBar.updateSettings(fontColor, progressBarColor, timelineColor, currentTimeColor, startOfDay,
+                blockColor, blockHoverColor, blockBorderColor);
+
+        // Repaint UI to reflect default settings
+        progressBar.repaint();
+    }
+
+
+    private void updateTimeLabel(JLabel timeLabel) {
+        String currentTime = java.time.LocalTime.now().format(java.time.format.DateTimeFormatter.ofPattern("hh:mm a"));
+        timeLabel.setText(currentTime);
+    }
+
+
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(TimeTrackerFrame::new);
+    }
+}
\ No newline at end of file